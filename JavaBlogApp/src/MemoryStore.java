@@ -1,7 +0,0 @@
-import java.util.ArrayList;
-import java.util.List;
-
-public class MemoryStore {
-    // Static list to act as a shared temporary database
-    public static List<BlogPost> posts = new ArrayList<>();
-}
\ No newline at end of file
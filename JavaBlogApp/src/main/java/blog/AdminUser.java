@@ -1,10 +1,12 @@
-public class AdminUser extends User {
-    public AdminUser(String username) {
-        super(username, "ADMIN");
-    }
-
-    @Override
-    public String getWelcomeMessage() {
-        return "Administrator Access: " + username;
-    }
-}
\ No newline at end of file
+package blog;
+
+public class AdminUser extends User {
+    public AdminUser(String username) {
+        super(username, "ADMIN");
+    }
+
+    @Override
+    public String getWelcomeMessage() {
+        return "Administrator Access: " + username;
+    }
+}
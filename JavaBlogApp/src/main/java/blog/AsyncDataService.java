@@ -0,0 +1,140 @@
+package blog;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Runs IDataService calls off the Swing event thread and hands results back to the EDT.
+// Uses virtual threads when the JDK has them (21+), otherwise a cached pool of daemon threads.
+public class AsyncDataService {
+    private final IDataService delegate;
+    private final ExecutorService executor;
+
+    public AsyncDataService(IDataService delegate) {
+        this.delegate = delegate;
+        this.executor = createExecutor();
+    }
+
+    static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "data-io");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public IDataService getDelegate() {
+        return delegate;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    public CompletableFuture<Boolean> authenticateUser(String username, String password) {
+        return submit(() -> delegate.authenticateUser(username, password));
+    }
+
+    public CompletableFuture<List<BlogPost>> getPostsBefore(int beforeId, int limit) {
+        return submit(() -> delegate.getPostsBefore(beforeId, limit));
+    }
+
+    public CompletableFuture<List<BlogPost>> getRankedPosts(FeedView view, int limit) {
+        return submit(() -> delegate.getRankedPosts(view, limit));
+    }
+
+    public CompletableFuture<List<BlogPost>> searchPosts(String query, int limit) {
+        return submit(() -> delegate.searchPosts(query, limit));
+    }
+
+    public CompletableFuture<BlogPost> getPostById(int id) {
+        return submit(() -> delegate.getPostById(id));
+    }
+
+    // The visitor runs on the I/O thread, one chunk at a time
+    public CompletableFuture<Boolean> streamContent(int postId, int chunkChars, ContentVisitor visitor) {
+        return submit(() -> {
+            try {
+                return delegate.streamContent(postId, chunkChars, visitor);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> getLikeCount(int postId) {
+        return submit(() -> delegate.getLikeCount(postId));
+    }
+
+    public CompletableFuture<Void> likePost(int postId) {
+        return submit(() -> {
+            delegate.likePost(postId);
+            return null;
+        });
+    }
+
+    // Completes once the post has been committed (not merely queued)
+    public CompletableFuture<BlogPost> addPost(BlogPost post) {
+        CompletableFuture<BlogPost> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                delegate.addPost(post, (saved, error) -> {
+                    if (error != null) done.completeExceptionally(error);
+                    else done.complete(saved);
+                });
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    public CompletableFuture<List<Comment>> getComments(int postId, int afterId, int limit) {
+        return submit(() -> delegate.getComments(postId, afterId, limit));
+    }
+
+    // Completes once the comment has been stored (its batch appended)
+    public CompletableFuture<Comment> addComment(Comment comment) {
+        CompletableFuture<Comment> done = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                delegate.addComment(comment, (saved, error) -> {
+                    if (error != null) done.completeExceptionally(error);
+                    else done.complete(saved);
+                });
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    // Delivers the outcome on the EDT. Nothing is delivered if the future was cancelled
+    // (e.g. the user navigated away), even if it completed in the meantime.
+    public static <T> void onEdt(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (future.isCancelled()) return;
+            if (error != null) {
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                onSuccess.accept(value);
+            }
+        }));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
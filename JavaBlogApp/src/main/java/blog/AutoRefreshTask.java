@@ -0,0 +1,120 @@
+package blog;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Background delta sync: pulls only posts newer than the newest one shown, plus fresh like
+// counts for the top of the feed, and applies them to the feed model as a small diff on the EDT.
+// The interval backs off while nothing changes and snaps back once something does.
+public class AutoRefreshTask extends Thread {
+    private static final long MIN_INTERVAL_MS = 2000;
+    private static final long MAX_INTERVAL_MS = 60000;
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_BATCHES_PER_SYNC = 5;
+    private static final int LIKES_WINDOW = 50; // Rows near the top whose like counts we refresh
+
+    private volatile boolean running = true;
+    private final JLabel statusLabel;
+    private final IDataService dataService;
+    private final FeedListModel feedModel;
+    private long interval = MIN_INTERVAL_MS;
+    private final Object wakeLock = new Object();
+    private final Histogram syncTime = Metrics.timer("sync.duration");
+    private boolean wakeRequested = false;
+
+    public AutoRefreshTask(JLabel statusLabel, IDataService dataService, FeedListModel feedModel) {
+        super("auto-refresh");
+        setDaemon(true);
+        this.statusLabel = statusLabel;
+        this.dataService = dataService;
+        this.feedModel = feedModel;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                synchronized (wakeLock) {
+                    if (!wakeRequested) wakeLock.wait(interval);
+                    if (wakeRequested) interval = MIN_INTERVAL_MS;
+                    wakeRequested = false;
+                }
+                if (!running) break;
+
+                long start = System.nanoTime();
+                boolean changed = syncOnce();
+                syncTime.recordSince(start);
+                interval = changed ? MIN_INTERVAL_MS : Math.min(interval * 2, MAX_INTERVAL_MS);
+
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                interval = Math.min(interval * 2, MAX_INTERVAL_MS);
+            }
+        }
+    }
+
+    private boolean syncOnce() throws InterruptedException {
+        // 1. Read the cursor from the model (owned by the EDT)
+        int[] newest = new int[1];
+        boolean[] ranked = new boolean[1];
+        List<Integer> topIds = new ArrayList<>();
+        onEdtAndWait(() -> {
+            newest[0] = feedModel.newestId();
+            ranked[0] = feedModel.isShowingResults();
+            topIds.addAll(feedModel.topIds(LIKES_WINDOW));
+        });
+        if (topIds.isEmpty()) return false; // Feed not loaded yet
+
+        // 2. Fetch only what changed, off the EDT. Top / Trending / search rows are not in id
+        // order (the first row is not the newest post) and take no new posts: likes only.
+        List<BlogPost> fresh = new ArrayList<>();
+        int cursor = newest[0];
+        for (int i = 0; i < MAX_BATCHES_PER_SYNC && !ranked[0]; i++) {
+            List<BlogPost> batch = dataService.getPostsAfter(cursor, BATCH_SIZE);
+            fresh.addAll(batch);
+            if (batch.size() < BATCH_SIZE) break;
+            cursor = batch.get(batch.size() - 1).id;
+        }
+        Map<Integer, Integer> likes = dataService.getLikeCounts(topIds);
+
+        // 3. Apply the diff on the EDT
+        int[] applied = new int[2];
+        onEdtAndWait(() -> {
+            applied[0] = feedModel.mergeNewer(fresh);
+            applied[1] = feedModel.updateLikes(likes);
+            if (applied[0] + applied[1] > 0) {
+                statusLabel.setText("Status: Synced " + applied[0] + " new post(s), "
+                        + applied[1] + " like update(s) at " + new SimpleDateFormat("HH:mm:ss").format(new Date()));
+            }
+        });
+        return applied[0] + applied[1] > 0;
+    }
+
+    private static void onEdtAndWait(Runnable r) throws InterruptedException {
+        try {
+            SwingUtilities.invokeAndWait(r);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Sync as soon as possible (e.g. after login) and reset the back-off
+    public void wakeUp() {
+        synchronized (wakeLock) {
+            wakeRequested = true;
+            wakeLock.notifyAll();
+        }
+    }
+
+    public void stopTask() {
+        running = false;
+        interrupt();
+    }
+}
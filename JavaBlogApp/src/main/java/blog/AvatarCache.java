@@ -0,0 +1,115 @@
+package blog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Avatars are a pure function of (username, size), so each one is drawn once and then reused.
+// LRU eviction is bounded by pixel bytes rather than entry count.
+public class AvatarCache {
+    private final long maxBytes;
+    private long usedBytes = 0;
+    private final LinkedHashMap<String, ImageIcon> icons = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Integer, Font> fonts = new ConcurrentHashMap<>();
+    private final ExecutorService prerenderer;
+
+    public AvatarCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.prerenderer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "avatar-prerender");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public Icon get(String username, int size) {
+        String key = size + ":" + username;
+        synchronized (this) {
+            ImageIcon icon = icons.get(key);
+            if (icon != null) return icon;
+        }
+
+        // Draw outside the lock; two threads racing on the same key just draw it twice
+        ImageIcon icon = render(username, size);
+        synchronized (this) {
+            if (icons.put(key, icon) == null) usedBytes += bytes(size);
+            evict();
+        }
+        return icon;
+    }
+
+    // Draws avatars in the background so they are ready before their rows scroll into view
+    public void prefetch(Collection<String> usernames, int size) {
+        prerenderer.execute(() -> {
+            for (String name : usernames) get(name, size);
+        });
+    }
+
+    public synchronized int size() {
+        return icons.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, ImageIcon>> it = icons.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            usedBytes -= bytes(it.next().getValue().getIconWidth());
+            it.remove();
+        }
+    }
+
+    private static long bytes(int size) {
+        return (long) size * size * 4; // ARGB
+    }
+
+    // One shared Font per size instead of a new one per avatar
+    private Font fontFor(int size) {
+        return fonts.computeIfAbsent(size, s -> new Font("Arial", Font.BOLD, s / 2));
+    }
+
+    // Draws a circle with the user's initial. No external image files needed!
+    ImageIcon render(String username, int size) {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = img.createGraphics();
+
+        // Enable smooth edges (Antialiasing)
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // 1. Pick a consistent color based on the username
+        int hash = username.hashCode();
+        int r = (hash & 0xFF0000) >> 16;
+        int g = (hash & 0x00FF00) >> 8;
+        int b = hash & 0x0000FF;
+        // Ensure color isn't too light (so white text shows up)
+        Color avatarColor = new Color((r + 50) % 200, (g + 50) % 200, (b + 50) % 200);
+
+        // 2. Draw Circle
+        g2.setColor(avatarColor);
+        g2.fillOval(0, 0, size, size);
+
+        // 3. Draw Initial
+        g2.setColor(Color.WHITE);
+        g2.setFont(fontFor(size));
+
+        String initial = username.isEmpty() ? "?" : username.substring(0, 1).toUpperCase();
+        FontMetrics fm = g2.getFontMetrics();
+        int x = (size - fm.stringWidth(initial)) / 2;
+        int y = ((size - fm.getHeight()) / 2) + fm.getAscent();
+
+        g2.drawString(initial, x, y);
+        g2.dispose();
+
+        return new ImageIcon(img);
+    }
+}
@@ -0,0 +1,80 @@
+package blog;
+
+import java.io.File;
+import java.io.IOException;
+
+// Picks the data store for this process and wraps it, so the Swing app and the headless
+// server run on exactly the same stack:
+//   MySQL (also while it is temporarily down: writes are buffered and replayed),
+//   else the local post log, else Memory Mode
+//   -> CachingDataService -> InstrumentedDataService
+public final class Backend {
+
+    private Backend() {
+    }
+
+    public static IDataService open() {
+        IDataService store = openStore();
+
+        // Initialize Dummy Data (if needed); never into a database that is only offline for now
+        boolean local = !(store instanceof DatabaseService) || ((DatabaseService) store).isMemoryMode();
+        if (local && store.getPostsBefore(0, 1).isEmpty()) {
+            User demo = new RegularUser("DemoUser");
+            String mode = store instanceof DatabaseService ? "Using Memory Mode." : "Posts are saved locally.";
+            store.addPost(new BlogPost("Welcome", "Database not connected. " + mode, demo));
+        }
+
+        // Repeated navigation (same pages, same posts) is served from memory;
+        // the outermost layer times every call as the caller sees it (JMX: blog:type=Latency)
+        Metrics.startLogDump(Long.getLong("blog.metrics.logSeconds", 0));
+        return new InstrumentedDataService(new CachingDataService(store));
+    }
+
+    // The bare store, without cache, metrics or demo data
+    public static IDataService openStore() {
+        // Connect up front so callers never wait on the database later
+        DatabaseService db = new DatabaseService();
+
+        // No server configured, or it is down at startup with no buffered writes waiting for it
+        // (always, with -Dblog.db.reconnect=false): keep posts in a local log file instead, so
+        // they survive a restart
+        if (db.isMemoryMode()) {
+            try {
+                IDataService local = new LogDataService(localDir());
+                db.close(); // Its like flusher and shutdown hooks must not outlive it
+                return local;
+            } catch (IOException e) {
+                System.err.println("WARNING: Local post log unavailable, using Memory Mode. " + e.getMessage());
+            }
+        }
+
+        db.enableWriteBehind(100, 50, 1000); // Batch inserts off the calling thread
+        return db;
+    }
+
+    // Same choice of store for the bulk tools, opened light (see DatabaseService.forBulk): a
+    // large import or export costs what it streams, not a warm-up over the whole data set
+    public static IDataService openBulkStore() {
+        DatabaseService db = DatabaseService.forBulk();
+        if (db.isMemoryMode()) {
+            try {
+                IDataService local = LogDataService.forBulk(localDir());
+                db.close();
+                return local;
+            } catch (IOException e) {
+                System.err.println("WARNING: Local post log unavailable, using Memory Mode. " + e.getMessage());
+            }
+        }
+        return db;
+    }
+
+    private static File localDir() {
+        return new File(System.getProperty("user.home"), ".javablogapp" + File.separator + "posts");
+    }
+
+    // Flushes and releases whatever openStore() / openBulkStore() returned
+    public static void close(IDataService store) {
+        if (store instanceof DatabaseService) ((DatabaseService) store).close();
+        else if (store instanceof LogDataService) ((LogDataService) store).close();
+    }
+}
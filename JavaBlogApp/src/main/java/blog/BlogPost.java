@@ -0,0 +1,37 @@
+package blog;
+
+public class BlogPost {
+    int id; // Assigned by the data service (0 until saved)
+    String title;
+    String content; // null for feed summaries until the body is loaded
+    User author;
+    int likes;
+    long timestamp; // Creation time, epoch millis
+
+    public BlogPost(String title, String content, User author) {
+        this.title = title;
+        this.content = content;
+        this.author = author;
+        this.likes = 0;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Feed projection: everything except the body
+    public static BlogPost summary(int id, String title, User author, int likes) {
+        BlogPost p = new BlogPost(title, null, author);
+        p.id = id;
+        p.likes = likes;
+        return p;
+    }
+
+    // Summary copy of an existing post (keeps its timestamp)
+    public static BlogPost summary(BlogPost p) {
+        BlogPost s = summary(p.id, p.title, p.author, p.likes);
+        s.timestamp = p.timestamp;
+        return s;
+    }
+
+    public boolean hasContent() {
+        return content != null;
+    }
+}
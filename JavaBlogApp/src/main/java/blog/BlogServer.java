@@ -0,0 +1,403 @@
+package blog;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Headless read API over the same IDataService stack as the Swing app (no Swing is touched).
+//
+//   GET /api/feed?before=ID&limit=N[&author=NAME]   newest-first summaries, "next" is the cursor
+//   GET /api/feed?view=top|trending&limit=N         ranked summaries (one page, "next" is null)
+//   GET /api/feed?since=MILLIS&after=CURSOR&limit=N posts created since then, oldest first
+//   GET /api/search?q=TEXT&limit=N                  ranked summaries
+//   GET /api/posts/ID                               full post
+//   GET /api/posts/ID/likes                         current like count (unflushed likes included)
+//   GET /api/posts/ID/comments?after=ID&limit=N     oldest-first comments, "next" is the cursor
+//
+// JSON is streamed straight to the socket. Every response carries an ETag computed from the
+// data (not the bytes), so a matching If-None-Match is answered with 304 before anything is encoded.
+// Start with: java -cp ... blog.SimpleBlogApp --server [port]   (or blog.BlogServer [port])
+public class BlogServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final int BACKLOG = 1024;
+
+    private final IDataService data;
+    private final HttpServer server;
+    private final Histogram feedTime = Metrics.timer("http.feed");
+    private final Histogram postTime = Metrics.timer("http.post");
+    private final Histogram searchTime = Metrics.timer("http.search");
+    private final Counter notModified = Metrics.counter("http.notModified");
+    private final Counter clientErrors = Metrics.counter("http.clientErrors");
+
+    // Request failures that map to a status code (bad parameter, unknown post)
+    private static class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Writes one response body; only called when the client's copy is stale
+    private interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    public BlogServer(IDataService data, int port) throws IOException {
+        this.data = data;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        // One (virtual, when available) thread per request: handlers block on the data layer
+        server.setExecutor(AsyncDataService.createExecutor());
+        server.createContext("/api/feed", ex -> handle(ex, this::feed));
+        server.createContext("/api/search", ex -> handle(ex, this::search));
+        server.createContext("/api/posts/", ex -> handle(ex, this::post));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("SUCCESS: Serving the feed on http://localhost:" + getPort() + "/api/feed");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+    }
+
+    private interface Route {
+        void serve(HttpExchange ex) throws IOException, HttpError;
+    }
+
+    private void handle(HttpExchange ex, Route route) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod()) && !"HEAD".equals(ex.getRequestMethod())) {
+                throw new HttpError(405, "Only GET is supported");
+            }
+            route.serve(ex);
+        } catch (HttpError e) {
+            clientErrors.increment();
+            sendError(ex, e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(ex, 500, "Internal error");
+        } finally {
+            ex.close();
+        }
+    }
+
+    // --- Routes ---
+
+    private void feed(HttpExchange ex) throws IOException, HttpError {
+        long start = System.nanoTime();
+        Map<String, String> q = query(ex);
+        if (q.containsKey("since")) {
+            since(ex, q);
+            feedTime.recordSince(start);
+            return;
+        }
+        int before = intParam(q, "before", 0);
+        int limit = limitParam(q);
+        String author = q.get("author");
+        FeedView view = viewParam(q);
+
+        List<BlogPost> page = view != FeedView.RECENT ? data.getRankedPosts(view, limit)
+                : author == null ? data.getPostsBefore(before, limit)
+                : data.getPostsByAuthor(author, before, limit);
+        Integer next = view != FeedView.RECENT || page.size() < limit ? null : page.get(page.size() - 1).id;
+
+        respond(ex, fingerprintSummaries(page), json -> {
+            json.beginObject().name("posts");
+            writeSummaries(json, page);
+            json.name("next");
+            if (next == null) json.nullValue();
+            else json.value(next);
+            json.endObject();
+        });
+        feedTime.recordSince(start);
+    }
+
+    // Time-range feed; the cursor is "created.id" of the last post (keyset on both)
+    private void since(HttpExchange ex, Map<String, String> q) throws IOException, HttpError {
+        long since = longParam(q, "since", 0);
+        int limit = limitParam(q);
+        long afterCreated = 0;
+        int afterId = 0;
+        String after = q.get("after");
+        if (after != null && !after.isEmpty()) {
+            int dot = after.indexOf('.');
+            try {
+                afterCreated = Long.parseLong(after.substring(0, Math.max(dot, 0)));
+                afterId = Integer.parseInt(after.substring(dot + 1));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "Parameter after must be a cursor from \"next\"");
+            }
+        }
+
+        List<BlogPost> page = data.getPostsSince(since, afterCreated, afterId, limit);
+        BlogPost last = page.size() < limit ? null : page.get(page.size() - 1);
+
+        respond(ex, fingerprintSummaries(page), json -> {
+            json.beginObject().name("posts");
+            writeSummaries(json, page);
+            json.name("next");
+            if (last == null) json.nullValue();
+            else json.value(last.timestamp + "." + last.id);
+            json.endObject();
+        });
+    }
+
+    private void search(HttpExchange ex) throws IOException, HttpError {
+        long start = System.nanoTime();
+        Map<String, String> q = query(ex);
+        String text = q.get("q");
+        if (text == null || text.trim().isEmpty()) throw new HttpError(400, "Missing q");
+        List<BlogPost> results = data.searchPosts(text, limitParam(q));
+
+        respond(ex, fingerprintSummaries(results), json -> {
+            json.beginObject().name("posts");
+            writeSummaries(json, results);
+            json.endObject();
+        });
+        searchTime.recordSince(start);
+    }
+
+    // /api/posts/ID, /api/posts/ID/likes, /api/posts/ID/comments
+    private void post(HttpExchange ex) throws IOException, HttpError {
+        long start = System.nanoTime();
+        String[] parts = ex.getRequestURI().getPath().substring("/api/posts/".length()).split("/");
+        if (parts.length == 0 || parts.length > 2) throw new HttpError(404, "No such resource");
+        int id = parseId(parts[0]);
+        String sub = parts.length == 2 ? parts[1] : "";
+
+        if ("likes".equals(sub)) {
+            int likes = data.getLikeCount(id);
+            respond(ex, fingerprint(id, likes), json ->
+                    json.beginObject().name("id").value(id).name("likes").value(likes).endObject());
+        } else if ("comments".equals(sub)) {
+            Map<String, String> q = query(ex);
+            int after = intParam(q, "after", 0);
+            int limit = limitParam(q);
+            List<Comment> comments = data.getComments(id, after, limit);
+            if (comments.isEmpty() && after == 0 && data.getPostById(id) == null) {
+                throw new HttpError(404, "Post " + id + " not found");
+            }
+            Integer next = comments.size() < limit ? null : comments.get(comments.size() - 1).id;
+
+            // Comments never change once written, so their ids identify the page
+            long h = 0;
+            for (Comment c : comments) h = h * 31 + c.id;
+            respond(ex, fingerprint(id, after, comments.size(), h), json -> {
+                json.beginObject().name("id").value(id).name("comments").beginArray();
+                for (Comment c : comments) {
+                    json.beginObject()
+                            .name("id").value(c.id)
+                            .name("author").value(c.author)
+                            .name("body").value(c.body)
+                            .name("timestamp").value(c.timestamp)
+                            .endObject();
+                }
+                json.endArray().name("next");
+                if (next == null) json.nullValue();
+                else json.value(next);
+                json.endObject();
+            });
+        } else {
+            BlogPost post = data.getPostById(id);
+            if (post == null) throw new HttpError(404, "Post " + id + " not found");
+            if (sub.isEmpty()) {
+                respond(ex, fingerprint(post.id, post.likes, post.timestamp,
+                        post.title.hashCode(), post.content == null ? 0 : post.content.hashCode()), json -> {
+                    json.beginObject();
+                    writeFields(json, post);
+                    json.name("content").value(post.content);
+                    json.endObject();
+                });
+            } else {
+                throw new HttpError(404, "No such resource");
+            }
+        }
+        postTime.recordSince(start);
+    }
+
+    // --- Encoding ---
+
+    private static void writeSummaries(JsonWriter json, List<BlogPost> posts) throws IOException {
+        json.beginArray();
+        for (BlogPost p : posts) {
+            json.beginObject();
+            writeFields(json, p);
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private static void writeFields(JsonWriter json, BlogPost p) throws IOException {
+        json.name("id").value(p.id)
+                .name("title").value(p.title)
+                .name("author").value(p.author.getUsername())
+                .name("likes").value(p.likes)
+                .name("timestamp").value(p.timestamp);
+    }
+
+    // --- ETags ---
+
+    // What a summary list shows: ids, titles and like counts
+    private static String fingerprintSummaries(List<BlogPost> posts) {
+        long h = 0xcbf29ce484222325L;
+        for (BlogPost p : posts) {
+            h = mix(h, p.id);
+            h = mix(h, p.likes);
+            h = mix(h, p.title == null ? 0 : p.title.hashCode());
+        }
+        return etag(mix(h, posts.size()));
+    }
+
+    private static String fingerprint(long... values) {
+        long h = 0xcbf29ce484222325L;
+        for (long v : values) h = mix(h, v);
+        return etag(h);
+    }
+
+    // FNV-1a style mixing, one long at a time
+    private static long mix(long h, long v) {
+        return (h ^ v) * 0x100000001b3L;
+    }
+
+    private static String etag(long h) {
+        return "\"" + Long.toHexString(h) + "\"";
+    }
+
+    // --- HTTP plumbing ---
+
+    private void respond(HttpExchange ex, String etag, Body body) throws IOException {
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "no-cache"); // Always revalidate; a 304 is cheap
+
+        String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            notModified.increment();
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if ("HEAD".equals(ex.getRequestMethod())) {
+            ex.sendResponseHeaders(200, -1);
+            return;
+        }
+        ex.sendResponseHeaders(200, 0); // Chunked: the length isn't known until the JSON is written
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8));
+        JsonWriter json = new JsonWriter(out);
+        body.write(json);
+        json.flush();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals(etag) || c.equals("*")) return true;
+        }
+        return false;
+    }
+
+    private void sendError(HttpExchange ex, int status, String message) throws IOException {
+        // Once a 200 has gone out the status can't change: the close in handle() cuts the
+        // body short, which the client sees as a broken response rather than a bad 200
+        if (ex.getResponseCode() != -1) return;
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if ("HEAD".equals(ex.getRequestMethod())) {
+            ex.sendResponseHeaders(status, -1); // HEAD: status only, no body
+            return;
+        }
+        ex.sendResponseHeaders(status, 0);
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8));
+        new JsonWriter(out).beginObject().name("error").value(message).endObject().flush();
+    }
+
+    private static Map<String, String> query(HttpExchange ex) throws HttpError {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        try {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                params.put(key, value);
+            }
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw new HttpError(400, "Malformed query string");
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> q, String name, int fallback) throws HttpError {
+        String v = q.get(name);
+        if (v == null || v.isEmpty()) return fallback;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Parameter " + name + " must be a number");
+        }
+    }
+
+    private static long longParam(Map<String, String> q, String name, long fallback) throws HttpError {
+        String v = q.get(name);
+        if (v == null || v.isEmpty()) return fallback;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Parameter " + name + " must be a number");
+        }
+    }
+
+    private static int limitParam(Map<String, String> q) throws HttpError {
+        return Math.max(1, Math.min(MAX_LIMIT, intParam(q, "limit", DEFAULT_LIMIT)));
+    }
+
+    private static FeedView viewParam(Map<String, String> q) throws HttpError {
+        String v = q.get("view");
+        if (v == null || v.isEmpty()) return FeedView.RECENT;
+        for (FeedView view : FeedView.values()) {
+            if (view.name().equalsIgnoreCase(v)) return view;
+        }
+        throw new HttpError(400, "Parameter view must be recent, top or trending");
+    }
+
+    private static int parseId(String s) throws HttpError {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "No such post: " + s);
+        }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("blog.http.port", DEFAULT_PORT);
+        try {
+            new BlogServer(Backend.open(), port).start();
+        } catch (IOException e) {
+            System.err.println("ERROR: Could not start the HTTP server on port " + port + ". " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
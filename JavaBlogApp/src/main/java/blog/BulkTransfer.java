@@ -0,0 +1,449 @@
+package blog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Bulk export and import of posts as NDJSON (one JSON object per line) or CSV.
+// Both directions stream: export visits rows straight off a forward-only cursor, import
+// parses one record at a time and commits fixed-size chunks, so memory stays flat at any size.
+//
+//   java -cp ... blog.BulkTransfer export FILE [--format ndjson|csv] [--after ID]
+//   java -cp ... blog.BulkTransfer import FILE [--format ndjson|csv] [--chunk N] [--offset N | --resume]
+//
+// Records carry id, title, author, likes, timestamp (epoch ms) and content. Imported posts get
+// new ids. After every committed chunk the number of records done is saved to FILE.offset;
+// --resume continues from there (a crash between commit and save repeats at most one chunk).
+public class BulkTransfer {
+    public static final int DEFAULT_CHUNK = 5000;
+    private static final long PROGRESS_INTERVAL_MS = 2000;
+    private static final String[] CSV_COLUMNS = {"id", "title", "author", "likes", "timestamp", "content"};
+
+    // --- Export ---
+
+    // Returns the number of posts written
+    public static long export(IDataService data, int afterId, Writer out, boolean csv) throws IOException {
+        Progress progress = new Progress("Exported", -1);
+        if (csv) writeCsvRow(out, CSV_COLUMNS);
+
+        long[] count = new long[1];
+        data.exportPosts(afterId, post -> {
+            if (csv) {
+                writeCsvRow(out, new String[]{
+                        Integer.toString(post.id), post.title, post.author.getUsername(),
+                        Integer.toString(post.likes), Long.toString(post.timestamp), post.content});
+            } else {
+                new JsonWriter(out).beginObject()
+                        .name("id").value(post.id)
+                        .name("title").value(post.title)
+                        .name("author").value(post.author.getUsername())
+                        .name("likes").value(post.likes)
+                        .name("timestamp").value(post.timestamp)
+                        .name("content").value(post.content)
+                        .endObject();
+                out.write('\n');
+            }
+            progress.update(++count[0], 0);
+        });
+        out.flush();
+        progress.done(count[0]);
+        return count[0];
+    }
+
+    private static void writeCsvRow(Writer out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            String f = fields[i];
+            if (f == null) continue; // Empty field = null
+            if (f.isEmpty() || f.indexOf(',') >= 0 || f.indexOf('"') >= 0 || f.indexOf('\n') >= 0 || f.indexOf('\r') >= 0) {
+                // Quoted (an empty quoted field is an empty string, not null)
+                out.write('"');
+                out.write(f.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(f);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    // --- Import ---
+
+    // Reads records from "in", skipping the first "offset", and commits them in chunks.
+    // The checkpoint (may be null) is called with the running record count after each commit.
+    public static long importPosts(IDataService data, RecordSource in, long offset, int chunkSize,
+                                   Progress progress, Checkpoint checkpoint) throws IOException {
+        long done = 0;
+        while (done < offset && in.next() != null) done++;
+        if (done < offset) return done; // File is shorter than the offset
+
+        List<BlogPost> chunk = new ArrayList<>(chunkSize);
+        Map<String, String> record;
+        while ((record = in.next()) != null) {
+            chunk.add(toPost(record, done + chunk.size() + 1));
+            if (chunk.size() == chunkSize) {
+                done = commit(data, chunk, done, checkpoint);
+                progress.update(done, in.bytesRead());
+            }
+        }
+        if (!chunk.isEmpty()) done = commit(data, chunk, done, checkpoint);
+        progress.done(done);
+        return done;
+    }
+
+    private static long commit(IDataService data, List<BlogPost> chunk, long done, Checkpoint checkpoint) throws IOException {
+        data.importPosts(chunk);
+        done += chunk.size();
+        chunk.clear();
+        if (checkpoint != null) checkpoint.save(done);
+        return done;
+    }
+
+    private static BlogPost toPost(Map<String, String> r, long recordNo) throws IOException {
+        String title = r.get("title");
+        String author = r.get("author");
+        if (title == null || author == null || author.isEmpty()) {
+            throw new IOException("Record " + recordNo + " has no title or author");
+        }
+        BlogPost p = new BlogPost(title, r.get("content"), UserRegistry.author(author));
+        try {
+            String likes = r.get("likes");
+            String ts = r.get("timestamp");
+            if (likes != null && !likes.isEmpty()) p.likes = Integer.parseInt(likes);
+            if (ts != null && !ts.isEmpty()) p.timestamp = Long.parseLong(ts);
+        } catch (NumberFormatException e) {
+            throw new IOException("Record " + recordNo + " has a malformed number: " + e.getMessage());
+        }
+        return p;
+    }
+
+    public interface Checkpoint {
+        void save(long recordsDone) throws IOException;
+    }
+
+    // One parsed record (field name -> value, null for JSON null / empty CSV field) at a time
+    public interface RecordSource {
+        Map<String, String> next() throws IOException;
+
+        long bytesRead();
+    }
+
+    // --- NDJSON reading ---
+
+    public static class NdjsonSource implements RecordSource {
+        private final BufferedReader in;
+        private final CountingInputStream counter;
+        private long line = 0;
+
+        public NdjsonSource(InputStream raw) {
+            this.counter = new CountingInputStream(raw);
+            this.in = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String s;
+            do {
+                s = in.readLine();
+                if (s == null) return null;
+                line++;
+            } while (s.trim().isEmpty());
+            return parseFlatObject(s, line);
+        }
+
+        @Override
+        public long bytesRead() {
+            return counter.count;
+        }
+    }
+
+    // Parses one flat JSON object whose values are strings, numbers, booleans or null
+    static Map<String, String> parseFlatObject(String s, long line) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skipWs(s, 0)};
+        expect(s, pos, '{', line);
+        if (peek(s, pos) == '}') return fields;
+        while (true) {
+            String key = parseString(s, pos, line);
+            expect(s, pos, ':', line);
+            pos[0] = skipWs(s, pos[0]);
+            String value;
+            if (pos[0] < s.length() && s.charAt(pos[0]) == '"') {
+                value = parseString(s, pos, line);
+            } else {
+                int start = pos[0];
+                while (pos[0] < s.length() && ",} \t".indexOf(s.charAt(pos[0])) < 0) pos[0]++;
+                String literal = s.substring(start, pos[0]);
+                if (literal.isEmpty()) throw new IOException("Line " + line + ": missing value for " + key);
+                value = "null".equals(literal) ? null : literal;
+            }
+            fields.put(key, value);
+            char c = peek(s, pos);
+            pos[0]++;
+            if (c == '}') return fields;
+            if (c != ',') throw new IOException("Line " + line + ": expected ',' or '}' at " + (pos[0] - 1));
+        }
+    }
+
+    private static String parseString(String s, int[] pos, long line) throws IOException {
+        expect(s, pos, '"', line);
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0];
+        while (i < s.length()) {
+            char c = s.charAt(i++);
+            if (c == '"') {
+                pos[0] = i;
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i >= s.length()) break;
+            char e = s.charAt(i++);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (i + 4 > s.length()) throw new IOException("Line " + line + ": bad \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IOException("Line " + line + ": bad \\u escape");
+                    }
+                    i += 4;
+                    break;
+                default: sb.append(e); // \" \\ \/
+            }
+        }
+        throw new IOException("Line " + line + ": unterminated string");
+    }
+
+    private static void expect(String s, int[] pos, char c, long line) throws IOException {
+        if (peek(s, pos) != c) throw new IOException("Line " + line + ": expected '" + c + "' at " + pos[0]);
+        pos[0]++;
+    }
+
+    // Skips whitespace, then returns the next char (0 at the end)
+    private static char peek(String s, int[] pos) {
+        pos[0] = skipWs(s, pos[0]);
+        return pos[0] < s.length() ? s.charAt(pos[0]) : 0;
+    }
+
+    private static int skipWs(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+
+    // --- CSV reading (RFC 4180: quoted fields may contain commas, quotes and newlines) ---
+
+    public static class CsvSource implements RecordSource {
+        private final Reader in;
+        private final CountingInputStream counter;
+        private final String[] header;
+        private final StringBuilder field = new StringBuilder();
+        private int pushback = -2;
+
+        public CsvSource(InputStream raw) throws IOException {
+            this.counter = new CountingInputStream(raw);
+            this.in = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16);
+            List<String> names = row();
+            if (names == null) throw new IOException("CSV file is empty");
+            this.header = names.toArray(new String[0]);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            List<String> values = row();
+            if (values == null) return null;
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.length && i < values.size(); i++) fields.put(header[i], values.get(i));
+            return fields;
+        }
+
+        @Override
+        public long bytesRead() {
+            return counter.count;
+        }
+
+        private int read() throws IOException {
+            if (pushback != -2) {
+                int c = pushback;
+                pushback = -2;
+                return c;
+            }
+            return in.read();
+        }
+
+        // Next row's fields (null = empty unquoted field), or null at end of input
+        private List<String> row() throws IOException {
+            int c = read();
+            while (c == '\r' || c == '\n') c = read(); // Skip blank lines
+            if (c == -1) return null;
+
+            List<String> fields = new ArrayList<>(CSV_COLUMNS.length);
+            while (true) {
+                field.setLength(0);
+                boolean quoted = false;
+                if (c == '"') {
+                    quoted = true;
+                    while (true) {
+                        c = read();
+                        if (c == -1) throw new IOException("Unterminated quoted CSV field");
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') break; // Closing quote; c is the char after it
+                        }
+                        field.append((char) c);
+                    }
+                } else {
+                    while (c != ',' && c != '\r' && c != '\n' && c != -1) {
+                        field.append((char) c);
+                        c = read();
+                    }
+                }
+                fields.add(!quoted && field.length() == 0 ? null : field.toString());
+
+                if (c == ',') {
+                    c = read();
+                    continue;
+                }
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n') pushback = n;
+                }
+                return fields; // End of line or input
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    // --- Progress ---
+
+    // Prints "<verb> N posts (rate/s[, percent])" at most every PROGRESS_INTERVAL_MS
+    public static class Progress {
+        private final String verb;
+        private final long totalBytes;
+        private final long start = System.currentTimeMillis();
+        private long lastPrint = start;
+
+        public Progress(String verb, long totalBytes) {
+            this.verb = verb;
+            this.totalBytes = totalBytes;
+        }
+
+        void update(long records, long bytes) {
+            long now = System.currentTimeMillis();
+            if (now - lastPrint < PROGRESS_INTERVAL_MS) return;
+            lastPrint = now;
+            String pct = totalBytes > 0 ? String.format(", %.1f%%", 100.0 * bytes / totalBytes) : "";
+            System.out.println(String.format("%s %,d posts (%,d/s%s)", verb, records, rate(records, now), pct));
+        }
+
+        void done(long records) {
+            long now = System.currentTimeMillis();
+            System.out.println(String.format("%s %,d posts in %.1f s (%,d/s)", verb, records,
+                    (now - start) / 1000.0, rate(records, now)));
+        }
+
+        private long rate(long records, long now) {
+            return records * 1000 / Math.max(1, now - start);
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !("export".equals(args[0]) || "import".equals(args[0]))) {
+            System.err.println("Usage: BulkTransfer export FILE [--format ndjson|csv] [--after ID]");
+            System.err.println("       BulkTransfer import FILE [--format ndjson|csv] [--chunk N] [--offset N | --resume]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[1]);
+        Path offsetFile = Paths.get(args[1] + ".offset");
+        boolean csv = args[1].toLowerCase().endsWith(".csv");
+        int after = 0;
+        int chunk = DEFAULT_CHUNK;
+        long offset = 0;
+        boolean resume = false;
+        for (int i = 2; i < args.length; i++) {
+            String a = args[i];
+            if ("--format".equals(a) && i + 1 < args.length) csv = "csv".equalsIgnoreCase(args[++i]);
+            else if ("--after".equals(a) && i + 1 < args.length) after = Integer.parseInt(args[++i]);
+            else if ("--chunk".equals(a) && i + 1 < args.length) chunk = Integer.parseInt(args[++i]);
+            else if ("--offset".equals(a) && i + 1 < args.length) offset = Long.parseLong(args[++i]);
+            else if ("--resume".equals(a)) resume = true;
+            else {
+                System.err.println("Unknown option: " + a);
+                System.exit(2);
+            }
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        IDataService store = Backend.openBulkStore();
+        try {
+            if ("export".equals(args[0])) {
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+                    export(store, after, out, csv);
+                }
+            } else {
+                if (resume && Files.exists(offsetFile)) {
+                    offset = Long.parseLong(new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8).trim());
+                    System.out.println("Resuming after record " + offset);
+                }
+                try (InputStream raw = Files.newInputStream(file)) {
+                    RecordSource source = csv ? new CsvSource(raw) : new NdjsonSource(raw);
+                    importPosts(store, source, offset, chunk, new Progress("Imported", Files.size(file)),
+                            done -> saveOffset(offsetFile, done));
+                }
+                Files.deleteIfExists(offsetFile); // Finished: nothing to resume
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR: " + args[0] + " failed. " + e);
+            if (Files.exists(offsetFile)) System.err.println("Run again with --resume to continue.");
+            Backend.close(store);
+            System.exit(1);
+        }
+        Backend.close(store);
+        System.exit(0);
+    }
+
+    // Written to a temp file and renamed, so a crash never leaves a half-written offset
+    static void saveOffset(Path offsetFile, long done) throws IOException {
+        Path tmp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.write(tmp, Long.toString(done).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
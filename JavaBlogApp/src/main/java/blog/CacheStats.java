@@ -0,0 +1,27 @@
+package blog;
+
+// Point-in-time snapshot of a TtlCache's counters
+public class CacheStats {
+    public final int size;
+    public final long hits;
+    public final long misses;
+    public final long evictions;
+
+    public CacheStats(int size, long hits, long misses, long evictions) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache[size=%d hits=%d misses=%d evictions=%d hitRate=%.1f%%]",
+                size, hits, misses, evictions, hitRate() * 100);
+    }
+}
@@ -0,0 +1,252 @@
+package blog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Read-through caching decorator for any IDataService.
+// Feed pages and single posts are cached (LRU + TTL). Writes patch or invalidate only the
+// entries they affect: a new post can only change the first page (of the feed and of its
+// author), and a like bumps the count inside whatever cached copies hold that post.
+// Callers always get copies, so the UI can never mutate what is cached.
+// Pages come with the store's exact counts (unflushed likes included); a load that overlapped
+// a like to one of its posts is not kept, so no like is counted twice or missed.
+public class CachingDataService implements IDataService {
+    private static final int MAX_PAGES = 256;
+    private static final int MAX_POSTS = 256;
+    private static final long PAGE_TTL_MS = 30000;
+    private static final long POST_TTL_MS = 60000;
+    private static final int LIKE_STRIPES = 256;
+
+    private final IDataService delegate;
+    private final TtlCache<String, List<BlogPost>> pages = new TtlCache<>(MAX_PAGES, PAGE_TTL_MS);
+    private final TtlCache<Integer, BlogPost> posts = new TtlCache<>(MAX_POSTS, POST_TTL_MS);
+    // Bumped before and after each like, striped by post id (see cachePage)
+    private final AtomicLongArray likeStamps = new AtomicLongArray(LIKE_STRIPES);
+
+    public CachingDataService(IDataService delegate) {
+        this.delegate = delegate;
+        Metrics.gauge("cache.posts.size", () -> posts.getStats().size);
+        Metrics.gauge("cache.pages.size", () -> pages.getStats().size);
+    }
+
+    public IDataService getDelegate() {
+        return delegate;
+    }
+
+    public CacheStats getPageStats() {
+        return pages.getStats();
+    }
+
+    public CacheStats getPostStats() {
+        return posts.getStats();
+    }
+
+    @Override
+    public boolean authenticateUser(String username, String password) {
+        return delegate.authenticateUser(username, password);
+    }
+
+    @Override
+    public void addPost(BlogPost post) {
+        addPost(post, null);
+    }
+
+    @Override
+    public void addPost(BlogPost post, WriteBehind.Callback<BlogPost> callback) {
+        delegate.addPost(post, (saved, error) -> {
+            // Invalidate once the post is actually visible to readers
+            if (error == null) invalidateHeadPages(saved.author.getUsername());
+            if (callback != null) callback.onComplete(saved, error);
+        });
+    }
+
+    @Override
+    public List<BlogPost> getAllPosts() {
+        return delegate.getAllPosts();
+    }
+
+    @Override
+    public void exportPosts(int afterId, PostVisitor visitor) throws IOException {
+        delegate.exportPosts(afterId, visitor);
+    }
+
+    // A bulk load can touch any page, so drop them all
+    @Override
+    public void importPosts(List<BlogPost> posts) throws IOException {
+        delegate.importPosts(posts);
+        pages.invalidateIf((key, page) -> true);
+    }
+
+    @Override
+    public List<BlogPost> getPostsBefore(int beforeId, int limit) {
+        String key = "feed:" + beforeId + ":" + limit;
+        List<BlogPost> cached = pages.get(key);
+        if (cached != null) return copyOf(cached);
+
+        long[] stamps = likeStamps();
+        List<BlogPost> page = delegate.getPostsBefore(beforeId, limit);
+        cachePage(key, page, stamps);
+        return page;
+    }
+
+    @Override
+    public List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit) {
+        String key = "author:" + author + ":" + beforeId + ":" + limit;
+        List<BlogPost> cached = pages.get(key);
+        if (cached != null) return copyOf(cached);
+
+        long[] stamps = likeStamps();
+        List<BlogPost> page = delegate.getPostsByAuthor(author, beforeId, limit);
+        cachePage(key, page, stamps);
+        return page;
+    }
+
+    // Time ranges are rarely asked for twice with the same bounds
+    @Override
+    public List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        return delegate.getPostsSince(sinceMillis, afterCreated, afterId, limit);
+    }
+
+    // The sync asks for "anything newer"; caching that would defeat its purpose
+    @Override
+    public List<BlogPost> getPostsAfter(int afterId, int limit) {
+        return delegate.getPostsAfter(afterId, limit);
+    }
+
+    // Rankings move with every like; the store already answers them from memory
+    @Override
+    public List<BlogPost> getRankedPosts(FeedView view, int limit) {
+        return delegate.getRankedPosts(view, limit);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts(Collection<Integer> postIds) {
+        return delegate.getLikeCounts(postIds);
+    }
+
+    @Override
+    public List<BlogPost> searchPosts(String query, int limit) {
+        return delegate.searchPosts(query, limit);
+    }
+
+    @Override
+    public BlogPost getPostById(int id) {
+        BlogPost cached = posts.get(id);
+        if (cached != null) return copy(cached);
+
+        long[] stamps = likeStamps();
+        BlogPost post = delegate.getPostById(id);
+        if (post != null) {
+            BlogPost kept = copy(post);
+            posts.put(id, kept);
+            if (likedSince(stamps, id)) posts.invalidateIf((key, value) -> value == kept);
+        }
+        return post;
+    }
+
+    // Served from a cached post when there is one; streamed bodies are never cached (they can be huge)
+    @Override
+    public boolean streamContent(int postId, int chunkChars, ContentVisitor visitor) throws IOException {
+        BlogPost cached = posts.get(postId);
+        if (cached != null && cached.hasContent()) {
+            ContentVisitor.streamString(cached.content, chunkChars, visitor);
+            return true;
+        }
+        return delegate.streamContent(postId, chunkChars, visitor);
+    }
+
+    @Override
+    public void likePost(int postId) {
+        int stripe = stripe(postId);
+        likeStamps.incrementAndGet(stripe);
+        try {
+            delegate.likePost(postId);
+
+            // Patch the cached copies instead of dropping them
+            posts.forEachValue(p -> {
+                if (p.id == postId) bump(p);
+            });
+            pages.forEachValue(page -> {
+                for (BlogPost p : page) {
+                    if (p.id == postId) bump(p);
+                }
+            });
+        } finally {
+            likeStamps.incrementAndGet(stripe);
+        }
+    }
+
+    @Override
+    public int getLikeCount(int postId) {
+        return delegate.getLikeCount(postId);
+    }
+
+    // Comment pages are not cached: a post being discussed changes faster than the TTL
+    @Override
+    public List<Comment> getComments(int postId, int afterId, int limit) {
+        return delegate.getComments(postId, afterId, limit);
+    }
+
+    @Override
+    public void addComment(Comment comment, WriteBehind.Callback<Comment> callback) {
+        delegate.addComment(comment, callback);
+    }
+
+    // A new post only lands on first pages (beforeId = 0): the main feed and its author's feed
+    private void invalidateHeadPages(String author) {
+        String authorHead = "author:" + author + ":0:";
+        pages.invalidateIf((key, page) -> key.startsWith("feed:0:") || key.startsWith(authorHead));
+    }
+
+    // Caches a page read from the delegate, unless a like to one of its posts ran meanwhile:
+    // the page may or may not count that like, and the like may or may not have patched it.
+    // A like that ended before the stamps were taken is in the page; one that starts after
+    // the check finds the page cached and patches it.
+    private void cachePage(String key, List<BlogPost> page, long[] stamps) {
+        List<BlogPost> kept = copyOf(page);
+        pages.put(key, kept);
+        for (BlogPost p : page) {
+            if (likedSince(stamps, p.id)) {
+                pages.invalidateIf((k, value) -> value == kept);
+                return;
+            }
+        }
+    }
+
+    private long[] likeStamps() {
+        long[] stamps = new long[LIKE_STRIPES];
+        for (int i = 0; i < LIKE_STRIPES; i++) stamps[i] = likeStamps.get(i);
+        return stamps;
+    }
+
+    private boolean likedSince(long[] stamps, int postId) {
+        int stripe = stripe(postId);
+        return likeStamps.get(stripe) != stamps[stripe];
+    }
+
+    private static int stripe(int postId) {
+        return postId & (LIKE_STRIPES - 1);
+    }
+
+    private static void bump(BlogPost p) {
+        synchronized (p) {
+            p.likes++;
+        }
+    }
+
+    private static BlogPost copy(BlogPost p) {
+        BlogPost c = BlogPost.summary(p);
+        c.content = p.content;
+        return c;
+    }
+
+    private static List<BlogPost> copyOf(List<BlogPost> list) {
+        List<BlogPost> out = new ArrayList<>(list.size());
+        for (BlogPost p : list) out.add(copy(p));
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package blog;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fails database calls fast while the server is known to be down.
+//   CLOSED     normal operation; consecutive connection failures are counted
+//   OPEN       every call is rejected at once (CircuitOpenException), nothing touches the network
+//   HALF_OPEN  the supervisor is probing / replaying; only its own thread gets through
+// Only outage-type errors (connection loss, timeouts) count; a bad statement never trips it.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Thrown instead of running the call while the circuit is not closed
+    public static class CircuitOpenException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException() {
+            super("Database unavailable (circuit open)", "08000");
+        }
+    }
+
+    private final int failureThreshold;
+    private volatile State state = State.CLOSED;
+    private volatile Thread prober; // The one thread allowed through while HALF_OPEN
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final Counter rejected = Metrics.counter("db.circuit.rejected");
+    private final Counter trips = Metrics.counter("db.circuit.trips");
+
+    public CircuitBreaker(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        Metrics.gauge("db.offline", () -> state == State.CLOSED ? 0 : 1);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    // Throws if this call must not go to the database right now
+    public void check() throws CircuitOpenException {
+        State s = state;
+        if (s == State.CLOSED || s == State.HALF_OPEN && prober == Thread.currentThread()) return;
+        rejected.increment();
+        throw new CircuitOpenException();
+    }
+
+    // Called after every successful call, so it only writes when there is something to reset
+    public void recordSuccess() {
+        if (consecutiveFailures.get() != 0) consecutiveFailures.set(0);
+    }
+
+    // Counts the failure if it looks like an outage; trips once the threshold is reached
+    public void recordFailure(SQLException e) {
+        if (!isOutage(e) || e instanceof CircuitOpenException) return;
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state == State.CLOSED) trip(e.getMessage());
+    }
+
+    // Opens the circuit (e.g. a failed health check); no-op if already open
+    public synchronized void trip(String reason) {
+        if (state == State.OPEN) return;
+        if (state == State.CLOSED) {
+            trips.increment();
+            System.err.println("WARNING: Database unavailable, failing fast and buffering writes. " + reason);
+        }
+        state = State.OPEN;
+        prober = null;
+        notifyAll();
+    }
+
+    // Lets the calling (supervisor) thread through alone
+    public synchronized void halfOpen() {
+        prober = Thread.currentThread();
+        state = State.HALF_OPEN;
+    }
+
+    public synchronized void close() {
+        if (state != State.CLOSED) System.out.println("SUCCESS: Database connection restored.");
+        state = State.CLOSED;
+        prober = null;
+        consecutiveFailures.set(0);
+        notifyAll();
+    }
+
+    // Waits until the circuit leaves CLOSED, or the timeout passes
+    public synchronized void awaitNotClosed(long timeoutMillis) throws InterruptedException {
+        if (state == State.CLOSED) wait(timeoutMillis);
+    }
+
+    static boolean isOutage(SQLException e) {
+        return e instanceof SQLTimeoutException || ConnectionPool.isConnectionError(e);
+    }
+}
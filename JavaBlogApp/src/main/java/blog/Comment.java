@@ -0,0 +1,24 @@
+package blog;
+
+// A comment on a post. Comments are stored and paged on their own (IDataService.getComments),
+// so loading a post never loads its comments.
+public class Comment {
+    int id; // Assigned by the data service (0 until saved); grows in posting order
+    int postId;
+    String author;
+    String body;
+    long timestamp; // Epoch millis
+
+    public Comment(int postId, String author, String body) {
+        this.postId = postId;
+        this.author = author;
+        this.body = body;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // How the read screen lists it
+    @Override
+    public String toString() {
+        return author + ": " + body;
+    }
+}
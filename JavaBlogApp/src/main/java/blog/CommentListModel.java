@@ -0,0 +1,93 @@
+package blog;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Lazily loaded comments of one post for the read screen. Pages are fetched as the JList
+// scrolls: painting a row close to the end of what is loaded asks for the next page
+// (keyset cursor = the last loaded comment id). Each page is added with a single interval
+// event, so a post with thousands of comments costs one page of work to open. EDT only.
+public class CommentListModel extends AbstractListModel<Comment> {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PREFETCH_ROWS = 10; // Ask for the next page this close to the end
+
+    private final AsyncDataService data;
+    private final int pageSize;
+    private final Consumer<Throwable> onError;
+    private final List<Comment> rows = new ArrayList<>();
+    private int postId = 0;
+    private boolean exhausted = true;
+    private boolean loading = false;
+    private int generation = 0; // Bumped on open() so late pages of the previous post are dropped
+
+    public CommentListModel(AsyncDataService data, int pageSize, Consumer<Throwable> onError) {
+        this.data = data;
+        this.pageSize = pageSize;
+        this.onError = onError;
+    }
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    // Only called for rows being laid out or painted, i.e. the ones the user scrolled to
+    @Override
+    public Comment getElementAt(int index) {
+        if (index >= rows.size() - PREFETCH_ROWS) loadNextPage();
+        return rows.get(index);
+    }
+
+    // Switches to another post and fetches its first page
+    public void open(int postId) {
+        generation++;
+        this.postId = postId;
+        exhausted = false;
+        loading = false;
+        if (!rows.isEmpty()) {
+            int end = rows.size() - 1;
+            rows.clear();
+            fireIntervalRemoved(this, 0, end);
+        }
+        loadNextPage();
+    }
+
+    public void loadNextPage() {
+        if (exhausted || loading) return;
+        loading = true;
+        int gen = generation;
+        AsyncDataService.onEdt(data.getComments(postId, lastId(), pageSize), page -> {
+            if (gen != generation) return; // Another post was opened meanwhile
+            loading = false;
+            append(page);
+            if (page.size() < pageSize) exhausted = true;
+        }, error -> {
+            if (gen != generation) return;
+            loading = false;
+            exhausted = true; // No retry loop from repaints; reopening the post tries again
+            onError.accept(error);
+        });
+    }
+
+    // A comment the user just posted (already stored). If older pages are still unloaded it is
+    // not added here; it arrives with the last page like any other comment.
+    public void addSaved(Comment comment) {
+        if (comment.postId == postId && exhausted && !loading) append(Collections.singletonList(comment));
+    }
+
+    private void append(List<Comment> page) {
+        int start = rows.size();
+        for (Comment c : page) {
+            if (c.id > lastId()) rows.add(c); // Ids only grow, so anything else is already shown
+        }
+        if (rows.size() > start) fireIntervalAdded(this, start, rows.size() - 1);
+    }
+
+    private int lastId() {
+        return rows.isEmpty() ? 0 : rows.get(rows.size() - 1).id;
+    }
+}
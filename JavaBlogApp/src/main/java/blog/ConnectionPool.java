@@ -0,0 +1,215 @@
+package blog;
+
+import java.sql.*;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Small bounded JDBC pool: borrow timeouts, validation, idle eviction and per-connection statement caches.
+// Works with any JDBC URL, so it can be pointed at an embedded database (e.g. H2 in MySQL mode) for testing.
+public class ConnectionPool implements AutoCloseable {
+
+    // Unit of work that runs on a borrowed connection
+    public interface SqlWork<T> {
+        T run(PooledConnection conn) throws SQLException;
+    }
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    // LIFO: hot connections get reused, cold ones sink to the tail and get evicted
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    // Stats
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    final LongAdder statementHits = new LongAdder();
+    final LongAdder statementMisses = new LongAdder();
+    private final Histogram borrowTime = Metrics.timer("jdbc.borrow");
+    private final Histogram queryTime = Metrics.timer("jdbc.query");
+    private final Counter queryErrors = Metrics.counter("jdbc.errors");
+
+    public ConnectionPool(String url, String user, String pass, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = 1000;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jdbc-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(() -> evictIdle(idleTimeoutMillis), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        borrowTime.record(waited);
+        borrows.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                discard(pc);
+            }
+            if (pc == null) pc = open();
+            active.incrementAndGet();
+            return pc;
+        } catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Borrow, run, return. Connection-level failures mark the connection so it is not handed out again.
+    public <T> T withConnection(SqlWork<T> work) throws SQLException {
+        PooledConnection pc = borrow();
+        long start = System.nanoTime();
+        try {
+            return work.run(pc);
+        } catch (SQLException e) {
+            queryErrors.increment();
+            if (isConnectionError(e)) pc.markBroken();
+            throw e;
+        } finally {
+            queryTime.recordSince(start);
+            pc.close();
+        }
+    }
+
+    void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (closed || pc.isBroken() || pc.raw.isClosed()) {
+                discard(pc);
+            } else {
+                // Never hand out a connection with a half-finished transaction
+                if (!pc.raw.getAutoCommit()) {
+                    pc.raw.rollback();
+                    pc.raw.setAutoCommit(true);
+                }
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException e) {
+            discard(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, user, pass);
+        opened.incrementAndGet();
+        return new PooledConnection(this, raw, statementCacheSize);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        // Only ping connections that have been sitting around; recently used ones are trusted
+        if (System.currentTimeMillis() - pc.lastUsed < validationIntervalMillis) return true;
+        try {
+            return pc.raw.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        opened.decrementAndGet();
+        pc.closeQuietly();
+    }
+
+    // Closes connections idle for longer than maxIdleMillis (0 = every idle connection)
+    void evictIdle(long maxIdleMillis) {
+        long cutoff = System.currentTimeMillis() - maxIdleMillis;
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            // removeLastOccurrence fails if a borrower grabbed it in the meantime
+            if (pc.lastUsed <= cutoff && idle.removeLastOccurrence(pc)) {
+                discard(pc);
+            }
+        }
+    }
+
+    // Health check on a separate, short-lived connection, so it works (and tells the truth)
+    // even when every pooled connection is busy or stuck
+    public boolean ping() {
+        if (closed) return false;
+        try (Connection c = DriverManager.getConnection(url, user, pass)) {
+            return c.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+
+    public PoolStats getStats() {
+        long count = borrows.sum();
+        return new PoolStats(
+                maxSize,
+                active.get(),
+                idle.size(),
+                permits.getQueueLength(),
+                count,
+                timeouts.sum(),
+                count == 0 ? 0 : totalWaitNanos.sum() / count / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementHits.sum(),
+                statementMisses.sum());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package blog;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Watches the database connection and drives the circuit breaker:
+// - while the circuit is closed, pings the database every few seconds and trips it on failure,
+//   so an outage is usually noticed before a user action runs into it
+// - while it is open, probes with exponential back-off (plus jitter); once a probe succeeds the
+//   recovery step (migrations, replay of buffered writes) runs half-open, and only if that
+//   completes is the circuit closed again
+public class ConnectionSupervisor extends Thread {
+
+    // Runs on this thread with the circuit half-open. The circuit is closed once it returns normally;
+    // it may also close it itself, e.g. atomically with its last step.
+    public interface Recovery {
+        void recover() throws Exception;
+    }
+
+    private static final long HEALTH_CHECK_MS = 5000;
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private final ConnectionPool pool;
+    private final CircuitBreaker breaker;
+    private final Recovery recovery;
+    private volatile boolean running = true;
+    private long backoff = MIN_BACKOFF_MS;
+    private final Counter reconnects = Metrics.counter("db.reconnects");
+
+    public ConnectionSupervisor(ConnectionPool pool, CircuitBreaker breaker, Recovery recovery) {
+        super("db-supervisor");
+        setDaemon(true);
+        this.pool = pool;
+        this.breaker = breaker;
+        this.recovery = recovery;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                if (breaker.isClosed()) {
+                    breaker.awaitNotClosed(HEALTH_CHECK_MS);
+                    if (breaker.isClosed() && !pool.ping()) breaker.trip("Health check failed");
+                    continue;
+                }
+
+                pool.evictIdle(0); // Whatever is idle was opened before the outage
+                long jitter = ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+                Thread.sleep(backoff + jitter);
+                if (!running) break;
+
+                if (!pool.ping()) {
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                    continue;
+                }
+                breaker.halfOpen();
+                try {
+                    recovery.recover();
+                    if (!breaker.isClosed()) breaker.close();
+                    reconnects.increment();
+                    backoff = MIN_BACKOFF_MS;
+                } catch (Exception e) {
+                    System.err.println("WARNING: Database reachable but recovery failed, retrying. " + e.getMessage());
+                    breaker.trip(e.getMessage());
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void stopSupervisor() {
+        running = false;
+        interrupt();
+    }
+}
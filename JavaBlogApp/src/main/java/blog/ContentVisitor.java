@@ -0,0 +1,20 @@
+package blog;
+
+import java.io.IOException;
+
+// Receives a post body in chunks from a streaming read (large-document mode).
+// buf is reused between calls; return false to stop early.
+public interface ContentVisitor {
+    boolean chunk(char[] buf, int len) throws IOException;
+
+    // Feeds an already loaded body (cache hit, Memory Mode) through the same chunked path
+    static void streamString(String content, int chunkChars, ContentVisitor visitor) throws IOException {
+        if (content == null) return;
+        char[] buf = new char[Math.min(chunkChars, Math.max(content.length(), 1))];
+        for (int from = 0; from < content.length(); from += buf.length) {
+            int len = Math.min(buf.length, content.length() - from);
+            content.getChars(from, from + len, buf, 0);
+            if (!visitor.chunk(buf, len)) return;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package blog;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// A Metrics counter (incremented by the app) or gauge (read from a supplier on demand)
+public class Counter implements CounterMBean {
+    private final LongAdder adder;
+    private final LongSupplier gauge;
+
+    Counter() {
+        this.adder = new LongAdder();
+        this.gauge = null;
+    }
+
+    Counter(LongSupplier gauge) {
+        this.adder = null;
+        this.gauge = gauge;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long n) {
+        if (adder != null) adder.add(n);
+    }
+
+    @Override
+    public long getValue() {
+        return adder != null ? adder.sum() : gauge.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(getValue());
+    }
+}
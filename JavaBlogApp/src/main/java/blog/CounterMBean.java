@@ -0,0 +1,6 @@
+package blog;
+
+// JMX view of a Metrics counter or gauge
+public interface CounterMBean {
+    long getValue();
+}
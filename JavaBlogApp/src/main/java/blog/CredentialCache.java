@@ -0,0 +1,132 @@
+package blog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Logins verified against the database, so they can still be checked while it is down.
+// Only a PBKDF2 hash of each password is kept, with a random salt per user. With a file the
+// hashes survive a restart (the file is rewritten as a whole, atomically, on every change);
+// without one they last for this run only.
+public class CredentialCache {
+    private static final int ITERATIONS = 10000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final class Entry {
+        final byte[] salt;
+        final byte[] hash;
+
+        Entry(byte[] salt, byte[] hash) {
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+
+    private final Path file; // null = nothing on disk
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public CredentialCache() {
+        this.file = null;
+    }
+
+    public CredentialCache(Path file) {
+        this.file = file;
+        load();
+    }
+
+    // After the database accepted this username / password
+    public void remember(String username, String password) {
+        if (matches(username, password)) return; // Nothing new, no rewrite
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        entries.put(username, new Entry(salt, hash(salt, password)));
+        save();
+    }
+
+    // After the database rejected it (e.g. the password was changed)
+    public void forget(String username) {
+        if (entries.remove(username) != null) save();
+    }
+
+    public boolean matches(String username, String password) {
+        Entry known = entries.get(username);
+        return known != null && MessageDigest.isEqual(known.hash, hash(known.salt, password));
+    }
+
+    private static byte[] hash(byte[] salt, String password) {
+        char[] chars = password == null ? new char[0] : password.toCharArray();
+        try {
+            PBEKeySpec spec = new PBEKeySpec(chars, salt, ITERATIONS, HASH_BITS);
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(e); // Every Java 8+ JRE ships PBKDF2WithHmacSHA256
+        }
+    }
+
+    // One line per user: username=base64(salt):base64(hash)
+    private void load() {
+        if (!Files.exists(file)) return;
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            System.err.println("WARNING: Saved logins unreadable, offline login needs a new online login. " + e.getMessage());
+            return;
+        }
+        Base64.Decoder b64 = Base64.getDecoder();
+        for (String username : props.stringPropertyNames()) {
+            String[] parts = props.getProperty(username).split(":");
+            if (parts.length != 2) continue;
+            try {
+                entries.put(username, new Entry(b64.decode(parts[0]), b64.decode(parts[1])));
+            } catch (IllegalArgumentException e) {
+                // Damaged line: that user logs in online once more
+            }
+        }
+    }
+
+    private synchronized void save() {
+        if (file == null) return;
+        Properties props = new Properties();
+        Base64.Encoder b64 = Base64.getEncoder();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            props.setProperty(e.getKey(), b64.encodeToString(e.getValue().salt) + ":" + b64.encodeToString(e.getValue().hash));
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "Password hashes for offline login");
+            }
+            try {
+                Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system (Windows): the user's profile directory protects it
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not save logins for offline use. " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,1281 @@
+package blog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DatabaseService implements IDataService {
+    // --- MYSQL CONFIGURATION ---
+    private static final String URL = "jdbc:mysql://localhost:3306/blog_db?rewriteBatchedStatements=true&connectTimeout=3000&socketTimeout=30000";
+    private static final String USER = "root";
+    private static final String PASS = "password"; // <--- MAKE SURE THIS IS YOUR MYSQL ROOT PASSWORD
+
+    // --- POOL CONFIGURATION ---
+    private static final int POOL_SIZE = 8;
+    private static final long BORROW_TIMEOUT_MS = 5000;
+    private static final long IDLE_TIMEOUT_MS = 60000;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private static final long LIKE_FLUSH_INTERVAL_MS = 2000;
+    private static final long BODY_CACHE_CHARS = 512 * 1024; // ~1 MB of recently opened bodies
+    private static final int BODY_CACHE_MAX_ENTRY = 32 * 1024; // Larger bodies are always read from the database
+    private static final int IN_LIST_SIZE = 50; // Fixed IN (...) width so one cached statement serves every call
+
+    private static final String SUMMARY_COLUMNS = "id, title, author, likes, created_at";
+
+    private static final int SEARCH_WARMUP_BATCH = 1000;
+    private static final int RANKING_WARMUP_BATCH = 5000;
+    private static final int RANKED_VIEW_SIZE = 200;
+    private static final long TRENDING_HALF_LIFE_MS = 60 * 60 * 1000;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String INSERT_POST_SQL = "INSERT INTO posts (title, content, author, likes, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_COMMENT_SQL = "INSERT INTO comments (post_id, author, body, created_at) VALUES (?, ?, ?, ?)";
+
+    // Comments always go through a small write-behind queue (one multi-row INSERT per batch)
+    private static final int COMMENT_BATCH_SIZE = 100;
+    private static final long COMMENT_WINDOW_MS = 20;
+    private static final int COMMENT_QUEUE_CAPACITY = 1000;
+
+    // --- OUTAGE HANDLING ---
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 3; // Consecutive connection failures before failing fast
+    private static final int REPLAY_BATCH_SIZE = 500;
+
+    private ConnectionPool pool;
+    private boolean memoryMode = false; // No usable database at all (no driver, bad credentials, or down with reconnect off)
+    private final CircuitBreaker breaker = new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD);
+    private ConnectionSupervisor supervisor;
+    private OfflineBuffer outbox; // Writes accepted while the database is down
+    private final CredentialCache verifiedLogins; // Checked while the database is down
+    private volatile boolean schemaReady = false;
+    private WriteBehind<BlogPost> writeBehind; // null = synchronous inserts
+    private WriteBehind<Comment> commentWriter; // null in Memory Mode
+    private final LikeCounter likeCounter;
+    private final List<Thread> shutdownHooks = new ArrayList<>(); // Deregistered by close()
+    private boolean closed = false;
+    private final boolean bulk; // Opened for a bulk tool: no warm-up, background writers or indexes
+    private final MemoryStore memory = new MemoryStore(); // Memory Mode storage
+    private final PostBodyCache bodyCache = new PostBodyCache(BODY_CACHE_CHARS, BODY_CACHE_MAX_ENTRY);
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final PostRanker ranker = new PostRanker(RANKED_VIEW_SIZE, TRENDING_HALF_LIFE_MS);
+    private volatile boolean useFullText = false; // MySQL FULLTEXT index found on posts(title, content)
+    private final Histogram insertBatchSizes = Metrics.distribution("jdbc.batchSize");
+    private final Histogram likeBatchSizes = Metrics.distribution("jdbc.likeBatchSize");
+    private final Histogram commentBatchSizes = Metrics.distribution("jdbc.commentBatchSize");
+
+    // Reads one row of an id-keyed query
+    private interface RowHandler {
+        void row(ResultSet rs) throws SQLException;
+    }
+
+    // One write as it is recorded in the outbox
+    private interface BufferedWrite {
+        void appendTo(OfflineBuffer outbox) throws IOException, SQLException;
+    }
+
+    public DatabaseService() {
+        this(URL, USER, PASS);
+    }
+
+    // Any JDBC URL works here, e.g. an embedded "jdbc:h2:mem:blog;MODE=MySQL" for tests.
+    // Writes made during an outage are buffered in a file per database URL.
+    public DatabaseService(String url, String user, String pass) {
+        this(url, user, pass, defaultOutbox(url));
+    }
+
+    public DatabaseService(String url, String user, String pass, Path outboxFile) {
+        this(url, user, pass, outboxFile, false);
+    }
+
+    private DatabaseService(String url, String user, String pass, Path outboxFile, boolean bulk) {
+        this.bulk = bulk;
+        verifiedLogins = outboxFile == null ? new CredentialCache() : new CredentialCache(loginsFile(outboxFile));
+        boolean reachable = false;
+        if (url == null) {
+            memoryMode = true; // inMemory()
+        } else {
+            try {
+                if (url.startsWith("jdbc:mysql:")) {
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                }
+                pool = new ConnectionPool(url, user, pass, POOL_SIZE, BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+                createTablesIfNotExist();
+                schemaReady = true;
+                reachable = true;
+                System.out.println("SUCCESS: Connected to database " + url);
+            } catch (ClassNotFoundException e) {
+                System.err.println("ERROR: MySQL JDBC Driver not found.");
+                memoryMode = true;
+            } catch (SQLException e) {
+                System.err.println("WARNING: Connection Failed. " + e.getMessage());
+                // A server that is down now may be up in a minute, but an offline store can only
+                // buffer: stay offline and keep trying only while writes from an earlier outage
+                // wait for it, otherwise start in Memory Mode (Backend then uses the local store).
+                // Anything else (bad credentials, unknown database) will not fix itself.
+                // A bulk tool never waits: it runs against the local store instead.
+                boolean retry = !bulk && CircuitBreaker.isOutage(e)
+                        && Boolean.parseBoolean(System.getProperty("blog.db.reconnect", "true"));
+                memoryMode = !retry || !hasBufferedWrites(outboxFile);
+            }
+        }
+        if (memoryMode && pool != null) {
+            pool.close();
+            pool = null;
+        }
+
+        likeCounter = new LikeCounter(this::applyLikeDeltas, bulk ? 0 : LIKE_FLUSH_INTERVAL_MS);
+        onShutdown(likeCounter::shutdown, "like-flush");
+
+        if (!memoryMode && !bulk) {
+            try {
+                outbox = new OfflineBuffer(outboxFile);
+                Metrics.gauge("db.outbox.pending", outbox::pending);
+            } catch (IOException e) {
+                System.err.println("WARNING: Offline buffer unavailable, writes will fail during an outage. " + e.getMessage());
+            }
+
+            commentWriter = new WriteBehind<>("comment", this::writeComments,
+                    COMMENT_BATCH_SIZE, COMMENT_WINDOW_MS, COMMENT_QUEUE_CAPACITY);
+            commentWriter.start();
+            onShutdown(() -> commentWriter.shutdown(10000), "comment-flush");
+
+            if (reachable) {
+                // Writes buffered by an earlier run go in before anything new
+                if (outbox != null && outbox.pending() > 0) {
+                    try {
+                        replayOutbox();
+                    } catch (Exception e) {
+                        breaker.trip("Replay of buffered writes failed. " + e.getMessage());
+                    }
+                }
+                startWarmup();
+            } else {
+                breaker.trip("Not reachable at startup, will keep retrying.");
+            }
+            supervisor = new ConnectionSupervisor(pool, breaker, this::recover);
+            supervisor.start();
+        }
+    }
+
+    // Memory Mode from the start, without trying any database (load tests, demos)
+    public static DatabaseService inMemory() {
+        return new DatabaseService(null, null, null, null);
+    }
+
+    // For the bulk tools: connects and migrates, nothing else. No warm-up (rankings, search
+    // index), no outbox or reconnect supervisor, no write-behind or like-flush thread, and
+    // imports skip the in-memory indexes, so the heap does not grow with the data set.
+    // A running server sees the imported rows in its next startup warm-up.
+    public static DatabaseService forBulk(String url, String user, String pass) {
+        return new DatabaseService(url, user, pass, null, true);
+    }
+
+    public static DatabaseService forBulk() {
+        return forBulk(URL, USER, PASS);
+    }
+
+    private static boolean hasBufferedWrites(Path outboxFile) {
+        try (OfflineBuffer buffer = new OfflineBuffer(outboxFile)) {
+            return buffer.pending() > 0;
+        } catch (IOException e) {
+            System.err.println("WARNING: Offline buffer unreadable. " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Logins verified online, kept next to the outbox so offline login survives a restart
+    private static Path loginsFile(Path outboxFile) {
+        String name = outboxFile.getFileName().toString();
+        return outboxFile.resolveSibling(name.replaceFirst("\\.buf$", "") + ".logins");
+    }
+
+    private static Path defaultOutbox(String url) {
+        return Paths.get(System.getProperty("user.home"), ".javablogapp", "outbox",
+                "db-" + Integer.toHexString(url.hashCode()) + ".buf");
+    }
+
+    // Runs on the supervisor thread with the circuit half-open, once the server answers again:
+    // finish the startup that never happened, then replay the outbox. The circuit is closed while
+    // holding the outbox lock, so no write can slip into the buffer after the last replay.
+    private void recover() throws Exception {
+        if (!schemaReady) {
+            createTablesIfNotExist();
+            schemaReady = true;
+            startWarmup();
+        }
+        if (outbox == null) return;
+        replayOutbox();
+        synchronized (outbox) {
+            replayOutbox(); // Whatever arrived during the first pass
+            breaker.close();
+        }
+    }
+
+    private void replayOutbox() throws SQLException, IOException {
+        int total = 0, n;
+        while ((n = outbox.replay(new OfflineBuffer.ReplaySink() {
+            @Override
+            public void posts(List<BlogPost> posts) throws SQLException {
+                insertBatch(posts);
+            }
+
+            @Override
+            public void comments(List<Comment> comments) throws SQLException {
+                insertComments(comments);
+            }
+
+            @Override
+            public void likes(Map<Integer, Long> deltas) throws SQLException {
+                updateLikes(deltas, LikeCounter.DIRECT);
+            }
+        }, REPLAY_BATCH_SIZE)) > 0) {
+            total += n;
+        }
+        if (total > 0) System.out.println("Replayed " + total + " buffered write(s) to the database.");
+    }
+
+    // Every database call goes through the circuit breaker: rejected at once while it is open,
+    // and outage-type failures count towards opening it
+    private <T> T withConnection(ConnectionPool.SqlWork<T> work) throws SQLException {
+        breaker.check();
+        try {
+            T result = pool.withConnection(work);
+            breaker.recordSuccess();
+            return result;
+        } catch (SQLException e) {
+            breaker.recordFailure(e);
+            throw e;
+        }
+    }
+
+    // While the circuit is not closed the write goes to the outbox instead (true), without
+    // touching the network. Checked under the outbox lock; see recover().
+    private boolean bufferIfOffline(BufferedWrite write) throws SQLException {
+        if (outbox == null || breaker.isClosed()) return false;
+        synchronized (outbox) {
+            if (breaker.isClosed()) return false;
+            append(write);
+            return true;
+        }
+    }
+
+    // A direct write failed: buffer it if the database went away, rethrow anything else.
+    // (If the failure hid a commit, e.g. the connection died while acknowledging it, the replay
+    // writes it a second time: buffered writes are at-least-once.)
+    private void bufferAfterFailure(BufferedWrite write, SQLException e) throws SQLException {
+        if (outbox == null || !CircuitBreaker.isOutage(e)) throw e;
+        append(write);
+    }
+
+    private void append(BufferedWrite write) throws SQLException {
+        try {
+            write.appendTo(outbox);
+        } catch (IOException e) {
+            throw new SQLException("Database unavailable and the offline buffer failed. " + e.getMessage(), e);
+        }
+    }
+
+    // Stack traces for real errors only; while the circuit is open every call fails the same way
+    private static void report(SQLException e) {
+        if (e instanceof CircuitBreaker.CircuitOpenException) return;
+        e.printStackTrace();
+    }
+
+    // Background warm-up of the in-memory structures, over the rows that exist right now (anything
+    // newer is added by addPost): first the Top/Trending rankings (three small columns per row),
+    // then the search index, unless MySQL FULLTEXT can do the searching.
+    private void startWarmup() {
+        int highId;
+        try {
+            highId = pool.withConnection(conn -> {
+                try (ResultSet rs = conn.prepare("SELECT MAX(id) FROM posts").executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+        ranker.beginRebuild(highId); // From here on, live events for rows not scanned yet are left to the scan
+
+        Thread warmup = new Thread(() -> {
+            try {
+                rebuildRankings(highId);
+                if (probeFullText()) {
+                    useFullText = true;
+                    return;
+                }
+                // Keyset batches so no connection is held for the whole scan
+                int cursor = 0;
+                while (cursor < highId) {
+                    List<BlogPost> batch = new ArrayList<>();
+                    int from = cursor;
+                    pool.withConnection(conn -> {
+                        PreparedStatement pstmt = conn.prepare(
+                                "SELECT * FROM posts WHERE id > ? AND id <= ? ORDER BY id LIMIT ?");
+                        pstmt.setInt(1, from);
+                        pstmt.setInt(2, highId);
+                        pstmt.setInt(3, SEARCH_WARMUP_BATCH);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) batch.add(mapPost(rs));
+                        }
+                        return null;
+                    });
+                    if (batch.isEmpty()) break;
+                    for (BlogPost p : batch) searchIndex.add(p);
+                    cursor = batch.get(batch.size() - 1).id;
+                }
+                System.out.println("Search index ready (" + searchIndex.size() + " posts).");
+            } catch (SQLException e) {
+                System.err.println("WARNING: Warm-up of rankings / search index failed. " + e.getMessage());
+            }
+        }, "warmup");
+        warmup.setDaemon(true);
+        warmup.setPriority(Thread.MIN_PRIORITY);
+        warmup.start();
+    }
+
+    // Keyset batches of (id, likes, created_at); only the "likes" of a row is ever needed, so no sort
+    private void rebuildRankings(int highId) throws SQLException {
+        int cursor = 0;
+        try {
+            while (cursor < highId) {
+                int from = cursor;
+                // No flush can publish between reading a row's likes and seeding it (see LikeCounter.read)
+                int last = likeCounter.read(() -> pool.withConnection(conn -> {
+                    PreparedStatement pstmt = conn.prepare(
+                            "SELECT id, likes, created_at FROM posts WHERE id > ? AND id <= ? ORDER BY id LIMIT ?");
+                    pstmt.setInt(1, from);
+                    pstmt.setInt(2, highId);
+                    pstmt.setInt(3, RANKING_WARMUP_BATCH);
+                    int id = from;
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            int row = rs.getInt(1);
+                            Timestamp created = rs.getTimestamp(3);
+                            ranker.seed(row, rs.getInt(2), created == null ? 0 : created.getTime(),
+                                    () -> likeCounter.unflushed(row));
+                            id = row;
+                        }
+                    }
+                    return id;
+                }));
+                if (last == cursor) break;
+                cursor = last;
+            }
+        } finally {
+            ranker.endRebuild();
+        }
+    }
+
+    private boolean probeFullText() {
+        try {
+            return pool.withConnection(conn -> {
+                PreparedStatement pstmt = conn.prepare(
+                        "SELECT id FROM posts WHERE MATCH(title, content) AGAINST (?) LIMIT 1");
+                pstmt.setString(1, "probe");
+                pstmt.executeQuery().close();
+                return true;
+            });
+        } catch (SQLException e) {
+            return false; // No FULLTEXT index (or not MySQL)
+        }
+    }
+
+    // Runs any pending schema migrations (a single version check once the schema is current)
+    private void createTablesIfNotExist() throws SQLException {
+        new SchemaMigrator().migrate(pool);
+    }
+
+    // Database reachable right now (circuit closed)
+    public boolean isConnected() {
+        return !memoryMode && breaker.isClosed();
+    }
+
+    // No database behind this service at all; it will not reconnect
+    public boolean isMemoryMode() {
+        return memoryMode;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    // Writes waiting in the outbox for the database to come back
+    public int getBufferedWrites() {
+        return outbox == null ? 0 : outbox.pending();
+    }
+
+    // Pool usage (active, idle, wait time, timeouts); null in Memory Mode
+    public PoolStats getPoolStats() {
+        return memoryMode ? null : pool.getStats();
+    }
+
+    // Switches addPost to write-behind: posts are queued and inserted in batches by a background thread
+    public void enableWriteBehind(int batchSize, long windowMillis, int capacity) {
+        if (memoryMode || bulk || writeBehind != null) return;
+        writeBehind = new WriteBehind<>("post", this::writePosts, batchSize, windowMillis, capacity);
+        writeBehind.start();
+
+        // Flush whatever is still queued when the JVM exits
+        onShutdown(() -> writeBehind.shutdown(10000), "write-behind-flush");
+    }
+
+    private synchronized void onShutdown(Runnable flush, String name) {
+        Thread hook = new Thread(flush, name);
+        Runtime.getRuntime().addShutdownHook(hook);
+        shutdownHooks.add(hook);
+    }
+
+    // Flushes and stops everything this instance started (safe to call twice). The shutdown
+    // hooks go too, so a closed instance is not kept alive until exit.
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (Thread hook : shutdownHooks) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(hook);
+                } catch (IllegalStateException e) {
+                    // Already shutting down: the hooks run anyway
+                }
+            }
+            shutdownHooks.clear();
+        }
+        likeCounter.shutdown();
+        if (writeBehind != null) writeBehind.shutdown(10000);
+        if (commentWriter != null) commentWriter.shutdown(10000);
+        if (supervisor != null) supervisor.stopSupervisor();
+        if (outbox != null) outbox.close();
+        if (pool != null) pool.close();
+    }
+
+    @Override
+    public boolean authenticateUser(String username, String password) {
+        if (!memoryMode && !breaker.isClosed()) {
+            // Offline: posts are buffered and replayed under this name, so only accept logins
+            // the database verified before (saved next to the outbox, so also from earlier runs)
+            return verifiedLogins.matches(username, password);
+        }
+        if (!memoryMode) {
+            // SECURE LOGIC: Check Database for matching Name AND Password
+            String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
+            try {
+                boolean ok = withConnection(conn -> {
+                    PreparedStatement pstmt = conn.prepare(sql);
+                    pstmt.setString(1, username);
+                    pstmt.setString(2, password);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        // If rs.next() is true, it means we found a user with that password
+                        return rs.next();
+                    }
+                });
+                if (ok) verifiedLogins.remember(username, password);
+                else verifiedLogins.forget(username);
+                return ok;
+            } catch (SQLException e) {
+                report(e);
+                return false;
+            }
+        } else {
+            // Memory Mode: Allow generic login if DB is down
+            return !username.isEmpty();
+        }
+    }
+
+    @Override
+    public void addPost(BlogPost post) {
+        addPost(post, null);
+    }
+
+    @Override
+    public void addPost(BlogPost post, WriteBehind.Callback<BlogPost> callback) {
+        if (memoryMode) {
+            memory.addPost(post);
+            searchIndex.add(post);
+            ranker.postAdded(post.id, post.timestamp);
+            if (callback != null) callback.onComplete(post, null);
+            return;
+        }
+
+        if (writeBehind != null) {
+            try {
+                writeBehind.submit(post, callback);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (callback != null) callback.onComplete(post, e);
+            }
+            return;
+        }
+
+        Exception error = null;
+        try {
+            writePosts(Collections.singletonList(post));
+        } catch (SQLException e) {
+            report(e);
+            error = e;
+        }
+        if (callback != null) callback.onComplete(post, error);
+    }
+
+    // Where addPost writes go (directly, or as the write-behind sink). During an outage they are
+    // accepted into the outbox instead; such posts keep id 0 until the replay inserts them.
+    private void writePosts(List<BlogPost> posts) throws SQLException {
+        BufferedWrite buffered = buffer -> buffer.appendPosts(posts);
+        if (!bufferIfOffline(buffered)) {
+            try {
+                if (posts.size() == 1) insertPost(posts.get(0));
+                else insertBatch(posts);
+                return;
+            } catch (SQLException e) {
+                bufferAfterFailure(buffered, e);
+            }
+        }
+        for (BlogPost post : posts) post.id = 0;
+    }
+
+    private void insertPost(BlogPost post) throws SQLException {
+        withConnection(conn -> {
+            PreparedStatement pstmt = conn.prepareWithKeys(INSERT_POST_SQL);
+            bindPost(pstmt, post);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) post.id = keys.getInt(1);
+            }
+            return null;
+        });
+        if (!useFullText) searchIndex.add(post);
+        ranker.postAdded(post.id, post.timestamp);
+    }
+
+    // Live writes (write-behind batches, outbox replay) are also added to the in-memory indexes
+    private void insertBatch(List<BlogPost> batch) throws SQLException {
+        insertRows(batch);
+        for (BlogPost post : batch) {
+            if (!useFullText) searchIndex.add(post);
+            ranker.postAdded(post.id, post.timestamp);
+        }
+    }
+
+    // One transaction per batch: addBatch/executeBatch, then read back the generated ids
+    private void insertRows(List<BlogPost> batch) throws SQLException {
+        insertBatchSizes.record(batch.size());
+        withConnection(conn -> {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.prepareWithKeys(INSERT_POST_SQL);
+                for (BlogPost post : batch) {
+                    bindPost(pstmt, post);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < batch.size()) {
+                        batch.get(i++).id = keys.getInt(1);
+                    }
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    private void bindPost(PreparedStatement pstmt, BlogPost post) throws SQLException {
+        pstmt.setString(1, post.title);
+        pstmt.setString(2, post.content);
+        pstmt.setString(3, post.author.getUsername());
+        pstmt.setInt(4, post.likes);
+        pstmt.setTimestamp(5, new Timestamp(post.timestamp));
+    }
+
+    @Override
+    public List<BlogPost> getAllPosts() {
+        List<BlogPost> posts = new ArrayList<>();
+        if (!memoryMode) {
+            String sql = "SELECT * FROM posts ORDER BY id DESC";
+            try {
+                withConnection(conn -> {
+                    try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+                        while (rs.next()) {
+                            posts.add(mapPost(rs));
+                        }
+                    }
+                    return null;
+                });
+            } catch (SQLException e) {
+                report(e);
+            }
+        } else {
+            posts.addAll(memory.getAllPosts());
+        }
+        return posts;
+    }
+
+    // One forward-only, read-only cursor over the table. MySQL Connector/J only streams rows
+    // (instead of buffering the whole result) when the fetch size is Integer.MIN_VALUE.
+    @Override
+    public void exportPosts(int afterId, PostVisitor visitor) throws IOException {
+        if (memoryMode) {
+            for (BlogPost p : memory.postsAfter(afterId)) {
+                visitor.visit(p);
+            }
+            return;
+        }
+
+        try {
+            withConnection(conn -> {
+                String sql = "SELECT * FROM posts WHERE id > ? ORDER BY id";
+                try (PreparedStatement pstmt = conn.getConnection().prepareStatement(
+                        sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pstmt.setFetchSize(isMySql(conn.getConnection()) ? Integer.MIN_VALUE : EXPORT_FETCH_SIZE);
+                    pstmt.setInt(1, afterId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            visitor.visit(mapPost(rs));
+                        }
+                    } catch (IOException e) {
+                        throw new SQLException("Export stopped: " + e.getMessage(), e);
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause(); // The visitor's own failure
+            throw new IOException("Export failed. " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void importPosts(List<BlogPost> posts) throws IOException {
+        if (posts.isEmpty()) return;
+        if (memoryMode) {
+            for (BlogPost p : posts) {
+                memory.addPost(p);
+                if (bulk) continue;
+                searchIndex.add(p);
+                ranker.postAdded(p.id, p.timestamp);
+            }
+            return;
+        }
+        // Same as LogDataService: a serving store indexes each chunk once it is committed,
+        // a bulk store (forBulk) keeps no in-memory indexes
+        try {
+            if (bulk) insertRows(posts);
+            else insertBatch(posts);
+        } catch (SQLException e) {
+            throw new IOException("Import of " + posts.size() + " posts failed. " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isMySql(Connection c) throws SQLException {
+        return c.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    @Override
+    public List<BlogPost> getPostsBefore(int beforeId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsBefore(beforeId, limit)));
+    }
+
+    private List<BlogPost> postsBefore(int beforeId, int limit) {
+        if (memoryMode) {
+            return memory.getPostsBefore(beforeId, limit);
+        }
+
+        List<BlogPost> posts = new ArrayList<>();
+        // Seek on the primary key instead of OFFSET so every page costs the same
+        String sql = beforeId > 0
+                ? "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE id < ? ORDER BY id DESC LIMIT ?"
+                : "SELECT " + SUMMARY_COLUMNS + " FROM posts ORDER BY id DESC LIMIT ?";
+        try {
+            withConnection(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                int i = 1;
+                if (beforeId > 0) pstmt.setInt(i++, beforeId);
+                pstmt.setInt(i, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(mapSummary(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            report(e);
+        }
+        return posts;
+    }
+
+    @Override
+    public List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsByAuthor(author, beforeId, limit)));
+    }
+
+    private List<BlogPost> postsByAuthor(String author, int beforeId, int limit) {
+        if (memoryMode) {
+            return memory.getPostsByAuthor(author, beforeId, limit);
+        }
+
+        List<BlogPost> posts = new ArrayList<>();
+        String sql = beforeId > 0
+                ? "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE author = ? AND id < ? ORDER BY id DESC LIMIT ?"
+                : "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE author = ? ORDER BY id DESC LIMIT ?";
+        try {
+            withConnection(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                int i = 1;
+                pstmt.setString(i++, author);
+                if (beforeId > 0) pstmt.setInt(i++, beforeId);
+                pstmt.setInt(i, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(mapSummary(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            report(e);
+        }
+        return posts;
+    }
+
+    @Override
+    public List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsSince(sinceMillis, afterCreated, afterId, limit)));
+    }
+
+    private List<BlogPost> postsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        if (memoryMode) {
+            return memory.getPostsSince(sinceMillis, afterCreated, afterId, limit);
+        }
+
+        List<BlogPost> posts = new ArrayList<>();
+        // Range scan on idx_posts_created_at, seeking past the previous page on (created_at, id)
+        String sql = afterId > 0
+                ? "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE created_at >= ? " +
+                  "AND (created_at > ? OR (created_at = ? AND id > ?)) ORDER BY created_at, id LIMIT ?"
+                : "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE created_at >= ? ORDER BY created_at, id LIMIT ?";
+        try {
+            withConnection(conn -> {
+                PreparedStatement pstmt = conn.prepare(sql);
+                int i = 1;
+                pstmt.setTimestamp(i++, new Timestamp(sinceMillis));
+                if (afterId > 0) {
+                    Timestamp after = new Timestamp(afterCreated);
+                    pstmt.setTimestamp(i++, after);
+                    pstmt.setTimestamp(i++, after);
+                    pstmt.setInt(i++, afterId);
+                }
+                pstmt.setInt(i, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(mapSummary(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            report(e);
+        }
+        return posts;
+    }
+
+    @Override
+    public List<BlogPost> getPostsAfter(int afterId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsAfter(afterId, limit)));
+    }
+
+    private List<BlogPost> postsAfter(int afterId, int limit) {
+        if (memoryMode) {
+            return memory.getPostsAfter(afterId, limit);
+        }
+
+        List<BlogPost> posts = new ArrayList<>();
+        try {
+            withConnection(conn -> {
+                PreparedStatement pstmt = conn.prepare(
+                        "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE id > ? ORDER BY id ASC LIMIT ?");
+                pstmt.setInt(1, afterId);
+                pstmt.setInt(2, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        posts.add(mapSummary(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            report(e);
+        }
+        return posts;
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts(Collection<Integer> postIds) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (postIds.isEmpty()) return counts;
+
+        return likeCounter.read(() -> {
+            if (memoryMode) {
+                for (int id : postIds) {
+                    BlogPost post = memory.getPost(id);
+                    if (post != null) counts.put(id, post.likes);
+                }
+            } else {
+                try {
+                    selectByIds("id, likes", new ArrayList<>(postIds), rs -> counts.put(rs.getInt(1), rs.getInt(2)));
+                } catch (SQLException e) {
+                    report(e);
+                }
+            }
+
+            for (Map.Entry<Integer, Integer> c : counts.entrySet()) {
+                c.setValue((int) (c.getValue() + likeCounter.unflushed(c.getKey())));
+            }
+            return counts;
+        });
+    }
+
+    // Ranked ids come from memory; only their summaries are read (one IN query per 50 posts)
+    @Override
+    public List<BlogPost> getRankedPosts(FeedView view, int limit) {
+        if (view == FeedView.RECENT) return getPostsBefore(0, limit);
+        List<Integer> ids = ranker.top(view, limit);
+        Map<Integer, BlogPost> found = new HashMap<>();
+        return likeCounter.read(() -> {
+            if (memoryMode) {
+                for (int id : ids) {
+                    BlogPost p = memory.getPost(id);
+                    if (p != null) found.put(id, BlogPost.summary(p));
+                }
+            } else {
+                try {
+                    selectByIds(SUMMARY_COLUMNS, ids, rs -> found.put(rs.getInt("id"), mapSummary(rs)));
+                } catch (SQLException e) {
+                    report(e);
+                }
+            }
+
+            List<BlogPost> page = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                BlogPost p = found.get(id);
+                if (p == null) continue;
+                p.likes += (int) likeCounter.unflushed(id);
+                page.add(p);
+            }
+            return page;
+        });
+    }
+
+    // Adds likes still waiting in the LikeCounter; call inside likeCounter.read() so each like
+    // is counted exactly once. The posts must be copies (summaries, rows), never stored objects.
+    private List<BlogPost> withUnflushed(List<BlogPost> posts) {
+        for (BlogPost p : posts) p.likes += (int) likeCounter.unflushed(p.id);
+        return posts;
+    }
+
+    // Runs "SELECT columns FROM posts WHERE id IN (...)" in fixed-width chunks
+    private void selectByIds(String columns, List<Integer> ids, RowHandler handler) throws SQLException {
+        if (ids.isEmpty()) return;
+        StringBuilder sql = new StringBuilder("SELECT " + columns + " FROM posts WHERE id IN (?");
+        for (int i = 1; i < IN_LIST_SIZE; i++) sql.append(", ?");
+        sql.append(")");
+
+        withConnection(conn -> {
+            PreparedStatement pstmt = conn.prepare(sql.toString());
+            for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+                // Pad the last chunk by repeating its first id
+                for (int i = 0; i < IN_LIST_SIZE; i++) {
+                    int idx = from + i < ids.size() ? from + i : from;
+                    pstmt.setInt(i + 1, ids.get(idx));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.row(rs);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<BlogPost> searchPosts(String query, int limit) {
+        return likeCounter.read(() -> withUnflushed(search(query, limit)));
+    }
+
+    private List<BlogPost> search(String query, int limit) {
+        List<BlogPost> results = new ArrayList<>();
+        if (query == null || query.trim().isEmpty()) return results;
+
+        try {
+            if (!memoryMode && useFullText) {
+                withConnection(conn -> {
+                    PreparedStatement pstmt = conn.prepare("SELECT " + SUMMARY_COLUMNS + " FROM posts " +
+                            "WHERE MATCH(title, content) AGAINST (?) " +
+                            "ORDER BY MATCH(title, content) AGAINST (?) DESC LIMIT ?");
+                    pstmt.setString(1, query);
+                    pstmt.setString(2, query);
+                    pstmt.setInt(3, limit);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) results.add(mapSummary(rs));
+                    }
+                    return null;
+                });
+                return results;
+            }
+
+            // In-process index: ranked ids first, then summaries in rank order
+            List<Integer> ids = new ArrayList<>();
+            for (SearchIndex.Hit hit : searchIndex.search(query, limit)) ids.add(hit.postId);
+
+            Map<Integer, BlogPost> found = new HashMap<>();
+            if (memoryMode) {
+                for (int id : ids) {
+                    BlogPost p = memory.getPost(id);
+                    if (p != null) found.put(id, BlogPost.summary(p));
+                }
+            } else {
+                selectByIds(SUMMARY_COLUMNS, ids, rs -> found.put(rs.getInt("id"), mapSummary(rs)));
+            }
+            for (int id : ids) {
+                BlogPost p = found.get(id);
+                if (p != null) results.add(p);
+            }
+        } catch (SQLException e) {
+            report(e);
+        }
+        return results;
+    }
+
+    @Override
+    public BlogPost getPostById(int id) {
+        return likeCounter.read(() -> {
+            BlogPost post = postById(id);
+            if (post != null) post.likes += (int) likeCounter.unflushed(id);
+            return post;
+        });
+    }
+
+    private BlogPost postById(int id) {
+        if (memoryMode) {
+            BlogPost stored = memory.getPost(id);
+            if (stored == null) return null;
+            BlogPost copy = BlogPost.summary(stored); // Callers may change likes; the store's copy stays put
+            copy.content = stored.content;
+            return copy;
+        }
+
+        try {
+            BlogPost post = withConnection(conn -> {
+                String cached = bodyCache.get(id);
+                // Body already cached: only the small columns need a round trip (likes change)
+                PreparedStatement pstmt = conn.prepare(cached != null
+                        ? "SELECT " + SUMMARY_COLUMNS + " FROM posts WHERE id = ?"
+                        : "SELECT * FROM posts WHERE id = ?");
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    if (cached == null) return mapPost(rs);
+                    BlogPost p = mapSummary(rs);
+                    p.content = cached;
+                    return p;
+                }
+            });
+            if (post != null) bodyCache.put(id, post.content);
+            return post;
+        } catch (SQLException e) {
+            report(e);
+            return null;
+        }
+    }
+
+    // Reads the content column through getCharacterStream. On MySQL the single row is streamed
+    // (fetch size Integer.MIN_VALUE), so the driver does not buffer the whole body either.
+    // Bodies small enough for the body cache are collected on the way and cached once complete.
+    @Override
+    public boolean streamContent(int postId, int chunkChars, ContentVisitor visitor) throws IOException {
+        if (memoryMode) {
+            BlogPost post = memory.getPost(postId);
+            if (post == null) return false;
+            ContentVisitor.streamString(post.content, chunkChars, visitor);
+            return true;
+        }
+        String cached = bodyCache.get(postId);
+        if (cached != null) {
+            ContentVisitor.streamString(cached, chunkChars, visitor);
+            return true;
+        }
+
+        try {
+            return withConnection(conn -> {
+                try (PreparedStatement pstmt = conn.getConnection().prepareStatement(
+                        "SELECT content FROM posts WHERE id = ?", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    if (isMySql(conn.getConnection())) pstmt.setFetchSize(Integer.MIN_VALUE);
+                    pstmt.setInt(1, postId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) return false;
+                        try (Reader in = rs.getCharacterStream(1)) {
+                            if (in == null) return true; // NULL content
+                            char[] buf = new char[chunkChars];
+                            StringBuilder copy = new StringBuilder(); // null once the body is too large to cache
+                            boolean complete = true;
+                            int n;
+                            while ((n = fill(in, buf)) > 0) {
+                                if (copy != null) {
+                                    copy.append(buf, 0, n);
+                                    if (!bodyCache.accepts(copy.length())) copy = null;
+                                }
+                                if (!visitor.chunk(buf, n)) {
+                                    complete = false;
+                                    break;
+                                }
+                            }
+                            if (complete && copy != null) bodyCache.put(postId, copy.toString());
+                        }
+                    } catch (IOException e) {
+                        throw new SQLException("Reading post " + postId + " stopped: " + e.getMessage(), e);
+                    }
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Could not read post " + postId + ". " + e.getMessage(), e);
+        }
+    }
+
+    // Reads until buf is full or the stream ends (Readers may return short reads)
+    private static int fill(Reader in, char[] buf) throws IOException {
+        int n = 0;
+        while (n < buf.length) {
+            int r = in.read(buf, n, buf.length - n);
+            if (r < 0) break;
+            n += r;
+        }
+        return n;
+    }
+
+    @Override
+    public void likePost(int postId) {
+        ranker.liked(postId, 1, () -> likeCounter.like(postId));
+    }
+
+    @Override
+    public int getLikeCount(int postId) {
+        return likeCounter.read(() -> {
+            long unflushed = likeCounter.unflushed(postId);
+            if (memoryMode) {
+                BlogPost post = memory.getPost(postId);
+                return (int) ((post == null ? 0 : post.likes) + unflushed);
+            }
+
+            try {
+                int persisted = withConnection(conn -> {
+                    PreparedStatement pstmt = conn.prepare("SELECT likes FROM posts WHERE id = ?");
+                    pstmt.setInt(1, postId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? rs.getInt(1) : 0;
+                    }
+                });
+                return (int) (persisted + unflushed);
+            } catch (SQLException e) {
+                report(e);
+                return (int) unflushed;
+            }
+        });
+    }
+
+    // Called by the LikeCounter flusher: one batched UPDATE per flush window (or one outbox record)
+    private void applyLikeDeltas(Map<Integer, Long> deltas, LikeCounter.Publisher publish) throws SQLException {
+        if (memoryMode) {
+            publish.run(() -> {
+                for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                    memory.addLikes(d.getKey(), d.getValue());
+                }
+            });
+            return;
+        }
+
+        BufferedWrite buffered = buffer -> buffer.appendLikes(deltas);
+        if (bufferIfOffline(buffered)) return;
+        try {
+            updateLikes(deltas, publish);
+        } catch (SQLException e) {
+            bufferAfterFailure(buffered, e);
+        }
+    }
+
+    // publish wraps the commit, so a like read never counts a delta both stored and unflushed
+    private void updateLikes(Map<Integer, Long> deltas, LikeCounter.Publisher publish) throws SQLException {
+        likeBatchSizes.record(deltas.size());
+        withConnection(conn -> {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.prepare("UPDATE posts SET likes = likes + ? WHERE id = ?");
+                for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                    pstmt.setLong(1, d.getValue());
+                    pstmt.setInt(2, d.getKey());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                publish.run(c::commit);
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<Comment> getComments(int postId, int afterId, int limit) {
+        if (memoryMode) {
+            return memory.getComments(postId, afterId, limit);
+        }
+
+        List<Comment> comments = new ArrayList<>();
+        try {
+            withConnection(conn -> {
+                // Seek on idx_comments_post_id (post_id, id): every page costs the same
+                PreparedStatement pstmt = conn.prepare("SELECT id, post_id, author, body, created_at FROM comments " +
+                        "WHERE post_id = ? AND id > ? ORDER BY id LIMIT ?");
+                pstmt.setInt(1, postId);
+                pstmt.setInt(2, afterId);
+                pstmt.setInt(3, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        comments.add(mapComment(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            report(e);
+        }
+        return comments;
+    }
+
+    @Override
+    public void addComment(Comment comment, WriteBehind.Callback<Comment> callback) {
+        if (memoryMode) {
+            memory.addComment(comment);
+            if (callback != null) callback.onComplete(comment, null);
+            return;
+        }
+        if (commentWriter == null) { // Bulk store: written at once
+            try {
+                writeComments(Collections.singletonList(comment));
+                if (callback != null) callback.onComplete(comment, null);
+            } catch (SQLException e) {
+                if (callback != null) callback.onComplete(comment, e);
+            }
+            return;
+        }
+        try {
+            commentWriter.submit(comment, callback);
+        } catch (InterruptedException | IllegalStateException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            if (callback != null) callback.onComplete(comment, e);
+        }
+    }
+
+    // Sink of the comment writer; during an outage the batch goes to the outbox (ids stay 0)
+    private void writeComments(List<Comment> batch) throws SQLException {
+        BufferedWrite buffered = buffer -> buffer.appendComments(batch);
+        if (!bufferIfOffline(buffered)) {
+            try {
+                insertComments(batch);
+                return;
+            } catch (SQLException e) {
+                bufferAfterFailure(buffered, e);
+            }
+        }
+        for (Comment comment : batch) comment.id = 0;
+    }
+
+    // One transaction per batch, generated ids read back in order
+    private void insertComments(List<Comment> batch) throws SQLException {
+        commentBatchSizes.record(batch.size());
+        withConnection(conn -> {
+            Connection c = conn.getConnection();
+            c.setAutoCommit(false);
+            try {
+                PreparedStatement pstmt = conn.prepareWithKeys(INSERT_COMMENT_SQL);
+                for (Comment comment : batch) {
+                    pstmt.setInt(1, comment.postId);
+                    pstmt.setString(2, comment.author);
+                    pstmt.setString(3, comment.body);
+                    pstmt.setTimestamp(4, new Timestamp(comment.timestamp));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < batch.size()) {
+                        batch.get(i++).id = keys.getInt(1);
+                    }
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+
+    private Comment mapComment(ResultSet rs) throws SQLException {
+        Comment c = new Comment(rs.getInt("post_id"), rs.getString("author"), rs.getString("body"));
+        c.id = rs.getInt("id");
+        Timestamp created = rs.getTimestamp("created_at");
+        if (created != null) c.timestamp = created.getTime();
+        return c;
+    }
+
+    private BlogPost mapSummary(ResultSet rs) throws SQLException {
+        BlogPost p = BlogPost.summary(
+                rs.getInt("id"),
+                rs.getString("title"),
+                UserRegistry.author(rs.getString("author")),
+                rs.getInt("likes"));
+        Timestamp created = rs.getTimestamp("created_at");
+        if (created != null) p.timestamp = created.getTime();
+        return p;
+    }
+
+    private BlogPost mapPost(ResultSet rs) throws SQLException {
+        User u = UserRegistry.author(rs.getString("author")); // Shared instance per author
+
+        BlogPost p = new BlogPost(
+                rs.getString("title"),
+                rs.getString("content"),
+                u
+        );
+        p.id = rs.getInt("id");
+        p.likes = rs.getInt("likes");
+        Timestamp created = rs.getTimestamp("created_at");
+        if (created != null) p.timestamp = created.getTime();
+        return p;
+    }
+}
@@ -0,0 +1,82 @@
+package blog;
+
+import javax.swing.*;
+
+// Posts a probe to the event queue at a fixed rate and logs the EDT's stack whenever a probe
+// waits longer than the threshold, i.e. something is blocking the UI thread.
+public class EdtWatchdog extends Thread {
+    private static final long PROBE_INTERVAL_MS = 100;
+
+    private final long thresholdMillis;
+    private volatile boolean running = true;
+    private volatile Thread edt;
+    private volatile long lastQueueDelayMillis = 0;
+    private final Histogram queueDelay = Metrics.timer("ui.edtQueueDelay");
+
+    public EdtWatchdog(long thresholdMillis) {
+        super("edt-watchdog");
+        setDaemon(true);
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            long posted = System.currentTimeMillis();
+            long postedNanos = System.nanoTime();
+            boolean[] ran = new boolean[1];
+            SwingUtilities.invokeLater(() -> {
+                edt = Thread.currentThread();
+                lastQueueDelayMillis = System.currentTimeMillis() - posted;
+                queueDelay.recordSince(postedNanos);
+                synchronized (ran) {
+                    ran[0] = true;
+                    ran.notifyAll();
+                }
+            });
+
+            try {
+                boolean reported = false;
+                synchronized (ran) {
+                    long deadline = posted + thresholdMillis;
+                    while (!ran[0]) {
+                        long wait = deadline - System.currentTimeMillis();
+                        if (wait <= 0) {
+                            if (!reported) {
+                                reportStall();
+                                reported = true;
+                            }
+                            wait = PROBE_INTERVAL_MS;
+                        }
+                        ran.wait(wait);
+                    }
+                }
+                if (reported) {
+                    System.err.println("EDT WATCHDOG: UI thread recovered after " + (System.currentTimeMillis() - posted) + " ms");
+                }
+                Thread.sleep(PROBE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+    }
+
+    private void reportStall() {
+        StringBuilder sb = new StringBuilder("EDT WATCHDOG: UI thread blocked for more than " + thresholdMillis + " ms");
+        Thread t = edt;
+        if (t != null) {
+            for (StackTraceElement el : t.getStackTrace()) sb.append("\n\tat ").append(el);
+        }
+        System.err.println(sb);
+    }
+
+    // How long the most recent probe waited in the event queue
+    public long getLastQueueDelayMillis() {
+        return lastQueueDelayMillis;
+    }
+
+    public void stopWatching() {
+        running = false;
+        interrupt();
+    }
+}
@@ -0,0 +1,59 @@
+package blog;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.function.BiFunction;
+
+// One reusable card component stamped for every visible feed row (no per-post component tree).
+public class FeedCardRenderer extends JPanel implements ListCellRenderer<BlogPost> {
+    private static final long serialVersionUID = 1L;
+
+    public static final int CARD_HEIGHT = 100;
+    public static final int AVATAR_SIZE = 50;
+
+    private static final Color SELECTED_BG = new Color(235, 242, 250);
+
+    private final BiFunction<String, Integer, Icon> avatars;
+    private final JLabel avatarLbl = new JLabel();
+    private final JLabel pTitle = new JLabel();
+    private final JLabel pMeta = new JLabel();
+
+    public FeedCardRenderer(BiFunction<String, Integer, Icon> avatars) {
+        super(new BorderLayout(10, 10)); // Gap of 10px
+        this.avatars = avatars;
+
+        setBorder(BorderFactory.createCompoundBorder(
+                new EmptyBorder(5, 10, 5, 10),
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1, true) // Rounded look
+        ));
+
+        // --- CENTER: Title & Meta ---
+        pTitle.setFont(new Font("Arial", Font.BOLD, 16));
+        pMeta.setFont(new Font("Arial", Font.PLAIN, 12));
+        pMeta.setForeground(Color.GRAY);
+
+        JPanel info = new JPanel(new GridLayout(2, 1));
+        info.setOpaque(false);
+        info.add(pTitle);
+        info.add(pMeta);
+
+        // --- RIGHT: Read Button (painted only; a click anywhere on the card opens the post) ---
+        JButton readBtn = new JButton("Read >");
+
+        add(avatarLbl, BorderLayout.WEST);
+        add(info, BorderLayout.CENTER);
+        add(readBtn, BorderLayout.EAST);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends BlogPost> list, BlogPost post,
+                                                  int index, boolean isSelected, boolean cellHasFocus) {
+        String author = post.author.getUsername();
+        avatarLbl.setIcon(avatars.apply(author, AVATAR_SIZE));
+        pTitle.setText(post.title);
+        pMeta.setText("By " + author + "  \u2022  " + post.likes + (post.likes == 1 ? " like" : " likes"));
+        setBackground(isSelected ? SELECTED_BG : Color.WHITE);
+        return this;
+    }
+}
@@ -0,0 +1,145 @@
+package blog;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Backing model for the virtualized feed. Changes are published as interval events,
+// so the JList only lays out and repaints the rows that actually changed.
+// Rows are kept newest-first (descending id) in columnar storage (PostColumns); getElementAt
+// hands out a summary copy, and only the painted rows are ever materialized. EDT only.
+public class FeedListModel extends AbstractListModel<BlogPost> {
+    private static final long serialVersionUID = 1L;
+
+    private final PostColumns rows = new PostColumns(64);
+    private boolean showingResults = false; // Search results are ranked, not id-ordered; sync leaves them alone
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public BlogPost getElementAt(int index) {
+        return rows.get(index);
+    }
+
+    // Older posts go at the bottom (next page while scrolling)
+    public void appendPage(List<BlogPost> page) {
+        int start = rows.size();
+        List<BlogPost> outOfOrder = null;
+        for (BlogPost post : page) {
+            if (showingResults) {
+                if (!containsUnsorted(post.id)) rows.add(post);
+            } else if (rows.size() == 0 || post.id < rows.id(rows.size() - 1)) {
+                rows.add(post);
+            } else {
+                if (outOfOrder == null) outOfOrder = new ArrayList<>();
+                outOfOrder.add(post); // Not older than the bottom row: goes in by id (or is a duplicate)
+            }
+        }
+        if (rows.size() > start) fireIntervalAdded(this, start, rows.size() - 1);
+        if (outOfOrder != null) mergeNewer(outOfOrder);
+    }
+
+    // Newer posts are merged in at their id position near the top; posts already shown are skipped.
+    // Posts that land in the same gap go in as one run (one shift, one event); usually that is
+    // a single run at the top. Returns how many rows were inserted.
+    public int mergeNewer(Collection<BlogPost> posts) {
+        if (showingResults || posts.isEmpty()) return 0;
+        List<BlogPost> sorted = new ArrayList<>(posts);
+        sorted.sort((a, b) -> Integer.compare(b.id, a.id)); // Newest first, like the rows
+
+        int inserted = 0;
+        int i = 0;
+        while (i < sorted.size()) {
+            int id = sorted.get(i).id;
+            int index = insertionIndex(id);
+            if (index < rows.size() && rows.id(index) == id || i > 0 && sorted.get(i - 1).id == id) {
+                i++; // Already shown (or repeated in the input)
+                continue;
+            }
+            // Extend the run while the next posts fall into the same gap
+            int lowerBound = index < rows.size() ? rows.id(index) : Integer.MIN_VALUE;
+            int end = i + 1;
+            while (end < sorted.size() && sorted.get(end).id > lowerBound && sorted.get(end).id != sorted.get(end - 1).id) {
+                end++;
+            }
+            rows.insertAll(index, sorted.subList(i, end));
+            fireIntervalAdded(this, index, index + (end - i) - 1);
+            inserted += end - i;
+            i = end;
+        }
+        return inserted;
+    }
+
+    // Applies fresh like counts; only rows whose value changed are repainted
+    public int updateLikes(Map<Integer, Integer> likes) {
+        int changed = 0;
+        for (int i = 0; i < rows.size() && changed < likes.size(); i++) {
+            Integer count = likes.get(rows.id(i));
+            if (count != null && count != rows.likes(i)) {
+                rows.setLikes(i, count);
+                fireContentsChanged(this, i, i);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public void clear() {
+        showingResults = false;
+        if (rows.size() == 0) return;
+        int end = rows.size() - 1;
+        rows.clear();
+        fireIntervalRemoved(this, 0, end);
+    }
+
+    // Replaces the feed with ranked search results (kept in the given order)
+    public void showResults(List<BlogPost> results) {
+        clear();
+        showingResults = true;
+        appendPage(results);
+    }
+
+    public boolean isShowingResults() {
+        return showingResults;
+    }
+
+    // Cursor for the next page (0 when empty)
+    public int oldestId() {
+        return rows.size() == 0 ? 0 : rows.id(rows.size() - 1);
+    }
+
+    public int newestId() {
+        return rows.size() == 0 ? 0 : rows.id(0);
+    }
+
+    // Ids of the first n rows (the part of the feed worth keeping fresh)
+    public List<Integer> topIds(int n) {
+        List<Integer> top = new ArrayList<>();
+        for (int i = 0; i < rows.size() && i < n; i++) top.add(rows.id(i));
+        return top;
+    }
+
+    // Rows are sorted by descending id, so binary search for the slot
+    private int insertionIndex(int id) {
+        int lo = 0, hi = rows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rows.id(mid) > id) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Ranked results are short (one search page), so a scan is enough
+    private boolean containsUnsorted(int id) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.id(i) == id) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package blog;
+
+// Orderings the feed header can switch between
+public enum FeedView {
+    RECENT("Recent"),     // Newest first (keyset paging on id)
+    TOP("Top"),           // Most likes of all time
+    TRENDING("Trending"); // Likes and new posts, weighted towards the last hour or so
+
+    private final String label;
+
+    FeedView(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
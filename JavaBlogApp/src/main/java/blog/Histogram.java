@@ -0,0 +1,141 @@
+package blog;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram: each power of two is split into 8 sub-buckets, so any
+// percentile is within ~12% of the true value, at a fixed 4 KB per histogram.
+// Timers record nanoseconds (reported as ms); distributions (e.g. batch sizes) record raw values.
+public class Histogram implements HistogramMBean {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final boolean timer;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram(boolean timer) {
+        this.timer = timer;
+    }
+
+    public boolean isTimer() {
+        return timer;
+    }
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    // Times a call in nanoseconds; returns System.nanoTime() for chaining
+    public long recordSince(long startNanos) {
+        long now = System.nanoTime();
+        record(now - startNanos);
+        return now;
+    }
+
+    // Values below 8 get their own bucket; above that, 8 buckets per power of two
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Upper bound of a bucket (what percentiles report)
+    static long bucketLimit(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int msb = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (msb - SUB_BITS)) - 1;
+    }
+
+    // Copy of the bucket counts; diff two of them to get percentiles for an interval
+    public long[] snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return copy;
+    }
+
+    // p in [0, 100]; "since" may be null (all-time) or an earlier snapshot.
+    // Reports the upper bound of the bucket holding the p-th value.
+    public static long percentile(long[] now, long[] since, double p) {
+        long total = 0;
+        for (int i = 0; i < now.length; i++) total += now[i] - (since == null ? 0 : since[i]);
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < now.length; i++) {
+            seen += now[i] - (since == null ? 0 : since[i]);
+            if (seen >= Math.max(rank, 1)) return bucketLimit(i);
+        }
+        return bucketLimit(now.length - 1);
+    }
+
+    public static long count(long[] now, long[] since) {
+        long total = 0;
+        for (int i = 0; i < now.length; i++) total += now[i] - (since == null ? 0 : since[i]);
+        return total;
+    }
+
+    private double scaled(double value) {
+        return timer ? value / 1_000_000.0 : value;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public String getUnit() {
+        return timer ? "ms" : "count";
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : scaled((double) sum.sum() / n);
+    }
+
+    @Override
+    public double getP50() {
+        return scaled(Math.min(percentile(snapshot(), null, 50), max.get()));
+    }
+
+    @Override
+    public double getP90() {
+        return scaled(Math.min(percentile(snapshot(), null, 90), max.get()));
+    }
+
+    @Override
+    public double getP99() {
+        return scaled(Math.min(percentile(snapshot(), null, 99), max.get()));
+    }
+
+    @Override
+    public double getMax() {
+        return scaled(max.get());
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.3f p50=%.3f p99=%.3f max=%.3f %s",
+                getCount(), getMean(), getP50(), getP99(), getMax(), getUnit());
+    }
+}
@@ -0,0 +1,13 @@
+package blog;
+
+// JMX view of a Histogram. Timers report milliseconds, distributions raw values.
+public interface HistogramMBean {
+    long getCount();
+    String getUnit();
+    double getMean();
+    double getP50();
+    double getP90();
+    double getP99();
+    double getMax();
+    void reset();
+}
@@ -0,0 +1,67 @@
+package blog;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IDataService {
+    boolean authenticateUser(String username, String password);
+    void addPost(BlogPost post);
+
+    // Like addPost, but reports back once the post is actually committed
+    void addPost(BlogPost post, WriteBehind.Callback<BlogPost> callback);
+
+    List<BlogPost> getAllPosts();
+
+    // Streams every post with id > afterId to the visitor, oldest first, holding only one at a time
+    void exportPosts(int afterId, PostVisitor visitor) throws IOException;
+
+    // Bulk insert: the whole chunk is committed in one transaction (or not at all); assigns ids.
+    // Serving stores index the chunk (search, rankings) once committed; bulk stores do not.
+    void importPosts(List<BlogPost> posts) throws IOException;
+
+    // Keyset pagination: newest-first posts with id < beforeId (pass 0 for the first page).
+    // Returns summaries only (no content); use getPostById to load the body.
+    List<BlogPost> getPostsBefore(int beforeId, int limit);
+
+    // Same keyset paging, restricted to one author
+    List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit);
+
+    // Time-range read: summaries of posts created at or after sinceMillis, oldest first by
+    // (created time, id). Keyset paging: pass the timestamp and id of the last post of the
+    // previous page (afterId 0 for the first page).
+    List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit);
+
+    // Summaries of posts newer than afterId, oldest first (for incremental sync)
+    List<BlogPost> getPostsAfter(int afterId, int limit);
+
+    // Summaries in the order of the view: RECENT is the first feed page, TOP and TRENDING come from
+    // rankings kept in memory (no sort over the posts table). At most a few hundred posts are ranked.
+    List<BlogPost> getRankedPosts(FeedView view, int limit);
+
+    // Current like counts (including unflushed likes) for the given posts
+    Map<Integer, Integer> getLikeCounts(Collection<Integer> postIds);
+
+    // Ranked full-text search over titles and bodies (summaries, best match first)
+    List<BlogPost> searchPosts(String query, int limit);
+
+    // Full post including content, or null if it does not exist
+    BlogPost getPostById(int id);
+
+    // Streams a post's body in chunks of up to chunkChars characters without ever holding the
+    // whole body as one String; returns false if the post does not exist
+    boolean streamContent(int postId, int chunkChars, ContentVisitor visitor) throws IOException;
+
+    // Likes are counted in memory and flushed in batches
+    void likePost(int postId);
+
+    // Persisted likes plus any not yet flushed
+    int getLikeCount(int postId);
+
+    // Keyset pagination over one post's comments: oldest first, id > afterId (pass 0 for the first page)
+    List<Comment> getComments(int postId, int afterId, int limit);
+
+    // Comments are queued and appended in batches; the callback fires once this one is stored
+    void addComment(Comment comment, WriteBehind.Callback<Comment> callback);
+}
@@ -0,0 +1,174 @@
+package blog;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Decorator that times every IDataService call (data.<method>) plus all calls together (data.all).
+// It wraps the whole stack, so the numbers are what the UI actually waits for, cache hits included.
+public class InstrumentedDataService implements IDataService {
+    private final IDataService delegate;
+    private final Histogram all = Metrics.timer("data.all");
+    private final Histogram authenticateUser = Metrics.timer("data.authenticateUser");
+    private final Histogram addPost = Metrics.timer("data.addPost");
+    private final Histogram getAllPosts = Metrics.timer("data.getAllPosts");
+    private final Histogram exportPosts = Metrics.timer("data.exportPosts");
+    private final Histogram importPosts = Metrics.timer("data.importPosts");
+    private final Histogram getPostsBefore = Metrics.timer("data.getPostsBefore");
+    private final Histogram getPostsByAuthor = Metrics.timer("data.getPostsByAuthor");
+    private final Histogram getPostsSince = Metrics.timer("data.getPostsSince");
+    private final Histogram getPostsAfter = Metrics.timer("data.getPostsAfter");
+    private final Histogram getRankedPosts = Metrics.timer("data.getRankedPosts");
+    private final Histogram getLikeCounts = Metrics.timer("data.getLikeCounts");
+    private final Histogram searchPosts = Metrics.timer("data.searchPosts");
+    private final Histogram getPostById = Metrics.timer("data.getPostById");
+    private final Histogram streamContent = Metrics.timer("data.streamContent");
+    private final Histogram likePost = Metrics.timer("data.likePost");
+    private final Histogram getLikeCount = Metrics.timer("data.getLikeCount");
+    private final Histogram getComments = Metrics.timer("data.getComments");
+    private final Histogram addComment = Metrics.timer("data.addComment");
+    private final Counter errors = Metrics.counter("data.errors");
+
+    public InstrumentedDataService(IDataService delegate) {
+        this.delegate = delegate;
+    }
+
+    public IDataService getDelegate() {
+        return delegate;
+    }
+
+    private <T> T timed(Histogram h, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            h.record(elapsed);
+            all.record(elapsed);
+        }
+    }
+
+    private void timed(Histogram h, Runnable call) {
+        timed(h, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean authenticateUser(String username, String password) {
+        return timed(authenticateUser, () -> delegate.authenticateUser(username, password));
+    }
+
+    @Override
+    public void addPost(BlogPost post) {
+        timed(addPost, () -> delegate.addPost(post));
+    }
+
+    // Measures the hand-off only; the commit itself is timed by the store (jdbc.query / log batch)
+    @Override
+    public void addPost(BlogPost post, WriteBehind.Callback<BlogPost> callback) {
+        timed(addPost, () -> delegate.addPost(post, callback));
+    }
+
+    @Override
+    public List<BlogPost> getAllPosts() {
+        return timed(getAllPosts, delegate::getAllPosts);
+    }
+
+    @Override
+    public void exportPosts(int afterId, PostVisitor visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.exportPosts(afterId, visitor);
+        } finally {
+            exportPosts.recordSince(start);
+        }
+    }
+
+    @Override
+    public void importPosts(List<BlogPost> posts) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.importPosts(posts);
+        } finally {
+            importPosts.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<BlogPost> getPostsBefore(int beforeId, int limit) {
+        return timed(getPostsBefore, () -> delegate.getPostsBefore(beforeId, limit));
+    }
+
+    @Override
+    public List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit) {
+        return timed(getPostsByAuthor, () -> delegate.getPostsByAuthor(author, beforeId, limit));
+    }
+
+    @Override
+    public List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        return timed(getPostsSince, () -> delegate.getPostsSince(sinceMillis, afterCreated, afterId, limit));
+    }
+
+    @Override
+    public List<BlogPost> getPostsAfter(int afterId, int limit) {
+        return timed(getPostsAfter, () -> delegate.getPostsAfter(afterId, limit));
+    }
+
+    @Override
+    public List<BlogPost> getRankedPosts(FeedView view, int limit) {
+        return timed(getRankedPosts, () -> delegate.getRankedPosts(view, limit));
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts(Collection<Integer> postIds) {
+        return timed(getLikeCounts, () -> delegate.getLikeCounts(postIds));
+    }
+
+    @Override
+    public List<BlogPost> searchPosts(String query, int limit) {
+        return timed(searchPosts, () -> delegate.searchPosts(query, limit));
+    }
+
+    @Override
+    public BlogPost getPostById(int id) {
+        return timed(getPostById, () -> delegate.getPostById(id));
+    }
+
+    @Override
+    public boolean streamContent(int postId, int chunkChars, ContentVisitor visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.streamContent(postId, chunkChars, visitor);
+        } finally {
+            streamContent.recordSince(start);
+        }
+    }
+
+    @Override
+    public void likePost(int postId) {
+        timed(likePost, () -> delegate.likePost(postId));
+    }
+
+    @Override
+    public int getLikeCount(int postId) {
+        return timed(getLikeCount, () -> delegate.getLikeCount(postId));
+    }
+
+    @Override
+    public List<Comment> getComments(int postId, int afterId, int limit) {
+        return timed(getComments, () -> delegate.getComments(postId, afterId, limit));
+    }
+
+    // Hand-off only, like addPost
+    @Override
+    public void addComment(Comment comment, WriteBehind.Callback<Comment> callback) {
+        timed(addComment, () -> delegate.addComment(comment, callback));
+    }
+}
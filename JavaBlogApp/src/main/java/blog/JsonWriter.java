@@ -0,0 +1,121 @@
+package blog;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Minimal streaming JSON encoder: values go straight to the Writer as they are produced,
+// with no intermediate tree or String for the whole document.
+public class JsonWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final boolean[] needsComma = new boolean[32]; // One flag per nesting level
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separator();
+        if (value == null) out.write("null");
+        else string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        out.write("null");
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter open(char c) throws IOException {
+        separator();
+        out.write(c);
+        needsComma[++depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        depth--;
+        out.write(c);
+        return this;
+    }
+
+    // Writes the comma between siblings (not after a name)
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (needsComma[depth]) out.write(',');
+        needsComma[depth] = true;
+    }
+
+    private void string(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') continue; // JS line separators are escaped too
+            out.write(s, start, i - start);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    out.write("\\u");
+                    out.write(HEX[(c >> 12) & 0xF]);
+                    out.write(HEX[(c >> 8) & 0xF]);
+                    out.write(HEX[(c >> 4) & 0xF]);
+                    out.write(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+}
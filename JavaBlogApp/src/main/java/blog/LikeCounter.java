@@ -0,0 +1,199 @@
+package blog;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Records likes in striped counters (LongAdder per post) and periodically flushes the
+// accumulated deltas in one batch, so a hot post costs one UPDATE per flush window, not one per click.
+public class LikeCounter {
+
+    // Persists a set of deltas (post id -> likes to add) in one go. The step that makes them
+    // visible to reads (the commit) goes through publish.run(); a sink that never calls it is
+    // treated as publishing when it returns.
+    public interface LikeSink {
+        void applyDeltas(Map<Integer, Long> deltas, Publisher publish) throws Exception;
+    }
+
+    public interface Step<E extends Exception> {
+        void run() throws E;
+    }
+
+    // Runs a sink's commit step so that no read() sees its deltas both stored and in flight
+    public interface Publisher {
+        <E extends Exception> void run(Step<E> step) throws E;
+    }
+
+    // For writes outside a flush (e.g. replaying buffered deltas): just runs the step
+    public static final Publisher DIRECT = new Publisher() {
+        @Override
+        public <E extends Exception> void run(Step<E> step) throws E {
+            step.run();
+        }
+    };
+
+    // Reads stored counts and adds unflushed() to them (see read())
+    public interface CountRead<T, E extends Exception> {
+        T read() throws E;
+    }
+
+    private final ConcurrentHashMap<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+    // Deltas handed to the sink but not yet published; still counted by reads
+    private final ConcurrentHashMap<Integer, Long> inFlight = new ConcurrentHashMap<>();
+    // Held exclusively only while deltas move from pending to inFlight (in memory), so unflushed()
+    // never sees a delta in both maps or in neither, and like() never bumps an adder that a flush
+    // has just retired
+    private final ReentrantReadWriteLock handover = new ReentrantReadWriteLock();
+    // read() holds this shared; the sink's commit step holds it exclusively and retires inFlight
+    // in the same critical section, so a read sees a delta either stored or in flight, never both
+    private final ReentrantReadWriteLock visibility = new ReentrantReadWriteLock();
+    private final LikeSink sink;
+    private final ScheduledExecutorService flusher; // null = flushed by flush() / shutdown() only
+
+    // flushIntervalMillis <= 0 starts no flusher thread (stores opened for bulk tools)
+    public LikeCounter(LikeSink sink, long flushIntervalMillis) {
+        this.sink = sink;
+        if (flushIntervalMillis <= 0) {
+            this.flusher = null;
+            return;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "like-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void like(int postId) {
+        handover.readLock().lock();
+        try {
+            pending.computeIfAbsent(postId, k -> new LongAdder()).increment();
+        } finally {
+            handover.readLock().unlock();
+        }
+    }
+
+    // Likes recorded for this post that are not yet in the store
+    public long unflushed(int postId) {
+        handover.readLock().lock();
+        try {
+            LongAdder adder = pending.get(postId);
+            Long flying = inFlight.get(postId);
+            return (adder == null ? 0 : adder.sum()) + (flying == null ? 0 : flying);
+        } finally {
+            handover.readLock().unlock();
+        }
+    }
+
+    // Runs a read of stored counts plus unflushed() as one consistent snapshot: no flush can
+    // publish while it runs, so every delta is counted exactly once. Likes keep coming in.
+    public <T, E extends Exception> T read(CountRead<T, E> read) throws E {
+        visibility.readLock().lock();
+        try {
+            return read.read();
+        } finally {
+            visibility.readLock().unlock();
+        }
+    }
+
+    public synchronized void flush() {
+        // Subtract what we read instead of resetting, so concurrent clicks are never lost
+        Map<Integer, Long> deltas = new TreeMap<>(); // sorted ids = consistent row lock order
+        handover.writeLock().lock();
+        try {
+            Iterator<Map.Entry<Integer, LongAdder>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, LongAdder> e = it.next();
+                long n = e.getValue().sum();
+                if (n == 0) {
+                    it.remove(); // No likes since the last flush; like() recreates it when needed
+                } else {
+                    e.getValue().add(-n);
+                    deltas.put(e.getKey(), n);
+                }
+            }
+            inFlight.putAll(deltas);
+        } finally {
+            handover.writeLock().unlock();
+        }
+        if (deltas.isEmpty()) return;
+
+        FlushPublisher publish = new FlushPublisher(deltas);
+        try {
+            sink.applyDeltas(deltas, publish);
+            publish.run(() -> { }); // The sink did not publish itself
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not flush likes, will retry. " + e.getMessage());
+            publish.abort();
+        }
+    }
+
+    // Publishes one flush at most once: a successful step retires the deltas, a failed one
+    // (or a failed sink) puts them back into pending
+    private final class FlushPublisher implements Publisher {
+        private final Map<Integer, Long> deltas;
+        private boolean done = false;
+
+        FlushPublisher(Map<Integer, Long> deltas) {
+            this.deltas = deltas;
+        }
+
+        @Override
+        public <E extends Exception> void run(Step<E> step) throws E {
+            if (done) return;
+            visibility.writeLock().lock();
+            try {
+                step.run();
+                inFlight.clear();
+                done = true;
+            } finally {
+                visibility.writeLock().unlock();
+            }
+        }
+
+        void abort() {
+            if (done) return;
+            visibility.writeLock().lock();
+            handover.writeLock().lock();
+            try {
+                for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                    pending.computeIfAbsent(d.getKey(), k -> new LongAdder()).add(d.getValue());
+                }
+                inFlight.clear();
+                done = true;
+            } finally {
+                handover.writeLock().unlock();
+                visibility.writeLock().unlock();
+            }
+        }
+    }
+
+    // Final flush, e.g. from a shutdown hook
+    public void shutdown() {
+        if (flusher != null) flusher.shutdownNow();
+        flush();
+    }
+
+    // Posts with a counter right now (idle ones are dropped at the next flush)
+    int trackedPosts() {
+        return pending.size();
+    }
+
+    // Snapshot of everything not yet flushed (for diagnostics)
+    public Map<Integer, Long> snapshot() {
+        Map<Integer, Long> copy = new HashMap<>();
+        for (Map.Entry<Integer, LongAdder> e : pending.entrySet()) {
+            long n = e.getValue().sum();
+            if (n != 0) copy.put(e.getKey(), n);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,325 @@
+package blog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+// Durable local mode: posts and likes live in an append-only log on disk (see PostLog),
+// so nothing written without a database server is lost on exit.
+// Writes go through a group-commit queue (one fsync per batch), likes through a LikeCounter,
+// comments through their own batched append queue.
+public class LogDataService implements IDataService {
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int COMMIT_BATCH_SIZE = 100;
+    private static final int COMMIT_QUEUE_CAPACITY = 1000;
+    private static final long LIKE_FLUSH_INTERVAL_MS = 2000;
+    private static final int RANKED_VIEW_SIZE = 200;
+    private static final long TRENDING_HALF_LIFE_MS = 60 * 60 * 1000;
+
+    private final PostLog log;
+    private final WriteBehind<BlogPost> committer;
+    private final LikeCounter likeCounter;
+    private final WriteBehind<Comment> commentWriter;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final TimeIndex byCreated = new TimeIndex();
+    private final PostRanker ranker = new PostRanker(RANKED_VIEW_SIZE, TRENDING_HALF_LIFE_MS);
+    private final Object commitLock = new Object(); // The committer thread and importPosts both commit
+    private boolean closed = false;
+    private final boolean bulk; // Opened for a bulk tool (see forBulk)
+    private final Thread shutdownHook = new Thread(this::close, "post-log-close");
+    private final Histogram commitTime = Metrics.timer("log.commit");
+    private final Histogram commitBatchSizes = Metrics.distribution("log.batchSize");
+    private final Histogram commentBatchSizes = Metrics.distribution("log.commentBatchSize");
+
+    public LogDataService(File dir) throws IOException {
+        this(dir, false);
+    }
+
+    // For the bulk tools: no rankings, time index or search warm-up, no like-flush thread, and
+    // imports skip the in-memory indexes (the next serving open builds them from the log)
+    public static LogDataService forBulk(File dir) throws IOException {
+        return new LogDataService(dir, true);
+    }
+
+    private LogDataService(File dir, boolean bulk) throws IOException {
+        this.bulk = bulk;
+        log = new PostLog(dir.toPath(), SEGMENT_SIZE);
+
+        // Likes and timestamps are already in the log's in-memory index, so rankings rebuild without any I/O
+        int highId = bulk ? 0 : log.highId();
+        for (int id = 1; id <= highId; id++) {
+            ranker.seed(id, log.likes(id), log.createdAt(id));
+            byCreated.add(log.createdAt(id), id);
+        }
+
+        // Window 0: a batch is whatever queued up while the previous fsync ran, so a lone
+        // writer pays no extra latency and concurrent writers share one fsync
+        committer = new WriteBehind<>("post", this::commitBatch, COMMIT_BATCH_SIZE, 0, COMMIT_QUEUE_CAPACITY);
+        committer.start();
+        likeCounter = new LikeCounter(log::appendLikes, bulk ? 0 : LIKE_FLUSH_INTERVAL_MS);
+        commentWriter = new WriteBehind<>("comment", comments -> {
+            commentBatchSizes.record(comments.size());
+            log.appendComments(comments);
+        }, COMMIT_BATCH_SIZE, 0, COMMIT_QUEUE_CAPACITY);
+        commentWriter.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        System.out.println("SUCCESS: Opened local post log in " + dir + " (" + log.size() + " posts)");
+        if (!bulk) startSearchWarmup();
+    }
+
+    private void commitBatch(List<BlogPost> posts) throws IOException {
+        synchronized (commitLock) {
+            long start = System.nanoTime();
+            log.appendPosts(posts);
+            commitTime.recordSince(start);
+            commitBatchSizes.record(posts.size());
+            if (bulk) return;
+            for (BlogPost p : posts) {
+                searchIndex.add(p);
+                ranker.postAdded(p.id, p.timestamp);
+                byCreated.add(p.timestamp, p.id);
+            }
+        }
+    }
+
+    // Indexes the posts that were on disk at startup; newer ones are indexed by commitBatch
+    private void startSearchWarmup() {
+        int highId = log.highId();
+        Thread warmup = new Thread(() -> {
+            for (int id = 1; id <= highId; id++) {
+                BlogPost p = log.readPost(id);
+                if (p != null) searchIndex.add(p);
+            }
+            System.out.println("Search index ready (" + searchIndex.size() + " posts).");
+        }, "search-warmup");
+        warmup.setDaemon(true);
+        warmup.setPriority(Thread.MIN_PRIORITY);
+        warmup.start();
+    }
+
+    // Flushes likes, drains the commit queue, then syncs the log (safe to call twice)
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Called from the hook itself, or already shutting down
+        }
+        likeCounter.shutdown();
+        committer.shutdown(10000);
+        commentWriter.shutdown(10000);
+        log.close();
+    }
+
+    @Override
+    public boolean authenticateUser(String username, String password) {
+        // Local mode has no user table: same rule as Memory Mode
+        return !username.isEmpty();
+    }
+
+    // Returns once the post is durable (its batch has been fsynced)
+    @Override
+    public void addPost(BlogPost post) {
+        CountDownLatch done = new CountDownLatch(1);
+        addPost(post, (p, error) -> done.countDown());
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void addPost(BlogPost post, WriteBehind.Callback<BlogPost> callback) {
+        try {
+            committer.submit(post, callback);
+        } catch (InterruptedException | IllegalStateException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            System.err.println("ERROR: Post was not saved. " + e.getMessage());
+            if (callback != null) callback.onComplete(post, e);
+        }
+    }
+
+    @Override
+    public List<BlogPost> getAllPosts() {
+        List<BlogPost> posts = new ArrayList<>();
+        for (int id = log.highId(); id >= 1; id--) {
+            BlogPost p = log.readPost(id);
+            if (p != null) posts.add(p);
+        }
+        return posts;
+    }
+
+    @Override
+    public void exportPosts(int afterId, PostVisitor visitor) throws IOException {
+        int high = log.highId();
+        for (int id = Math.max(afterId, 0) + 1; id <= high; id++) {
+            BlogPost p = log.readPost(id);
+            if (p != null) visitor.visit(p);
+        }
+    }
+
+    // Bypasses the commit queue: the chunk is appended and fsynced as one group, serialized
+    // with the committer's own batches. Like DatabaseService, a serving store indexes each chunk
+    // once it is durable, a bulk store (forBulk) does not.
+    @Override
+    public void importPosts(List<BlogPost> posts) throws IOException {
+        if (posts.isEmpty()) return;
+        commitBatch(posts);
+    }
+
+    @Override
+    public List<BlogPost> getPostsBefore(int beforeId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsBefore(beforeId, limit)));
+    }
+
+    private List<BlogPost> postsBefore(int beforeId, int limit) {
+        int high = log.highId();
+        int start = beforeId > 0 ? Math.min(beforeId - 1, high) : high;
+        List<BlogPost> page = new ArrayList<>();
+        for (int id = start; id >= 1 && page.size() < limit; id--) {
+            BlogPost p = log.readSummary(id);
+            if (p != null) page.add(p);
+        }
+        return page;
+    }
+
+    @Override
+    public List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsByAuthor(author, beforeId, limit)));
+    }
+
+    private List<BlogPost> postsByAuthor(String author, int beforeId, int limit) {
+        int[] ids = log.idsByAuthor(author);
+        List<BlogPost> page = new ArrayList<>();
+        for (int i = ids.length - 1; i >= 0 && page.size() < limit; i--) {
+            if (beforeId > 0 && ids[i] >= beforeId) continue;
+            BlogPost p = log.readSummary(ids[i]);
+            if (p != null) page.add(p);
+        }
+        return page;
+    }
+
+    @Override
+    public List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        List<Integer> ids = byCreated.idsSince(sinceMillis, afterCreated, afterId, limit, log.highId());
+        List<BlogPost> page = new ArrayList<>();
+        return likeCounter.read(() -> {
+            for (int id : ids) {
+                BlogPost p = log.readSummary(id);
+                if (p != null) page.add(p);
+            }
+            return withUnflushed(page);
+        });
+    }
+
+    @Override
+    public List<BlogPost> getPostsAfter(int afterId, int limit) {
+        return likeCounter.read(() -> withUnflushed(postsAfter(afterId, limit)));
+    }
+
+    private List<BlogPost> postsAfter(int afterId, int limit) {
+        int high = log.highId();
+        List<BlogPost> page = new ArrayList<>();
+        for (int id = Math.max(afterId, 0) + 1; id <= high && page.size() < limit; id++) {
+            BlogPost p = log.readSummary(id);
+            if (p != null) page.add(p);
+        }
+        return page;
+    }
+
+    @Override
+    public List<BlogPost> getRankedPosts(FeedView view, int limit) {
+        if (view == FeedView.RECENT) return getPostsBefore(0, limit);
+        List<Integer> ids = ranker.top(view, limit);
+        List<BlogPost> page = new ArrayList<>();
+        return likeCounter.read(() -> {
+            for (int id : ids) {
+                BlogPost p = log.readSummary(id);
+                if (p != null) page.add(p);
+            }
+            return withUnflushed(page);
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikeCounts(Collection<Integer> postIds) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int high = log.highId();
+        for (int id : postIds) {
+            if (id >= 1 && id <= high) counts.put(id, getLikeCount(id));
+        }
+        return counts;
+    }
+
+    @Override
+    public List<BlogPost> searchPosts(String query, int limit) {
+        List<BlogPost> results = new ArrayList<>();
+        return likeCounter.read(() -> {
+            for (SearchIndex.Hit hit : searchIndex.search(query, limit)) {
+                BlogPost p = log.readSummary(hit.postId);
+                if (p != null) results.add(p);
+            }
+            return withUnflushed(results);
+        });
+    }
+
+    @Override
+    public BlogPost getPostById(int id) {
+        return likeCounter.read(() -> {
+            BlogPost post = log.readPost(id);
+            if (post != null) post.likes += (int) likeCounter.unflushed(id);
+            return post;
+        });
+    }
+
+    @Override
+    public boolean streamContent(int postId, int chunkChars, ContentVisitor visitor) throws IOException {
+        return log.streamContent(postId, chunkChars, visitor);
+    }
+
+    @Override
+    public void likePost(int postId) {
+        if (postId >= 1 && postId <= log.highId()) {
+            likeCounter.like(postId);
+            ranker.liked(postId, 1);
+        }
+    }
+
+    @Override
+    public int getLikeCount(int postId) {
+        return likeCounter.read(() -> log.likes(postId) + (int) likeCounter.unflushed(postId));
+    }
+
+    // Adds likes still waiting in the LikeCounter (call inside likeCounter.read())
+    private List<BlogPost> withUnflushed(List<BlogPost> posts) {
+        for (BlogPost p : posts) p.likes += (int) likeCounter.unflushed(p.id);
+        return posts;
+    }
+
+    @Override
+    public List<Comment> getComments(int postId, int afterId, int limit) {
+        return log.comments(postId, afterId, limit);
+    }
+
+    @Override
+    public void addComment(Comment comment, WriteBehind.Callback<Comment> callback) {
+        try {
+            if (comment.postId < 1 || comment.postId > log.highId()) {
+                throw new IllegalArgumentException("No such post: " + comment.postId);
+            }
+            commentWriter.submit(comment, callback);
+        } catch (InterruptedException | IllegalStateException | IllegalArgumentException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            System.err.println("ERROR: Comment was not saved. " + e.getMessage());
+            if (callback != null) callback.onComplete(comment, e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Concurrent in-memory post store used when no database is available.
+// - ids are assigned here, and posts are kept in a skip list ordered newest-first,
+//   so a page read is a seek plus "limit" steps no matter how many posts exist
+// - a secondary index per author supports per-author feeds the same way
+// - readers never lock or copy: they read up to the "visible" watermark, and every
+//   post at or below it is fully indexed, which gives each read a consistent snapshot
+public class MemoryStore {
+    private static final NavigableMap<Integer, BlogPost> EMPTY = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentSkipListMap<Integer, BlogPost> byId =
+            new ConcurrentSkipListMap<>(Collections.reverseOrder());
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Integer, BlogPost>> byAuthor =
+            new ConcurrentHashMap<>();
+    private final TimeIndex byCreated = new TimeIndex();
+    // Comments per post, oldest first (ascending comment id)
+    private final ConcurrentHashMap<Integer, ConcurrentSkipListMap<Integer, Comment>> comments =
+            new ConcurrentHashMap<>();
+
+    // Writers only serialize for id assignment + indexing (a few skip list inserts)
+    private final Object writeLock = new Object();
+    private int lastId = 0;
+    private volatile int visibleId = 0;
+    private int lastCommentId = 0;
+
+    public void addPost(BlogPost post) {
+        synchronized (writeLock) {
+            int id = ++lastId;
+            post.id = id;
+            byId.put(id, post);
+            byAuthor.computeIfAbsent(post.author.getUsername(),
+                    k -> new ConcurrentSkipListMap<>(Collections.reverseOrder())).put(id, post);
+            byCreated.add(post.timestamp, id);
+            visibleId = id; // Publish: readers can now see everything up to this id
+        }
+    }
+
+    public void addComment(Comment comment) {
+        synchronized (writeLock) {
+            comment.id = ++lastCommentId;
+            comments.computeIfAbsent(comment.postId, k -> new ConcurrentSkipListMap<>()).put(comment.id, comment);
+        }
+    }
+
+    // Oldest-first comments of a post with id > afterId (0 = from the first one)
+    public List<Comment> getComments(int postId, int afterId, int limit) {
+        List<Comment> page = new ArrayList<>();
+        ConcurrentSkipListMap<Integer, Comment> list = comments.get(postId);
+        if (list == null) return page;
+        for (Comment c : list.tailMap(afterId, false).values()) {
+            if (page.size() >= limit) break;
+            page.add(c);
+        }
+        return page;
+    }
+
+    public BlogPost getPost(int id) {
+        return id <= visibleId ? byId.get(id) : null;
+    }
+
+    public void addLikes(int id, long delta) {
+        BlogPost post = getPost(id);
+        if (post == null) return;
+        synchronized (post) {
+            post.likes += (int) delta;
+        }
+    }
+
+    public int size() {
+        return visibleId; // Posts are never deleted, so the watermark is the count
+    }
+
+    // Newest-first page of posts with id < beforeId (0 = start from the newest).
+    // Returns summary copies so callers never mutate the stored posts.
+    public List<BlogPost> getPostsBefore(int beforeId, int limit) {
+        return page(byId, beforeId, limit);
+    }
+
+    public List<BlogPost> getPostsByAuthor(String author, int beforeId, int limit) {
+        NavigableMap<Integer, BlogPost> index = byAuthor.get(author);
+        return page(index == null ? EMPTY : index, beforeId, limit);
+    }
+
+    // Oldest-first by (timestamp, id), created at or after sinceMillis (see IDataService)
+    public List<BlogPost> getPostsSince(long sinceMillis, long afterCreated, int afterId, int limit) {
+        List<BlogPost> page = new ArrayList<>();
+        for (int id : byCreated.idsSince(sinceMillis, afterCreated, afterId, limit, visibleId)) {
+            page.add(summaryOf(byId.get(id)));
+        }
+        return page;
+    }
+
+    // Oldest-first posts with id > afterId (used by the incremental sync)
+    public List<BlogPost> getPostsAfter(int afterId, int limit) {
+        List<BlogPost> page = new ArrayList<>();
+        int high = visibleId;
+        if (afterId >= high) return page;
+        // In the reversed map, ids in (afterId, high] are a sub-range; walk it upwards
+        for (BlogPost p : byId.subMap(high, true, afterId, false).descendingMap().values()) {
+            if (page.size() >= limit) break;
+            page.add(summaryOf(p));
+        }
+        return page;
+    }
+
+    // Stored posts with id > afterId in ascending id order (export). Walks the ids
+    // that exist rather than assuming they are contiguous.
+    public Iterable<BlogPost> postsAfter(int afterId) {
+        int high = visibleId;
+        if (afterId >= high) return Collections.emptyList();
+        return byId.subMap(high, true, afterId, false).descendingMap().values();
+    }
+
+    // Full copy, newest first; only for the legacy getAllPosts()
+    public List<BlogPost> getAllPosts() {
+        return new ArrayList<>(byId.tailMap(visibleId, true).values());
+    }
+
+    private List<BlogPost> page(NavigableMap<Integer, BlogPost> index, int beforeId, int limit) {
+        List<BlogPost> page = new ArrayList<>(Math.min(limit, 256));
+        int high = visibleId;
+        int from = beforeId > 0 ? Math.min(beforeId - 1, high) : high;
+        if (from <= 0) return page;
+        // Reversed order: tailMap(from) holds every id <= from, newest first
+        for (Map.Entry<Integer, BlogPost> e : index.tailMap(from, true).entrySet()) {
+            if (page.size() >= limit) break;
+            page.add(summaryOf(e.getValue()));
+        }
+        return page;
+    }
+
+    private static BlogPost summaryOf(BlogPost p) {
+        return BlogPost.summary(p);
+    }
+}
@@ -0,0 +1,115 @@
+package blog;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Process-wide metric registry. Every timer, distribution and counter is also published
+// as an MBean under "blog:type=...,name=..." so it shows up in JConsole / VisualVM.
+//
+// Names used by the app:
+//   data.<method>, data.all      IDataService latency as the UI sees it (InstrumentedDataService)
+//   jdbc.query, jdbc.borrow      one pooled unit of JDBC work / waiting for a connection
+//   jdbc.errors                  failed JDBC work units
+//   jdbc.batchSize, jdbc.likeBatchSize   rows per insert / like-flush batch
+//   log.commit, log.batchSize    local log group commits (fsync included) and posts per commit
+//   ui.feedRender                refreshFeed until the first page is painted
+//   ui.edtQueueDelay, sync.duration
+//   cache.posts.size, cache.pages.size   gauges
+//   db.offline, db.outbox.pending        gauges: circuit not closed / writes buffered for replay
+//   db.circuit.trips, db.circuit.rejected, db.reconnects   outage counters
+public final class Metrics {
+    private static final ConcurrentHashMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static volatile ScheduledExecutorService logger;
+
+    private Metrics() {
+    }
+
+    // Latency in nanoseconds
+    public static Histogram timer(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> register("Latency", n, new Histogram(true)));
+    }
+
+    // Distribution of plain values (batch sizes, row counts)
+    public static Histogram distribution(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> register("Distribution", n, new Histogram(false)));
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    // Replaces any earlier gauge of the same name
+    public static void gauge(String name, LongSupplier value) {
+        Counter g = new Counter(value);
+        Counter old = COUNTERS.put(name, g);
+        if (old != null) unregister("Gauge", name);
+        register("Gauge", name, g);
+    }
+
+    // Current value of a counter or gauge, or 0 if it does not exist
+    public static long value(String name) {
+        Counter c = COUNTERS.get(name);
+        return c == null ? 0 : c.getValue();
+    }
+
+    // Registered histogram, or null (does not create one)
+    public static Histogram find(String name) {
+        return HISTOGRAMS.get(name);
+    }
+
+    private static <T> T register(String type, String name, T mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName id = objectName(type, name);
+            if (server.isRegistered(id)) server.unregisterMBean(id);
+            server.registerMBean(mbean, id);
+        } catch (Exception | LinkageError e) {
+            // JMX is optional (e.g. restricted environments); metrics still work in-process
+            System.err.println("WARNING: Could not register MBean for " + name + ". " + e.getMessage());
+        }
+        return mbean;
+    }
+
+    private static void unregister(String type, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(type, name));
+        } catch (Exception e) {
+            // Not registered
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws Exception {
+        return new ObjectName("blog:type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    // Periodically prints every metric that has data (enable with -Dblog.metrics.logSeconds=60)
+    public static synchronized void startLogDump(long intervalSeconds) {
+        if (logger != null || intervalSeconds <= 0) return;
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> System.out.print(dump()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static String dump() {
+        StringBuilder sb = new StringBuilder("--- metrics ---\n");
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            if (e.getValue().getCount() > 0) sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Counter> e : new TreeMap<>(COUNTERS).entrySet()) {
+            sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,368 @@
+package blog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+// Durable queue of writes accepted while the database is down (posts, comments, like deltas).
+//
+// One append-only file: a 16-byte header (magic, format version, replay checkpoint) followed by
+//   [int length][int crc32][byte type][payload: length bytes]
+// Every append is fsynced before the caller is told the write was accepted. Once the database is
+// back, records are replayed in order, in batches of one type, and the checkpoint in the header is
+// advanced (and fsynced) after each committed batch; a crash mid-replay repeats at most one batch.
+// When everything has been replayed the file is cut back to its header.
+public class OfflineBuffer implements AutoCloseable {
+    private static final int MAGIC = 0x4F425546; // "OBUF"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int RECORD_HEADER = 9; // length + crc + type
+    private static final long CHECKPOINT_POS = 8;
+    private static final byte TYPE_POST = 1;
+    private static final byte TYPE_COMMENT = 2;
+    private static final byte TYPE_LIKES = 3;
+    // Column limits of the schema (characters): a write that cannot fit is refused up front
+    // instead of being accepted now and failing at replay
+    private static final int MAX_TITLE = 255;
+    private static final int MAX_AUTHOR = 50;
+
+    // Where replayed batches go; an outage error stops the replay. After any other error the batch
+    // is retried one record at a time and only the records that still fail are set aside.
+    public interface ReplaySink {
+        void posts(List<BlogPost> posts) throws SQLException;
+
+        void comments(List<Comment> comments) throws SQLException;
+
+        void likes(Map<Integer, Long> deltas) throws SQLException;
+    }
+
+    private final Path file;
+    private FileChannel channel; // Opened on the first append (or if there is something to replay)
+    private long end = HEADER;
+    private long replayed = HEADER;
+    private int pending = 0;
+
+    public OfflineBuffer(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file) && Files.size(file) > 0) open();
+    }
+
+    public synchronized int pending() {
+        return pending;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // --- Writes (each call is one fsync) ---
+
+    public synchronized void appendPosts(List<BlogPost> posts) throws IOException, SQLDataException {
+        List<byte[]> payloads = new ArrayList<>(posts.size());
+        for (BlogPost p : posts) {
+            checkLength("Title", p.title, MAX_TITLE);
+            checkLength("Author", p.author.getUsername(), MAX_AUTHOR);
+            byte[] title = utf8(p.title), content = utf8(p.content), author = utf8(p.author.getUsername());
+            ByteBuffer b = ByteBuffer.allocate(12 + 12 + size(title) + size(content) + size(author));
+            b.putLong(p.timestamp).putInt(p.likes);
+            putString(b, title);
+            putString(b, content);
+            putString(b, author);
+            payloads.add(b.array());
+        }
+        append(TYPE_POST, payloads);
+    }
+
+    public synchronized void appendComments(List<Comment> comments) throws IOException, SQLDataException {
+        List<byte[]> payloads = new ArrayList<>(comments.size());
+        for (Comment c : comments) {
+            checkLength("Author", c.author, MAX_AUTHOR);
+            byte[] author = utf8(c.author), body = utf8(c.body);
+            ByteBuffer b = ByteBuffer.allocate(12 + 8 + size(author) + size(body));
+            b.putInt(c.postId).putLong(c.timestamp);
+            putString(b, author);
+            putString(b, body);
+            payloads.add(b.array());
+        }
+        append(TYPE_COMMENT, payloads);
+    }
+
+    public synchronized void appendLikes(Map<Integer, Long> deltas) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(4 + deltas.size() * 12);
+        b.putInt(deltas.size());
+        for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+            b.putInt(d.getKey()).putLong(d.getValue());
+        }
+        List<byte[]> payloads = new ArrayList<>(1);
+        payloads.add(b.array());
+        append(TYPE_LIKES, payloads);
+    }
+
+    private void append(byte type, List<byte[]> payloads) throws IOException {
+        if (payloads.isEmpty()) return;
+        if (channel == null) open();
+        int total = 0;
+        for (byte[] p : payloads) total += RECORD_HEADER + p.length;
+        ByteBuffer out = ByteBuffer.allocate(total);
+        for (byte[] p : payloads) {
+            out.putInt(p.length).putInt(crc(type, p)).put(type).put(p);
+        }
+        out.flip();
+        try {
+            long pos = end;
+            while (out.hasRemaining()) pos += channel.write(out, pos);
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(end); // Nothing of this call counts as accepted
+            throw e;
+        }
+        end += total;
+        pending += payloads.size();
+    }
+
+    // --- Replay ---
+
+    // Replays everything appended so far (appends may continue meanwhile; call again for those).
+    // Returns the number of records replayed or set aside.
+    public int replay(ReplaySink sink, int batchSize) throws SQLException, IOException {
+        long from, to;
+        synchronized (this) {
+            if (channel == null || replayed >= end) return 0;
+            from = replayed;
+            to = end;
+        }
+
+        int done = 0;
+        long pos = from;
+        while (pos < to) {
+            // Read one batch: consecutive records of the same type
+            List<Object> batch = new ArrayList<>();
+            List<Long> starts = new ArrayList<>(); // Where each record of the batch begins
+            byte type = 0;
+            while (pos < to && batch.size() < batchSize) {
+                ByteBuffer header = read(pos, RECORD_HEADER);
+                byte t = header.get(8);
+                if (!batch.isEmpty() && t != type) break;
+                type = t;
+                int len = header.getInt(0);
+                batch.add(decode(t, read(pos + RECORD_HEADER, len)));
+                starts.add(pos);
+                pos += RECORD_HEADER + len;
+            }
+
+            try {
+                apply(sink, type, batch);
+                checkpoint(pos, batch.size());
+            } catch (SQLException e) {
+                if (CircuitBreaker.isOutage(e)) throw e; // Keep it; retried after the next reconnect
+                replayOneByOne(sink, type, batch, starts, pos);
+            }
+            done += batch.size();
+        }
+        return done;
+    }
+
+    // A refused batch: one record per call, so the records that do fit (often other users'
+    // writes) go in and only the ones the database refuses are set aside. Checkpointed per
+    // record, so an outage in between repeats nothing that was committed.
+    private void replayOneByOne(ReplaySink sink, byte type, List<Object> batch, List<Long> starts, long batchEnd)
+            throws SQLException, IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            long recordEnd = i + 1 < starts.size() ? starts.get(i + 1) : batchEnd;
+            try {
+                apply(sink, type, Collections.singletonList(batch.get(i)));
+            } catch (SQLException e) {
+                if (CircuitBreaker.isOutage(e)) throw e;
+                setAside(starts.get(i), recordEnd, e);
+            }
+            checkpoint(recordEnd, 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void apply(ReplaySink sink, byte type, List<Object> batch) throws SQLException {
+        if (type == TYPE_POST) {
+            sink.posts((List<BlogPost>) (List<?>) batch);
+        } else if (type == TYPE_COMMENT) {
+            sink.comments((List<Comment>) (List<?>) batch);
+        } else {
+            // Like deltas just add up, so the records of a batch merge into one flush
+            Map<Integer, Long> merged = new TreeMap<>();
+            for (Object o : batch) {
+                for (Map.Entry<Integer, Long> d : ((Map<Integer, Long>) o).entrySet()) {
+                    merged.merge(d.getKey(), d.getValue(), Long::sum);
+                }
+            }
+            sink.likes(merged);
+        }
+    }
+
+    private synchronized void checkpoint(long pos, int records) throws IOException {
+        replayed = pos;
+        pending -= records;
+        if (replayed >= end) {
+            // Fully replayed: start over with an empty file
+            channel.truncate(HEADER);
+            end = HEADER;
+            replayed = HEADER;
+            pending = 0;
+        }
+        ByteBuffer b = ByteBuffer.allocate(8);
+        b.putLong(0, replayed);
+        channel.write(b, CHECKPOINT_POS);
+        channel.force(false);
+    }
+
+    // Records the database refuses (not an outage) are copied to FILE.rejected instead of being dropped
+    private void setAside(long from, long to, SQLException e) throws IOException {
+        Path rejected = file.resolveSibling(file.getFileName() + ".rejected");
+        System.err.println("WARNING: Could not replay a buffered write, moved it to " + rejected + ". " + e.getMessage());
+        ByteBuffer records = read(from, (int) (to - from));
+        try (FileChannel out = FileChannel.open(rejected,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (records.hasRemaining()) out.write(records);
+            out.force(false);
+        }
+    }
+
+    // --- File handling ---
+
+    // Creates the file, or reads the checkpoint and counts what is still to replay.
+    // Everything from the first torn or corrupt record on is cut off.
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER) {
+            ByteBuffer h = ByteBuffer.allocate(HEADER);
+            h.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(HEADER).flip();
+            channel.truncate(0);
+            channel.write(h, 0);
+            channel.force(false);
+            return;
+        }
+
+        ByteBuffer h = read(0, HEADER);
+        if (h.getInt(0) != MAGIC || h.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            channel = null;
+            throw new IOException("Not an offline buffer: " + file);
+        }
+        replayed = Math.max(HEADER, Math.min(h.getLong(8), size));
+
+        long pos = HEADER;
+        int count = 0;
+        while (pos + RECORD_HEADER <= size) {
+            ByteBuffer rh = read(pos, RECORD_HEADER);
+            int len = rh.getInt(0);
+            if (len < 0 || pos + RECORD_HEADER + len > size) break;
+            ByteBuffer payload = read(pos + RECORD_HEADER, len);
+            if (rh.getInt(4) != crc(rh.get(8), payload.array())) break;
+            pos += RECORD_HEADER + len;
+            if (pos > replayed) count++;
+        }
+        if (pos < size) {
+            System.err.println("WARNING: Truncating torn write at offset " + pos + " in " + file.getFileName());
+            channel.truncate(pos);
+            channel.force(false);
+        }
+        end = pos;
+        pending = count;
+        if (pending > 0) System.out.println("Offline buffer: " + pending + " write(s) waiting to be replayed.");
+    }
+
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len);
+        while (b.hasRemaining()) {
+            if (channel.read(b, pos + b.position()) < 0) throw new IOException("Unexpected end of " + file);
+        }
+        b.flip();
+        return b;
+    }
+
+    private static Object decode(byte type, ByteBuffer b) {
+        if (type == TYPE_POST) {
+            long created = b.getLong();
+            int likes = b.getInt();
+            String title = getString(b);
+            String content = getString(b);
+            BlogPost p = new BlogPost(title, content, UserRegistry.author(getString(b)));
+            p.timestamp = created;
+            p.likes = likes;
+            return p;
+        }
+        if (type == TYPE_COMMENT) {
+            int postId = b.getInt();
+            long created = b.getLong();
+            Comment c = new Comment(postId, getString(b), getString(b));
+            c.timestamp = created;
+            return c;
+        }
+        Map<Integer, Long> deltas = new TreeMap<>();
+        int n = b.getInt();
+        for (int i = 0; i < n; i++) deltas.put(b.getInt(), b.getLong());
+        return deltas;
+    }
+
+    // Same message and SQL state ("string data, right truncation") as the database would give
+    private static void checkLength(String what, String s, int max) throws SQLDataException {
+        if (s != null && s.codePointCount(0, s.length()) > max) {
+            throw new SQLDataException(what + " longer than " + max + " characters", "22001");
+        }
+    }
+
+    // Strings are stored as [int length][UTF-8 bytes]; null is length -1
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] s) {
+        return s == null ? 0 : s.length;
+    }
+
+    private static void putString(ByteBuffer b, byte[] s) {
+        if (s == null) {
+            b.putInt(-1);
+        } else {
+            b.putInt(s.length).put(s);
+        }
+    }
+
+    private static String getString(ByteBuffer b) {
+        int len = b.getInt();
+        if (len < 0) return null;
+        byte[] s = new byte[len];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,36 @@
+package blog;
+
+// Point-in-time snapshot of ConnectionPool usage
+public class PoolStats {
+    public final int maxSize;
+    public final int active;
+    public final int idle;
+    public final int waiting;
+    public final long borrows;
+    public final long timeouts;
+    public final double avgWaitMillis;
+    public final double maxWaitMillis;
+    public final long statementCacheHits;
+    public final long statementCacheMisses;
+
+    public PoolStats(int maxSize, int active, int idle, int waiting, long borrows, long timeouts,
+                     double avgWaitMillis, double maxWaitMillis, long statementCacheHits, long statementCacheMisses) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.borrows = borrows;
+        this.timeouts = timeouts;
+        this.avgWaitMillis = avgWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[active=%d idle=%d max=%d waiting=%d borrows=%d timeouts=%d avgWait=%.2fms maxWait=%.2fms stmtCache=%d/%d]",
+                active, idle, maxSize, waiting, borrows, timeouts, avgWaitMillis, maxWaitMillis,
+                statementCacheHits, statementCacheHits + statementCacheMisses);
+    }
+}
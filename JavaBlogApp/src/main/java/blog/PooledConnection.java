@@ -0,0 +1,90 @@
+package blog;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A pooled JDBC connection. close() returns it to the pool instead of closing the socket.
+// Prepared statements are cached per connection and must NOT be closed by callers.
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    final Connection raw;
+    private final Map<String, PreparedStatement> statements;
+    volatile long lastUsed = System.currentTimeMillis();
+    private boolean broken = false;
+
+    PooledConnection(ConnectionPool pool, Connection raw, int cacheSize) {
+        this.pool = pool;
+        this.raw = raw;
+        // LRU cache: the least recently used statement is closed once the cache is full
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= cacheSize) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return cached(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepareWithKeys(String sql) throws SQLException {
+        return cached(sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    private PreparedStatement cached(String sql, int keys) throws SQLException {
+        String key = keys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement ps = statements.get(key);
+        if (ps != null && !ps.isClosed()) {
+            pool.statementHits.increment();
+            ps.clearParameters();
+            return ps;
+        }
+        pool.statementMisses.increment();
+        ps = raw.prepareStatement(sql, keys);
+        statements.put(key, ps);
+        return ps;
+    }
+
+    // Plain statements (DDL etc.) are not cached; close them as usual
+    public Statement createStatement() throws SQLException {
+        return raw.createStatement();
+    }
+
+    // For transaction control (setAutoCommit / commit / rollback)
+    public Connection getConnection() {
+        return raw;
+    }
+
+    public void markBroken() {
+        broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void closeQuietly() {
+        for (PreparedStatement ps : statements.values()) closeQuietly(ps);
+        statements.clear();
+        try {
+            raw.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
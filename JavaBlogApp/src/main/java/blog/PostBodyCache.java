@@ -0,0 +1,50 @@
+package blog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small LRU cache of recently opened post bodies (post id -> content), bounded by the total
+// number of characters rather than by entries. Bodies above maxEntryChars are never cached, so one
+// huge post cannot push out everything else. Posts are never edited, so entries cannot go stale.
+public class PostBodyCache {
+    private final Map<Integer, String> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxChars;
+    private final int maxEntryChars;
+    private long chars = 0;
+
+    public PostBodyCache(long maxChars, int maxEntryChars) {
+        this.maxChars = maxChars;
+        this.maxEntryChars = maxEntryChars;
+    }
+
+    // Whether a body of this length would be kept
+    public boolean accepts(long length) {
+        return length <= maxEntryChars;
+    }
+
+    public synchronized String get(int postId) {
+        return bodies.get(postId);
+    }
+
+    public synchronized void put(int postId, String content) {
+        if (content == null || !accepts(content.length())) return;
+        String old = bodies.put(postId, content);
+        chars += content.length() - (old == null ? 0 : old.length());
+
+        // Least recently used first
+        Iterator<String> it = bodies.values().iterator();
+        while (chars > maxChars && it.hasNext()) {
+            chars -= it.next().length();
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return bodies.size();
+    }
+
+    public synchronized long chars() {
+        return chars;
+    }
+}
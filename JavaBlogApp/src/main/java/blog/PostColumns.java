@@ -0,0 +1,101 @@
+package blog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Columnar, primitive-array-backed list of post summaries (the feed's row storage).
+// Each field lives in its own array, so a row costs a few array slots instead of a BlogPost
+// object; authors are shared UserRegistry instances. Rows are materialized on demand,
+// which in a JList means only for the rows being painted. Not thread-safe.
+public class PostColumns {
+    private int[] ids;
+    private int[] likes;
+    private long[] timestamps;
+    private String[] titles;
+    private User[] authors;
+    private int size = 0;
+
+    public PostColumns(int capacity) {
+        int n = Math.max(capacity, 8);
+        ids = new int[n];
+        likes = new int[n];
+        timestamps = new long[n];
+        titles = new String[n];
+        authors = new User[n];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public int likes(int index) {
+        return likes[index];
+    }
+
+    public void setLikes(int index, int count) {
+        likes[index] = count;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    // A fresh summary copy of one row
+    public BlogPost get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        BlogPost p = BlogPost.summary(ids[index], titles[index], authors[index], likes[index]);
+        p.timestamp = timestamps[index];
+        return p;
+    }
+
+    public void add(BlogPost post) {
+        insert(size, post);
+    }
+
+    public void insert(int index, BlogPost post) {
+        insertAll(index, Collections.singletonList(post));
+    }
+
+    // Inserts a run of posts at one position with a single shift of the rows below it
+    public void insertAll(int index, List<BlogPost> posts) {
+        int n = posts.size();
+        while (size + n > ids.length) grow();
+        int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(ids, index, ids, index + n, tail);
+            System.arraycopy(likes, index, likes, index + n, tail);
+            System.arraycopy(timestamps, index, timestamps, index + n, tail);
+            System.arraycopy(titles, index, titles, index + n, tail);
+            System.arraycopy(authors, index, authors, index + n, tail);
+        }
+        for (int i = 0; i < n; i++) {
+            BlogPost post = posts.get(i);
+            ids[index + i] = post.id;
+            likes[index + i] = post.likes;
+            timestamps[index + i] = post.timestamp;
+            titles[index + i] = post.title;
+            authors[index + i] = post.author; // Already shared when it came from the data layer (UserRegistry)
+        }
+        size += n;
+    }
+
+    public void clear() {
+        Arrays.fill(titles, 0, size, null); // Let the strings go
+        Arrays.fill(authors, 0, size, null);
+        size = 0;
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        likes = Arrays.copyOf(likes, n);
+        timestamps = Arrays.copyOf(timestamps, n);
+        titles = Arrays.copyOf(titles, n);
+        authors = Arrays.copyOf(authors, n);
+    }
+}
@@ -0,0 +1,813 @@
+package blog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.zip.CRC32;
+
+// Append-only post log: the storage engine behind LogDataService.
+//
+// The log is a directory of memory-mapped segment files (seg-00000001.log, ...; a compacted
+// segment is written under a new generation name, seg-00000001.1.log, ...). Each segment
+// starts with an 8-byte header (magic, format version) followed by records:
+//   [int length][int crc32][byte type][payload: length bytes]
+// The CRC covers type + payload, and a zero length marks the end of the written data.
+// Only the newest segment is appended to; older ones are sealed and mapped read-only.
+//
+// Opening the log maps every segment and walks the record headers to rebuild the in-memory
+// indexes (id -> location, likes, timestamps, authors, comments); records are only decoded when read.
+// Records in the newest segment are CRC-checked and the log is cut at the first torn write.
+public class PostLog {
+    private static final int MAGIC = 0x424C4F47; // "BLOG"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int RECORD_HEADER = 9; // length + crc + type
+    private static final byte TYPE_POST = 1;
+    private static final byte TYPE_LIKES = 2;
+    private static final byte TYPE_COMMENT = 3;
+    private static final String TMP_SUFFIX = ".compact";
+
+    // Post payload: id, created, likes, then title/author/content strings
+    private static final int POST_ID = 0;
+    private static final int POST_CREATED = 4;
+    private static final int POST_LIKES = 12;
+    private static final int POST_STRINGS = 16;
+
+    // Comment payload: comment id, post id, created, then author/body strings
+    private static final int COMMENT_ID = 0;
+    private static final int COMMENT_POST = 4;
+    private static final int COMMENT_CREATED = 8;
+    private static final int COMMENT_STRINGS = 16;
+
+    private static final class Segment {
+        final int handle;       // Unique per mapping: locations point at a handle, so compaction can swap files
+        final int number;
+        final Path file;
+        final MappedByteBuffer buffer;
+        final FileChannel channel; // Only kept open for the active segment
+        int end;                // First byte after the last record
+        int likesRecords;
+        int likesBytes;
+
+        Segment(int handle, int number, Path file, MappedByteBuffer buffer, FileChannel channel) {
+            this.handle = handle;
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+            this.channel = channel;
+        }
+    }
+
+    // Ids of one author (or the comments of one post) in ascending order (single writer, snapshot readers)
+    private static final class IdList {
+        private int[] ids = new int[8];
+        private int size = 0;
+
+        synchronized void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        synchronized int[] snapshot() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        // Up to "limit" ids greater than afterId, without copying the whole list
+        synchronized int[] after(int afterId, int limit) {
+            int from = Arrays.binarySearch(ids, 0, size, afterId);
+            from = from >= 0 ? from + 1 : -from - 1;
+            return Arrays.copyOfRange(ids, from, Math.min(size, from + Math.max(limit, 0)));
+        }
+    }
+
+    private final Path dir;
+    private final int segmentSize;
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, IdList> byAuthor = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, IdList> commentsByPost = new ConcurrentHashMap<>();
+    private final ExecutorService compactor;
+    private final Object appendLock = new Object();
+    private int nextHandle = 1;
+    private Segment active;
+
+    // Indexed by post id. Only the appender replaces or writes them (under appendLock);
+    // readers load highId first, which publishes everything below it.
+    private volatile long[] locations = new long[1024];
+    private volatile long[] created = new long[1024];
+    private volatile AtomicIntegerArray likes = new AtomicIntegerArray(1024);
+    private volatile int highId = 0;
+
+    // Indexed by comment id; a comment is visible once its id is in commentsByPost
+    private volatile long[] commentLocations = new long[1024];
+    private int highCommentId = 0;
+
+    public PostLog(Path dir, int segmentSize) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(dir);
+
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "log-compactor");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        // 1. Find the segments: drop any half-written compaction output, and of each segment
+        // keep only the newest generation (an older one is left behind when its delete failed)
+        Map<Integer, Path> newest = new HashMap<>();
+        List<Path> superseded = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "seg-*")) {
+            for (Path p : ds) {
+                if (p.getFileName().toString().endsWith(TMP_SUFFIX)) {
+                    Files.delete(p);
+                    continue;
+                }
+                Path other = newest.get(numberOf(p));
+                if (other == null || generationOf(p) > generationOf(other)) {
+                    if (other != null) superseded.add(other);
+                    newest.put(numberOf(p), p);
+                } else {
+                    superseded.add(p);
+                }
+            }
+        }
+        for (Path p : superseded) deleteIfUnused(p);
+        List<Path> files = new ArrayList<>(newest.values());
+        files.sort((a, b) -> Integer.compare(numberOf(a), numberOf(b)));
+
+        // 2. Map and index them in order; the newest one stays writable
+        synchronized (appendLock) {
+            for (int i = 0; i < files.size(); i++) {
+                boolean last = i == files.size() - 1;
+                Segment s = last ? openActive(files.get(i)) : openSealed(files.get(i));
+                segments.put(s.handle, s);
+                load(s, last);
+                if (last) active = s;
+                else if (worthCompacting(s)) scheduleCompaction(s);
+            }
+            if (active == null) {
+                active = createSegment(1);
+                segments.put(active.handle, active);
+            }
+        }
+    }
+
+    public int highId() {
+        return highId;
+    }
+
+    // Number of posts (ids are dense, and posts are never deleted)
+    public int size() {
+        return highId;
+    }
+
+    // --- Writes ---
+
+    // Group commit: appends every post of the batch, then makes them durable with a single fsync.
+    // Ids are assigned here and the posts only become visible once they are on disk.
+    public void appendPosts(List<BlogPost> posts) throws IOException {
+        synchronized (appendLock) {
+            byte[][] payloads = new byte[posts.size()][];
+            int total = 0;
+            for (int i = 0; i < posts.size(); i++) {
+                payloads[i] = encodePost(highId + 1 + i, posts.get(i));
+                total += RECORD_HEADER + payloads[i].length;
+            }
+            // Start a fresh segment rather than splitting the batch, unless it is bigger than one
+            if (!fits(total) && FILE_HEADER + total + 4 <= segmentSize) roll();
+
+            int from = 0;
+            while (from < posts.size()) {
+                from = appendChunk(posts, payloads, from);
+            }
+        }
+    }
+
+    // Writes as many records as fit in the active segment, fsyncs once and publishes them
+    private int appendChunk(List<BlogPost> posts, byte[][] payloads, int from) throws IOException {
+        if (!fits(RECORD_HEADER + payloads[from].length)) roll();
+        if (!fits(RECORD_HEADER + payloads[from].length)) {
+            throw new IOException("Post of " + payloads[from].length + " bytes does not fit in a segment");
+        }
+        int startEnd = active.end;
+        List<Long> locs = new ArrayList<>();
+        try {
+            for (int i = from; i < posts.size() && fits(RECORD_HEADER + payloads[i].length); i++) {
+                locs.add(append(TYPE_POST, payloads[i]));
+            }
+            active.buffer.force();
+        } catch (IOException | RuntimeException e) {
+            // Nothing from this chunk was published; wipe it so recovery can't resurrect it
+            zero(active, startEnd, active.end);
+            active.end = startEnd;
+            throw e;
+        }
+
+        int id = highId;
+        for (int i = 0; i < locs.size(); i++) {
+            BlogPost post = posts.get(from + i);
+            post.id = ++id;
+            index(post.id, locs.get(i), post.likes, post.timestamp, post.author.getUsername());
+        }
+        highId = id;
+        return from + locs.size();
+    }
+
+    // Persists one like-flush as a single record (post id -> delta pairs), then fsyncs
+    public void appendLikes(Map<Integer, Long> deltas) throws IOException {
+        appendLikes(deltas, LikeCounter.DIRECT);
+    }
+
+    // As above; publish wraps the in-memory update, the point where reads start to see the deltas
+    public void appendLikes(Map<Integer, Long> deltas, LikeCounter.Publisher publish) throws IOException {
+        synchronized (appendLock) {
+            ByteBuffer payload = ByteBuffer.allocate(4 + deltas.size() * 8);
+            payload.putInt(deltas.size());
+            for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                payload.putInt(d.getKey()).putInt((int) (long) d.getValue());
+            }
+            if (!fits(RECORD_HEADER + payload.capacity())) roll();
+            append(TYPE_LIKES, payload.array());
+            active.buffer.force();
+
+            publish.run(() -> {
+                for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                    int postId = d.getKey();
+                    if (postId > 0 && postId <= highId) likes.addAndGet(postId, (int) (long) d.getValue());
+                }
+            });
+        }
+    }
+
+    // Appends a batch of comments with one fsync. Comment ids are assigned here; the batch
+    // always lands in a single segment, so a failure leaves nothing half-written behind.
+    public void appendComments(List<Comment> comments) throws IOException {
+        synchronized (appendLock) {
+            byte[][] payloads = new byte[comments.size()][];
+            int total = 0;
+            for (int i = 0; i < comments.size(); i++) {
+                Comment c = comments.get(i);
+                if (c.postId <= 0 || c.postId > highId) throw new IOException("No such post: " + c.postId);
+                payloads[i] = encodeComment(highCommentId + 1 + i, c);
+                total += RECORD_HEADER + payloads[i].length;
+            }
+            if (!fits(total)) roll();
+            if (!fits(total)) throw new IOException("Batch of " + total + " bytes of comments does not fit in a segment");
+
+            int startEnd = active.end;
+            long[] locs = new long[comments.size()];
+            try {
+                for (int i = 0; i < payloads.length; i++) locs[i] = append(TYPE_COMMENT, payloads[i]);
+                active.buffer.force();
+            } catch (IOException | RuntimeException e) {
+                zero(active, startEnd, active.end);
+                active.end = startEnd;
+                throw e;
+            }
+
+            for (int i = 0; i < locs.length; i++) {
+                Comment c = comments.get(i);
+                c.id = ++highCommentId;
+                indexComment(c.id, c.postId, locs[i]);
+            }
+        }
+    }
+
+    // Room for a record of "size" bytes plus the 4-byte zero end marker
+    private boolean fits(int size) {
+        return active.end + size + 4 <= active.buffer.capacity();
+    }
+
+    private long append(byte type, byte[] payload) throws IOException {
+        int size = RECORD_HEADER + payload.length;
+        if (!fits(size)) throw new IOException("Record of " + size + " bytes does not fit in a segment");
+
+        int pos = active.end;
+        ByteBuffer b = active.buffer.duplicate();
+        b.position(pos);
+        b.putInt(payload.length).putInt(crc(type, payload, 0, payload.length)).put(type).put(payload);
+        active.end = pos + size;
+        if (type == TYPE_LIKES) {
+            active.likesRecords++;
+            active.likesBytes += size;
+        }
+        return location(active.handle, pos);
+    }
+
+    // Seals the active segment and starts the next one
+    private void roll() throws IOException {
+        Segment sealed = active;
+        sealed.buffer.force();
+        active = createSegment(sealed.number + 1);
+        segments.put(active.handle, active);
+        sealed.channel.close(); // The mapping stays valid
+        if (worthCompacting(sealed)) scheduleCompaction(sealed);
+    }
+
+    // --- Reads ---
+
+    // Summary (no content) with the persisted like count; null if the id is unknown
+    public BlogPost readSummary(int id) {
+        return read(id, false);
+    }
+
+    // Full post; null if the id is unknown or its record fails the CRC check
+    public BlogPost readPost(int id) {
+        return read(id, true);
+    }
+
+    // Decodes the body straight out of the mapped segment, chunkChars characters at a time,
+    // so no String (or byte[]) of the whole body is ever built. False if the id is unknown
+    // or the record fails its checksum.
+    public boolean streamContent(int id, int chunkChars, ContentVisitor visitor) throws IOException {
+        if (id <= 0 || id > highId) return false;
+        while (true) {
+            long loc = locations[id];
+            if (loc == 0) return false;
+            Segment s = segments.get(handleOf(loc));
+            if (s == null) continue; // Compaction swapped the segment in between; re-read the location
+
+            ByteBuffer b = s.buffer.duplicate();
+            int pos = offsetOf(loc);
+            int len = b.getInt(pos);
+            if (b.getInt(pos + 4) != crc(b, pos + 8, len + 1)) {
+                System.err.println("ERROR: Post " + id + " failed its checksum in " + s.file.getFileName());
+                return false;
+            }
+            b.position(pos + RECORD_HEADER + POST_STRINGS);
+            skipString(b); // title
+            skipString(b); // author
+            int contentLen = b.getInt();
+            if (contentLen < 0) return true; // null body
+            b.limit(b.position() + contentLen);
+
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer out = CharBuffer.allocate(Math.max(chunkChars, 2)); // Room for a surrogate pair
+            boolean done = false;
+            while (!done) {
+                CoderResult r = decoder.decode(b, out, true);
+                if (r.isUnderflow()) {
+                    decoder.flush(out);
+                    done = true;
+                }
+                if (out.position() > 0 && (done || r.isOverflow())) {
+                    if (!visitor.chunk(out.array(), out.position())) return true;
+                    out.clear();
+                }
+            }
+            return true;
+        }
+    }
+
+    public int likes(int id) {
+        return id > 0 && id <= highId ? likes.get(id) : 0;
+    }
+
+    public long createdAt(int id) {
+        return id > 0 && id <= highId ? created[id] : 0;
+    }
+
+    // Ids of the author's posts, ascending
+    public int[] idsByAuthor(String author) {
+        IdList list = byAuthor.get(author);
+        return list == null ? new int[0] : list.snapshot();
+    }
+
+    // Oldest-first comments of a post with id > afterId
+    public List<Comment> comments(int postId, int afterId, int limit) {
+        List<Comment> page = new ArrayList<>();
+        IdList list = commentsByPost.get(postId);
+        if (list == null) return page;
+        for (int commentId : list.after(afterId, limit)) {
+            Comment c = readComment(commentId);
+            if (c != null) page.add(c);
+        }
+        return page;
+    }
+
+    private Comment readComment(int commentId) {
+        while (true) {
+            long loc = commentLocations[commentId];
+            Segment s = segments.get(handleOf(loc));
+            if (s == null) continue; // Moved by compaction; re-read the location
+
+            ByteBuffer b = s.buffer.duplicate();
+            int pos = offsetOf(loc);
+            int len = b.getInt(pos);
+            if (b.getInt(pos + 4) != crc(b, pos + 8, len + 1)) {
+                System.err.println("ERROR: Comment " + commentId + " failed its checksum in " + s.file.getFileName());
+                return null;
+            }
+            int payload = pos + RECORD_HEADER;
+            b.position(payload + COMMENT_STRINGS);
+            Comment c = new Comment(b.getInt(payload + COMMENT_POST), readString(b), readString(b));
+            c.id = commentId;
+            c.timestamp = b.getLong(payload + COMMENT_CREATED);
+            return c;
+        }
+    }
+
+    private BlogPost read(int id, boolean withContent) {
+        if (id <= 0 || id > highId) return null;
+        while (true) {
+            long loc = locations[id];
+            if (loc == 0) return null;
+            Segment s = segments.get(handleOf(loc));
+            if (s == null) continue; // Compaction swapped the segment in between; re-read the location
+
+            ByteBuffer b = s.buffer.duplicate();
+            int pos = offsetOf(loc);
+            int len = b.getInt(pos);
+            if (withContent && b.getInt(pos + 4) != crc(b, pos + 8, len + 1)) {
+                System.err.println("ERROR: Post " + id + " failed its checksum in " + s.file.getFileName());
+                return null;
+            }
+
+            b.position(pos + RECORD_HEADER + POST_STRINGS);
+            String title = readString(b);
+            String author = readString(b);
+            BlogPost post = withContent
+                    ? new BlogPost(title, readString(b), UserRegistry.author(author))
+                    : BlogPost.summary(id, title, UserRegistry.author(author), 0);
+            post.id = id;
+            post.likes = likes.get(id);
+            post.timestamp = created[id];
+            return post;
+        }
+    }
+
+    // --- Recovery ---
+
+    private Segment openActive(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(segmentSize, ch.size());
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new Segment(nextHandle++, numberOf(file), file, buf, ch);
+    }
+
+    private Segment openSealed(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new Segment(nextHandle++, numberOf(file), file, buf, null);
+        }
+    }
+
+    private Segment createSegment(int number) throws IOException {
+        Path file = dir.resolve(String.format("seg-%08d.log", number));
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buf.putInt(0, MAGIC).putInt(4, FORMAT_VERSION);
+        buf.force();
+        Segment s = new Segment(nextHandle++, number, file, buf, ch);
+        s.end = FILE_HEADER;
+        return s;
+    }
+
+    // Walks the records of one segment and indexes them. In the active segment every record
+    // is CRC-checked, and everything from the first bad one on is zeroed (a torn write).
+    private void load(Segment s, boolean verify) throws IOException {
+        ByteBuffer b = s.buffer.duplicate();
+        if (b.capacity() < FILE_HEADER || b.getInt(0) != MAGIC || b.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a post log segment: " + s.file);
+        }
+
+        int pos = FILE_HEADER;
+        while (pos + RECORD_HEADER <= b.capacity()) {
+            int len = b.getInt(pos);
+            if (len == 0) break;
+            boolean valid = len > 0 && pos + RECORD_HEADER + len <= b.capacity()
+                    && (!verify || b.getInt(pos + 4) == crc(b, pos + 8, len + 1));
+            if (!valid) {
+                if (!verify) throw new IOException("Corrupt record at " + pos + " in sealed segment " + s.file);
+                System.err.println("WARNING: Truncating torn write at offset " + pos + " in " + s.file.getFileName());
+                zero(s, pos, b.capacity());
+                s.buffer.force();
+                break;
+            }
+
+            int payload = pos + RECORD_HEADER;
+            byte type = b.get(pos + 8);
+            if (type == TYPE_POST) {
+                b.position(payload + POST_STRINGS);
+                readString(b); // title
+                String author = readString(b);
+                int id = b.getInt(payload + POST_ID);
+                index(id, location(s.handle, pos), b.getInt(payload + POST_LIKES),
+                        b.getLong(payload + POST_CREATED), author);
+                if (id > highId) highId = id;
+            } else if (type == TYPE_COMMENT) {
+                int commentId = b.getInt(payload + COMMENT_ID);
+                indexComment(commentId, b.getInt(payload + COMMENT_POST), location(s.handle, pos));
+                if (commentId > highCommentId) highCommentId = commentId;
+            } else {
+                int n = b.getInt(payload);
+                for (int i = 0; i < n; i++) {
+                    int postId = b.getInt(payload + 4 + i * 8);
+                    if (postId > 0 && postId <= highId) likes.addAndGet(postId, b.getInt(payload + 8 + i * 8));
+                }
+                s.likesRecords++;
+                s.likesBytes += RECORD_HEADER + len;
+            }
+            pos += RECORD_HEADER + len;
+        }
+        s.end = pos;
+    }
+
+    // --- Compaction ---
+
+    // A sealed segment is rewritten once most of its like records can be folded away
+    private static boolean worthCompacting(Segment s) {
+        return s.likesRecords > 1 && s.likesBytes * 4L > s.end;
+    }
+
+    private void scheduleCompaction(Segment s) {
+        compactor.execute(() -> {
+            try {
+                compact(s);
+            } catch (IOException e) {
+                System.err.println("WARNING: Compaction of " + s.file.getFileName() + " failed. " + e.getMessage());
+            }
+        });
+    }
+
+    // Rewrites one sealed segment: like deltas for posts stored in it are folded into their
+    // post records, the rest are merged into one like record, and the zero padding is dropped.
+    // The result is equivalent to the original, so readers may use either file. It gets a new
+    // generation name, so nothing is ever renamed over a file that is still mapped (Windows
+    // refuses that); readers are moved to it, then the old file is deleted if the OS allows.
+    private void compact(Segment s) throws IOException {
+        ByteBuffer b = s.buffer.duplicate();
+
+        // 1. Sum the deltas in this segment
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (int pos = FILE_HEADER; pos < s.end; pos += RECORD_HEADER + b.getInt(pos)) {
+            if (b.get(pos + 8) != TYPE_LIKES) continue;
+            int payload = pos + RECORD_HEADER;
+            int n = b.getInt(payload);
+            for (int i = 0; i < n; i++) {
+                deltas.merge(b.getInt(payload + 4 + i * 8), (long) b.getInt(payload + 8 + i * 8), Long::sum);
+            }
+        }
+
+        // 2. Write the new file next to the old one
+        Path target = dir.resolve(String.format("seg-%08d.%d.log", s.number, generationOf(s.file) + 1));
+        Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+        Map<Integer, Integer> moved = new HashMap<>(); // post id -> new offset
+        Map<Integer, Integer> movedComments = new HashMap<>(); // comment id -> new offset
+        int outPos;
+        int likesRecords = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            out.write(header);
+            outPos = FILE_HEADER;
+
+            for (int pos = FILE_HEADER; pos < s.end; pos += RECORD_HEADER + b.getInt(pos)) {
+                byte type = b.get(pos + 8);
+                if (type == TYPE_LIKES) continue;
+                int len = b.getInt(pos);
+                byte[] payload = new byte[len];
+                ByteBuffer src = b.duplicate();
+                src.position(pos + RECORD_HEADER);
+                src.get(payload);
+
+                ByteBuffer p = ByteBuffer.wrap(payload);
+                if (type == TYPE_COMMENT) {
+                    outPos += writeRecord(out, TYPE_COMMENT, payload);
+                    movedComments.put(p.getInt(COMMENT_ID), outPos - RECORD_HEADER - len);
+                    continue;
+                }
+                int id = p.getInt(POST_ID);
+                Long folded = deltas.remove(id);
+                if (folded != null) p.putInt(POST_LIKES, p.getInt(POST_LIKES) + (int) (long) folded);
+
+                outPos += writeRecord(out, TYPE_POST, payload);
+                moved.put(id, outPos - RECORD_HEADER - len);
+            }
+
+            if (!deltas.isEmpty()) {
+                ByteBuffer rest = ByteBuffer.allocate(4 + deltas.size() * 8).putInt(deltas.size());
+                for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+                    rest.putInt(d.getKey()).putInt((int) (long) d.getValue());
+                }
+                outPos += writeRecord(out, TYPE_LIKES, rest.array());
+                likesRecords = 1;
+            }
+            out.force(true);
+        }
+
+        // 3. Give it its final name (not mapped yet, so this works everywhere). A crash before
+        // this leaves a .compact file, dropped on open; after it, open prefers the new generation.
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        // 4. Point the index at a mapping of the new file
+        Segment fresh;
+        synchronized (appendLock) {
+            fresh = openSealed(target);
+            fresh.end = outPos;
+            fresh.likesRecords = likesRecords;
+            for (Map.Entry<Integer, Integer> m : moved.entrySet()) {
+                int id = m.getKey();
+                locations[id] = location(fresh.handle, m.getValue());
+            }
+            for (Map.Entry<Integer, Integer> m : movedComments.entrySet()) {
+                commentLocations[m.getKey()] = location(fresh.handle, m.getValue());
+            }
+            segments.put(fresh.handle, fresh);
+            segments.remove(s.handle);
+        }
+
+        // 5. The old mapping is released once no reader holds it; until then some systems keep
+        // the file, and the next open deletes it
+        deleteIfUnused(s.file);
+        System.out.println("Compacted " + s.file.getFileName() + " into " + target.getFileName()
+                + ": " + s.end + " -> " + fresh.end + " bytes.");
+    }
+
+    private static void deleteIfUnused(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Still mapped (Windows): superseded by a newer generation, removed on a later open
+        }
+    }
+
+    private static int writeRecord(FileChannel out, byte type, byte[] payload) throws IOException {
+        ByteBuffer rec = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        rec.putInt(payload.length).putInt(crc(type, payload, 0, payload.length)).put(type).put(payload);
+        rec.flip();
+        while (rec.hasRemaining()) out.write(rec);
+        return RECORD_HEADER + payload.length;
+    }
+
+    // --- Index ---
+
+    private void index(int id, long location, int baseLikes, long createdMillis, String author) {
+        ensureCapacity(id);
+        locations[id] = location;
+        created[id] = createdMillis;
+        likes.set(id, baseLikes);
+        byAuthor.computeIfAbsent(author, k -> new IdList()).add(id);
+    }
+
+    private void indexComment(int commentId, int postId, long location) {
+        if (commentId >= commentLocations.length) {
+            commentLocations = Arrays.copyOf(commentLocations, Math.max(commentLocations.length * 2, commentId + 1));
+        }
+        commentLocations[commentId] = location;
+        commentsByPost.computeIfAbsent(postId, k -> new IdList()).add(commentId); // Publishes the comment
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < locations.length) return;
+        int n = Math.max(locations.length * 2, id + 1);
+        AtomicIntegerArray grown = new AtomicIntegerArray(n);
+        for (int i = 0; i < likes.length(); i++) grown.set(i, likes.get(i));
+        created = Arrays.copyOf(created, n);
+        likes = grown;
+        locations = Arrays.copyOf(locations, n);
+    }
+
+    // --- Encoding ---
+
+    private static byte[] encodePost(int id, BlogPost post) {
+        byte[] title = utf8(post.title);
+        byte[] author = utf8(post.author.getUsername());
+        byte[] content = utf8(post.content);
+        ByteBuffer b = ByteBuffer.allocate(POST_STRINGS + 12 + length(title) + length(author) + length(content));
+        b.putInt(id).putLong(post.timestamp).putInt(post.likes);
+        putString(b, title);
+        putString(b, author);
+        putString(b, content);
+        return b.array();
+    }
+
+    private static byte[] encodeComment(int id, Comment c) {
+        byte[] author = utf8(c.author);
+        byte[] body = utf8(c.body);
+        ByteBuffer b = ByteBuffer.allocate(COMMENT_STRINGS + 8 + length(author) + length(body));
+        b.putInt(id).putInt(c.postId).putLong(c.timestamp);
+        putString(b, author);
+        putString(b, body);
+        return b.array();
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer b, byte[] bytes) {
+        if (bytes == null) {
+            b.putInt(-1);
+        } else {
+            b.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer b) {
+        int len = b.getInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer b) {
+        int len = b.getInt();
+        if (len > 0) b.position(b.position() + len);
+    }
+
+    private static int crc(byte type, byte[] payload, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, off, len);
+        return (int) crc.getValue();
+    }
+
+    // CRC of len bytes starting at "from" (the type byte followed by the payload)
+    private static int crc(ByteBuffer b, int from, int len) {
+        ByteBuffer slice = b.duplicate();
+        slice.position(from).limit(from + len);
+        CRC32 crc = new CRC32();
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    private static void zero(Segment s, int from, int to) {
+        ByteBuffer b = s.buffer.duplicate();
+        byte[] zeros = new byte[8192];
+        b.position(from);
+        while (b.position() < to) b.put(zeros, 0, Math.min(zeros.length, to - b.position()));
+    }
+
+    private static long location(int handle, int offset) {
+        return ((long) handle << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int handleOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    // seg-NNNNNNNN.log (generation 0) or seg-NNNNNNNN.G.log
+    private static int numberOf(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(4, name.indexOf('.')));
+    }
+
+    private static int generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int first = name.indexOf('.'), last = name.lastIndexOf('.');
+        return first == last ? 0 : Integer.parseInt(name.substring(first + 1, last));
+    }
+
+    // Waits for a running compaction, then syncs and releases the active segment
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock) {
+            try {
+                active.buffer.force();
+                active.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
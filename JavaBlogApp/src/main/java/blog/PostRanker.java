@@ -0,0 +1,198 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+// In-memory rankings for the Top and Trending views, kept up to date as posts and likes arrive,
+// so neither view ever needs "ORDER BY likes" (not indexed) or a scan of the posts table.
+//
+// Every post's score lives in a flat array indexed by id; the best K of each view are kept in a
+// sorted set. Scores only ever grow, so an update is O(log K): re-sort the post if it is already
+// ranked, otherwise compare it with the lowest ranked one.
+//   Top       score = likes
+//   Trending  forward decay: an event at time t adds 2^((t - epoch) / halfLife). All scores decay
+//             at the same rate, so comparing the stored values ranks by decayed score at any moment
+//             and nothing is ever rescored as time passes (only rescaled before the values overflow)
+// A new post counts as one event, so fresh posts show up in Trending before anyone likes them.
+public class PostRanker {
+    private static final double MAX_EXPONENT = 900; // Rescale well before doubles overflow (2^1023)
+
+    // The K best posts by (score, id), best first
+    private static final class TopK {
+        private static final class Entry implements Comparable<Entry> {
+            final double score;
+            final int id;
+
+            Entry(double score, int id) {
+                this.score = score;
+                this.id = id;
+            }
+
+            @Override
+            public int compareTo(Entry o) {
+                int c = Double.compare(o.score, score);
+                return c != 0 ? c : Integer.compare(o.id, id); // Ties: newer post first
+            }
+        }
+
+        private final int capacity;
+        private final TreeSet<Entry> ranked = new TreeSet<>();
+        private final Map<Integer, Entry> members = new HashMap<>();
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void update(int id, double score) {
+            Entry old = members.get(id);
+            Entry e = new Entry(score, id);
+            if (old != null) {
+                ranked.remove(old);
+            } else if (members.size() >= capacity) {
+                Entry last = ranked.last();
+                if (e.compareTo(last) >= 0) return; // Not good enough
+                ranked.pollLast();
+                members.remove(last.id);
+            }
+            ranked.add(e);
+            members.put(id, e);
+        }
+
+        List<Integer> ids(int limit) {
+            List<Integer> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Entry e : ranked) {
+                if (ids.size() >= limit) break;
+                ids.add(e.id);
+            }
+            return ids;
+        }
+
+        void scale(double factor) {
+            List<Entry> all = new ArrayList<>(ranked);
+            ranked.clear();
+            members.clear();
+            for (Entry e : all) update(e.id, e.score * factor);
+        }
+    }
+
+    private final int capacity;
+    private final long halfLifeMillis;
+    private final TopK top;
+    private final TopK trending;
+    private int[] likes = new int[1024];
+    private double[] trend = new double[1024];
+    private long epoch; // Trending weights are relative to this instant
+
+    // While a rebuild walks the store, live events for rows it has not reached yet are skipped:
+    // seed() counts their likes when it gets there, the stored ones and the unflushed ones
+    private int rebuildCursor = Integer.MAX_VALUE;
+    private int rebuildHigh = 0;
+
+    public PostRanker(int capacity, long halfLifeMillis) {
+        this.capacity = capacity;
+        this.halfLifeMillis = halfLifeMillis;
+        this.top = new TopK(capacity);
+        this.trending = new TopK(capacity);
+        this.epoch = System.currentTimeMillis();
+    }
+
+    // Most posts a view can return
+    public int capacity() {
+        return capacity;
+    }
+
+    // Ids of the best posts of a ranked view, best first (RECENT is not ranked here)
+    public synchronized List<Integer> top(FeedView view, int limit) {
+        return (view == FeedView.TOP ? top : trending).ids(Math.min(limit, capacity));
+    }
+
+    // --- Live events ---
+
+    public synchronized void postAdded(int id, long created) {
+        if (skip(id)) return;
+        ensure(id);
+        addTrend(id, 1, created);
+        top.update(id, likes[id]);
+    }
+
+    public synchronized void liked(int id, long delta) {
+        if (id <= 0 || skip(id)) return;
+        ensure(id);
+        likes[id] += (int) delta;
+        top.update(id, likes[id]);
+        addTrend(id, delta, System.currentTimeMillis());
+    }
+
+    // A like recorded together with its live event: record (e.g. LikeCounter.like) runs under
+    // the ranker's lock, so seed() sees each like either in the unflushed count or as an event
+    public synchronized void liked(int id, long delta, Runnable record) {
+        record.run();
+        liked(id, delta);
+    }
+
+    private boolean skip(int id) {
+        return id > rebuildCursor && id <= rebuildHigh;
+    }
+
+    // --- Rebuild from the store (startup) ---
+
+    // Rows 1..highId will be fed to seed() in ascending id order
+    public synchronized void beginRebuild(int highId) {
+        rebuildCursor = 0;
+        rebuildHigh = highId;
+    }
+
+    // One stored post. Likes are not timestamped in the store, so for Trending they are
+    // counted as if they came in when the post was created.
+    public synchronized void seed(int id, int storedLikes, long created) {
+        ensure(id);
+        likes[id] += storedLikes;
+        top.update(id, likes[id]);
+        addTrend(id, 1 + storedLikes, created);
+        rebuildCursor = id;
+    }
+
+    // As above, plus the likes not in the store yet. They are read under the ranker's lock,
+    // the same one liked(id, delta, record) counts under, so no like is lost or counted twice.
+    public synchronized void seed(int id, int storedLikes, long created, LongSupplier unflushed) {
+        seed(id, storedLikes + (int) unflushed.getAsLong(), created);
+    }
+
+    public synchronized void endRebuild() {
+        rebuildCursor = Integer.MAX_VALUE;
+        rebuildHigh = 0;
+    }
+
+    // --- Scores ---
+
+    private void addTrend(int id, double events, long at) {
+        double exponent = (double) (at - epoch) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            rescale(Math.floor(exponent) - 1);
+            exponent = (double) (at - epoch) / halfLifeMillis;
+        }
+        trend[id] += events * Math.pow(2, exponent);
+        trending.update(id, trend[id]);
+    }
+
+    // Moves the epoch forward by "halfLives"; every score shrinks by the same factor, so no order changes
+    private void rescale(double halfLives) {
+        double factor = Math.pow(2, -halfLives);
+        for (int i = 0; i < trend.length; i++) trend[i] *= factor;
+        trending.scale(factor);
+        epoch += (long) (halfLives * halfLifeMillis);
+    }
+
+    private void ensure(int id) {
+        if (id < likes.length) return;
+        int size = likes.length;
+        while (size <= id) size *= 2;
+        likes = Arrays.copyOf(likes, size);
+        trend = Arrays.copyOf(trend, size);
+    }
+}
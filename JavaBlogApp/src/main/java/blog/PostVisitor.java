@@ -0,0 +1,8 @@
+package blog;
+
+import java.io.IOException;
+
+// Receives posts one at a time from a streaming read (bulk export); throwing stops the stream
+public interface PostVisitor {
+    void visit(BlogPost post) throws IOException;
+}
@@ -1,10 +1,12 @@
-public class RegularUser extends User {
-    public RegularUser(String username) {
-        super(username, "USER");
-    }
-
-    @Override
-    public String getWelcomeMessage() {
-        return "Welcome back, writer " + username;
-    }
-}
\ No newline at end of file
+package blog;
+
+public class RegularUser extends User {
+    public RegularUser(String username) {
+        super(username, "USER");
+    }
+
+    @Override
+    public String getWelcomeMessage() {
+        return "Welcome back, writer " + username;
+    }
+}
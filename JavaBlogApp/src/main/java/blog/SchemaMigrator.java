@@ -0,0 +1,234 @@
+package blog;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.List;
+
+// Versioned schema migrations. The applied version is stored in schema_version and every
+// migration runs exactly once; when the schema is current, startup costs a single SELECT.
+// Steps check the catalog before changing it, so databases created by db_setup.sql
+// (which already has the latest columns and indexes) migrate cleanly too.
+// Several instances may start together: on MySQL they serialize on a named lock, the
+// embedded H2 database (shared only within this JVM) uses a process-wide lock, and a
+// step or version row that another instance got to first counts as applied.
+public class SchemaMigrator {
+
+    interface Step {
+        void apply(Connection c) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final List<Step> steps;
+
+        Migration(int version, String description, Step... steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = Arrays.asList(steps);
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(1, "Baseline posts and users tables",
+                    sql("CREATE TABLE IF NOT EXISTS posts (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "title VARCHAR(255), " +
+                            "content TEXT, " +
+                            "author VARCHAR(50), " +
+                            "likes INT DEFAULT 0)"),
+                    sql("CREATE TABLE IF NOT EXISTS users (" +
+                            "username VARCHAR(50) PRIMARY KEY, " +
+                            "password VARCHAR(50))"),
+                    sql("INSERT IGNORE INTO users (username, password) VALUES ('admin', 'Ayushdada123')")),
+
+            new Migration(2, "Persist post timestamps",
+                    addColumn("posts", "created_at",
+                            "ALTER TABLE posts ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP"),
+                    createIndex("posts", "idx_posts_created_at",
+                            "CREATE INDEX idx_posts_created_at ON posts (created_at)")),
+
+            new Migration(3, "Index per-author feeds",
+                    createIndex("posts", "idx_posts_author_id",
+                            "CREATE INDEX idx_posts_author_id ON posts (author, id)")),
+
+            new Migration(4, "Persist comments",
+                    sql("CREATE TABLE IF NOT EXISTS comments (" +
+                            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id INT NOT NULL, " +
+                            "author VARCHAR(50), " +
+                            "body TEXT, " +
+                            "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)"),
+                    createIndex("comments", "idx_comments_post_id",
+                            "CREATE INDEX idx_comments_post_id ON comments (post_id, id)")),
+
+            new Migration(5, "Full-text index for search (MySQL only)",
+                    mysqlOnly(createIndex("posts", "ft_posts_title_content",
+                            "ALTER TABLE posts ADD FULLTEXT INDEX ft_posts_title_content (title, content)")))
+    );
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private static final String LOCK_NAME = "blog_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+    private static final Object LOCAL_LOCK = new Object();
+
+    // Brings the schema up to date; returns the number of migrations applied
+    public int migrate(ConnectionPool pool) throws SQLException {
+        return pool.withConnection(conn -> {
+            Connection c = conn.getConnection();
+            if (!isMySql(c)) {
+                synchronized (LOCAL_LOCK) {
+                    return migrate(c);
+                }
+            }
+            lock(c);
+            try {
+                return migrate(c);
+            } finally {
+                unlock(c);
+            }
+        });
+    }
+
+    private int migrate(Connection c) throws SQLException {
+        int current = currentVersion(c);
+        if (current >= latestVersion()) return 0;
+
+        int applied = 0;
+        for (Migration m : MIGRATIONS) {
+            if (m.version <= current) continue;
+            System.out.println("Migrating schema to v" + m.version + ": " + m.description);
+            for (Step step : m.steps) step.apply(c);
+            if (recordVersion(c, m)) applied++;
+        }
+        return applied;
+    }
+
+    // False when another instance recorded this version first (duplicate key)
+    private boolean recordVersion(Connection c, Migration m) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            ps.setInt(1, m.version);
+            ps.setString(2, m.description);
+            ps.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) throw e;
+            System.out.println("Schema v" + m.version + " was already applied by another instance");
+            return false;
+        }
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    // MySQL named lock, held by this connection until released
+    private static void lock(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) return;
+            }
+        }
+        throw new SQLException("Timed out waiting for another instance to finish migrating the schema");
+    }
+
+    private static void unlock(Connection c) {
+        try (PreparedStatement ps = c.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("WARNING: Could not release the schema migration lock. " + e.getMessage());
+        }
+    }
+
+    private static boolean isMySql(Connection c) throws SQLException {
+        return c.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    private int currentVersion(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException missing) {
+            // First run: create the bookkeeping table
+            try (Statement st = c.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INT PRIMARY KEY, " +
+                        "description VARCHAR(255), " +
+                        "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+            return 0;
+        }
+    }
+
+    // --- Step builders ---
+
+    private static Step sql(String ddl) {
+        return c -> {
+            try (Statement st = c.createStatement()) {
+                st.execute(ddl);
+            }
+        };
+    }
+
+    // If the DDL fails because another instance added the column meanwhile, that is fine
+    private static Step addColumn(String table, String column, String ddl) {
+        return c -> {
+            if (hasColumn(c, table, column)) return;
+            try {
+                sql(ddl).apply(c);
+            } catch (SQLException e) {
+                if (!hasColumn(c, table, column)) throw e;
+            }
+        };
+    }
+
+    private static Step createIndex(String table, String index, String ddl) {
+        return c -> {
+            if (hasIndex(c, table, index)) return;
+            try {
+                sql(ddl).apply(c);
+            } catch (SQLException e) {
+                if (!hasIndex(c, table, index)) throw e;
+            }
+        };
+    }
+
+    private static Step mysqlOnly(Step step) {
+        return c -> {
+            if (isMySql(c)) step.apply(c);
+        };
+    }
+
+    // Catalogs differ in identifier case (MySQL keeps it, H2 upper-cases), so compare loosely
+    private static boolean hasColumn(Connection c, String table, String column) throws SQLException {
+        DatabaseMetaData md = c.getMetaData();
+        for (String t : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = md.getColumns(c.getCatalog(), null, t, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasIndex(Connection c, String table, String index) throws SQLException {
+        DatabaseMetaData md = c.getMetaData();
+        for (String t : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = md.getIndexInfo(c.getCatalog(), null, t, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+                }
+            }
+        }
+        return false;
+    }
+}
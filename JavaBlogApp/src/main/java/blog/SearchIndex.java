@@ -0,0 +1,176 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-process inverted index over post titles and bodies.
+// Posts are added incrementally; a query only touches the postings of its own terms,
+// never the posts themselves, and keeps the best K hits in a small heap.
+public class SearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "were", "will", "with"));
+
+    // Growable (id, weighted term frequency) arrays for one term
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int[] freqs = new int[4];
+        private int size = 0;
+
+        synchronized void add(int id, int freq) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            ids[size] = id;
+            freqs[size] = freq;
+            size++;
+        }
+
+        // Arrays only grow by copying, so a (arrays, size) pair read under the lock stays valid
+        synchronized Postings snapshot() {
+            Postings p = new Postings();
+            p.ids = ids;
+            p.freqs = freqs;
+            p.size = size;
+            return p;
+        }
+    }
+
+    public static final class Hit {
+        public final int postId;
+        public final float score;
+
+        Hit(int postId, float score) {
+            this.postId = postId;
+            this.score = score;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Postings> terms = new ConcurrentHashMap<>();
+    private final AtomicInteger docCount = new AtomicInteger();
+
+    public void add(BlogPost post) {
+        // Count weighted term frequencies for this post, then append one posting per distinct term
+        HashMap<String, int[]> freqs = new HashMap<>();
+        for (String t : tokenize(post.title)) freqs.computeIfAbsent(t, k -> new int[1])[0] += TITLE_WEIGHT;
+        for (String t : tokenize(post.content)) freqs.computeIfAbsent(t, k -> new int[1])[0]++;
+
+        freqs.forEach((term, f) -> terms.computeIfAbsent(term, k -> new Postings()).add(post.id, f[0]));
+        docCount.incrementAndGet();
+    }
+
+    public int size() {
+        return docCount.get();
+    }
+
+    // Ranked top-K: sum over query terms of (1 + ln tf) * idf, newer posts win ties
+    public List<Hit> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) return Collections.emptyList();
+
+        int n = Math.max(1, docCount.get());
+        List<Postings> lists = new ArrayList<>();
+        boolean anySelective = false;
+        for (String term : queryTerms) {
+            Postings live = terms.get(term);
+            if (live == null) continue;
+            Postings p = live.snapshot();
+            lists.add(p);
+            if (p.size <= n / 2) anySelective = true;
+        }
+
+        ScoreTable scores = new ScoreTable(64);
+        for (Postings p : lists) {
+            // Terms in most posts barely change the ranking but cost the most; skip them
+            // unless the query has nothing more selective
+            if (anySelective && p.size > n / 2) continue;
+            float idf = (float) Math.log(1.0 + (double) n / p.size);
+            for (int i = 0; i < p.size; i++) {
+                scores.add(p.ids[i], (float) (1.0 + Math.log(p.freqs[i])) * idf);
+            }
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, (a, b) ->
+                a.score != b.score ? Float.compare(a.score, b.score) : Integer.compare(a.postId, b.postId));
+        for (int i = 0; i < scores.keys.length; i++) {
+            if (scores.keys[i] == 0) continue;
+            Hit h = new Hit(scores.keys[i], scores.values[i]);
+            if (best.size() < limit) {
+                best.add(h);
+            } else if (best.comparator().compare(h, best.peek()) > 0) {
+                best.poll();
+                best.add(h);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> best.comparator().compare(b, a));
+        return hits;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String t = lower.substring(start, i);
+                if (t.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(t)) tokens.add(t);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Open-addressing int -> float accumulator (post ids are > 0, so 0 marks an empty slot)
+    private static final class ScoreTable {
+        int[] keys;
+        float[] values;
+        int size = 0;
+
+        ScoreTable(int capacity) {
+            keys = new int[capacity];
+            values = new float[capacity];
+        }
+
+        void add(int key, float delta) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int i = (key * 0x9E3779B9) & mask;
+            while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == 0) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] += delta;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) add(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
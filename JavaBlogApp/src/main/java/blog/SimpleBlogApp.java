@@ -0,0 +1,621 @@
+package blog;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.text.DefaultCaret;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+public class SimpleBlogApp extends JFrame {
+    private static final long serialVersionUID = 1L;
+
+    private static final int FEED_PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 50;
+    private static final int RANKED_LIMIT = 100;
+    private static final int COMMENT_PAGE_SIZE = 50;
+    // Large-document mode: bodies are streamed and appended in chunks of this many characters,
+    // with at most BODY_CHUNKS_IN_FLIGHT queued on the EDT so input and paints are never starved
+    private static final int BODY_CHUNK_CHARS = 32 * 1024;
+    private static final int BODY_CHUNKS_IN_FLIGHT = 4;
+
+    // --- Application State ---
+    private CardLayout cardLayout;
+    private JPanel mainPanel;
+    private User currentUser;
+    private IDataService dataService;
+    private AsyncDataService asyncData; // All data calls go through here, never on the EDT
+    private CompletableFuture<?> screenTask; // Work owned by the current screen; cancelled on navigation
+    private JList<BlogPost> feedList;
+    private FeedListModel feedModel;
+    private JLabel feedTitle;
+    private JLabel statusLabel;
+    private AutoRefreshTask refreshThread;
+    private final AvatarCache avatarCache = new AvatarCache(4 * 1024 * 1024); // 4 MB of pixels
+
+    // Feed paging state (the keyset cursor is the oldest post in the model)
+    private boolean feedExhausted = false;
+    private long feedRefreshStart = 0; // nanoTime of the refresh whose first page is still pending
+    private final Histogram feedRenderTime = Metrics.timer("ui.feedRender");
+    private boolean loadingPage = false;
+    private int feedGeneration = 0; // Bumped on refresh so late pages from an old feed are dropped
+    private FeedView feedView = FeedView.RECENT;
+
+    // UI Vars for Read Panel
+    private JLabel readTitleLabel;
+    private JLabel readAuthorLabel;
+    private JLabel readAvatarLabel; // NEW: Avatar for read screen
+    private JTextArea readContentArea;
+    private JLabel readLikesLabel;
+    private CommentListModel commentsListModel; // Pages in comments as the list scrolls
+    private JList<Comment> commentsList;
+    private BlogPost currentViewingPost;
+    private int currentViewingLikes;
+    private volatile int readGeneration = 0; // Bumped on every screen change; stops a body still streaming in
+
+    public SimpleBlogApp(IDataService dataService) {
+        // 1. Initialize Logic (connecting and seeding happen in main, off the EDT)
+        this.dataService = dataService;
+        this.asyncData = new AsyncDataService(dataService);
+
+        // 2. UI Setup
+        setTitle("Java Blog System");
+        setSize(550, 800); // Slightly wider for avatars
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        cardLayout = new CardLayout();
+        mainPanel = new JPanel(cardLayout);
+
+        // 3. Create Screens
+        mainPanel.add(createLoginPanel(), "Login");
+        mainPanel.add(createFeedPanel(), "Feed");
+        mainPanel.add(createWritePostPanel(), "Write");
+        mainPanel.add(createReadPostPanel(), "Read");
+
+        // 4. Status Bar & Threading
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusLabel = new StatusLabel("Status: Ready"); // Appends a live p50/p99 query summary
+        statusLabel.setBorder(new EmptyBorder(5, 5, 5, 5));
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+
+        refreshThread = new AutoRefreshTask(statusLabel, dataService, feedModel);
+        refreshThread.start();
+
+        add(mainPanel, BorderLayout.CENTER);
+        add(statusPanel, BorderLayout.SOUTH);
+    }
+
+    // Switches cards and cancels whatever the previous screen was still loading
+    private void showScreen(String name) {
+        if (screenTask != null) {
+            screenTask.cancel(false);
+            screenTask = null;
+        }
+        readGeneration++;
+        cardLayout.show(mainPanel, name);
+    }
+
+    private void logout() {
+        currentUser = null;
+        feedGeneration++; // A page or search still loading for the old session is dropped
+        loadingPage = false;
+        feedModel.clear();
+        showScreen("Login");
+    }
+
+    // --- NEW: Dynamic Avatar Generator ---
+    // Draws a circle with the user's initial (cached per username and size, see AvatarCache)
+    private Icon generateAvatar(String username, int size) {
+        return avatarCache.get(username, size);
+    }
+
+    private JPanel createLoginPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 10, 10, 10);
+
+        JLabel title = new JLabel("Blog System Login");
+        title.setFont(new Font("Arial", Font.BOLD, 24));
+
+        JTextField userField = new JTextField(15);
+        userField.setBorder(BorderFactory.createTitledBorder("Username"));
+        JPasswordField passField = new JPasswordField(15);
+        passField.setBorder(BorderFactory.createTitledBorder("Password"));
+
+        JButton loginBtn = new JButton("Login");
+        loginBtn.setBackground(new Color(70, 130, 180));
+        loginBtn.setForeground(Color.WHITE);
+
+        loginBtn.addActionListener(e -> {
+            String uName = userField.getText();
+            String pass = new String(passField.getPassword());
+
+            loginBtn.setEnabled(false);
+            statusLabel.setText("Status: Signing in...");
+            AsyncDataService.onEdt(asyncData.authenticateUser(uName, pass), ok -> {
+                loginBtn.setEnabled(true);
+                statusLabel.setText("Status: Ready");
+                if (ok) {
+                    if (uName.equalsIgnoreCase("admin")) {
+                        currentUser = new AdminUser(uName);
+                    } else {
+                        currentUser = new RegularUser(uName);
+                    }
+                    JOptionPane.showMessageDialog(this, currentUser.getWelcomeMessage());
+                    refreshFeed();
+                    refreshThread.wakeUp();
+                    showScreen("Feed");
+                }
+            }, error -> {
+                loginBtn.setEnabled(true);
+                statusLabel.setText("Status: Login failed (" + error.getMessage() + ")");
+            });
+        });
+
+        gbc.gridx = 0; gbc.gridy = 0; panel.add(title, gbc);
+        gbc.gridy = 1; panel.add(userField, gbc);
+        gbc.gridy = 2; panel.add(passField, gbc);
+        gbc.gridy = 3; panel.add(loginBtn, gbc);
+        return panel;
+    }
+
+    private JPanel createFeedPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JPanel header = new JPanel(new BorderLayout());
+        header.setBorder(new EmptyBorder(10, 10, 10, 10));
+        header.setBackground(new Color(245, 245, 245));
+
+        JLabel title = new JLabel(" Recent Posts");
+        title.setFont(new Font("Arial", Font.BOLD, 20));
+        title.setIcon(new ImageIcon()); // Placeholder for an app icon if you wanted one
+        feedTitle = title;
+
+        // Search box: Enter runs the query, an empty query (or Escape) goes back to the feed
+        JTextField searchField = new JTextField(12);
+        searchField.setToolTipText("Search posts (Enter to search, Esc to clear)");
+        searchField.addActionListener(e -> runSearch(searchField.getText().trim()));
+        searchField.getInputMap().put(KeyStroke.getKeyStroke("ESCAPE"), "clearSearch");
+        searchField.getActionMap().put("clearSearch", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchField.setText("");
+                runSearch("");
+            }
+        });
+
+        // Recent / Top / Trending: the rankings are kept in memory by the store, so a switch is one short read
+        JComboBox<FeedView> viewBox = new JComboBox<>(FeedView.values());
+        viewBox.setToolTipText("Order of the feed");
+        viewBox.addActionListener(e -> {
+            feedView = (FeedView) viewBox.getSelectedItem();
+            searchField.setText("");
+            refreshFeed();
+        });
+
+        JButton writeBtn = new JButton("Write Post");
+        JButton logoutBtn = new JButton("Logout");
+
+        writeBtn.addActionListener(e -> showScreen("Write"));
+        logoutBtn.addActionListener(e -> logout());
+
+        JPanel btns = new JPanel();
+        btns.setOpaque(false);
+        btns.add(viewBox);
+        btns.add(searchField);
+        btns.add(writeBtn);
+        btns.add(logoutBtn);
+
+        header.add(title, BorderLayout.WEST);
+        header.add(btns, BorderLayout.EAST);
+
+        // Virtualized feed: only the visible rows are laid out and painted
+        feedModel = new FeedListModel();
+        feedList = new JList<BlogPost>(feedModel) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true; // Cards stretch to the window width
+            }
+        };
+        feedList.setCellRenderer(new FeedCardRenderer(this::generateAvatar));
+        feedList.setFixedCellHeight(FeedCardRenderer.CARD_HEIGHT);
+        feedList.setFixedCellWidth(1); // Avoids measuring every row; real width comes from the viewport
+        feedList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        feedList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = feedList.locationToIndex(e.getPoint());
+                if (index >= 0 && feedList.getCellBounds(index, index).contains(e.getPoint())) {
+                    openReadPanel(feedModel.getElementAt(index));
+                }
+            }
+        });
+        feedList.getInputMap().put(KeyStroke.getKeyStroke("ENTER"), "openPost");
+        feedList.getActionMap().put("openPost", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                BlogPost selected = feedList.getSelectedValue();
+                if (selected != null) openReadPanel(selected);
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(feedList);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+
+        // Infinite scroll: fetch the next page when the user gets close to the bottom
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = (JScrollBar) e.getAdjustable();
+            int remaining = bar.getMaximum() - (bar.getValue() + bar.getVisibleAmount());
+            if (remaining < 200) loadNextFeedPage();
+        });
+
+        panel.add(header, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void runSearch(String query) {
+        if (query.isEmpty()) {
+            if (feedModel.isShowingResults()) refreshFeed();
+            return;
+        }
+
+        int generation = ++feedGeneration; // Any page still loading belongs to the old view
+        feedExhausted = true;             // Results are a single ranked list, no paging
+        statusLabel.setText("Status: Searching...");
+        AsyncDataService.onEdt(asyncData.searchPosts(query, SEARCH_LIMIT), results -> {
+            if (generation != feedGeneration) return;
+            feedTitle.setText(" Results for \"" + query + "\"");
+            feedModel.showResults(results);
+            statusLabel.setText("Status: " + results.size() + " result(s)");
+        }, error -> statusLabel.setText("Status: Search failed (" + error.getMessage() + ")"));
+    }
+
+    private void refreshFeed() {
+        if (feedView != FeedView.RECENT) {
+            showRanked(feedView);
+            return;
+        }
+        feedRefreshStart = System.nanoTime();
+        feedGeneration++;
+        feedTitle.setText(" Recent Posts");
+        feedModel.clear();
+        feedExhausted = false;
+        loadingPage = false;
+        loadNextFeedPage();
+    }
+
+    // Top / Trending: one ranked page straight from the store's in-memory rankings (no paging)
+    private void showRanked(FeedView view) {
+        int generation = ++feedGeneration;
+        feedExhausted = true;
+        statusLabel.setText("Status: Loading " + view + " posts...");
+        AsyncDataService.onEdt(asyncData.getRankedPosts(view, RANKED_LIMIT), posts -> {
+            if (generation != feedGeneration) return;
+            feedTitle.setText(" " + view + " Posts");
+            feedModel.showResults(posts);
+            if (!posts.isEmpty()) feedList.ensureIndexIsVisible(0);
+            statusLabel.setText("Status: Ready");
+        }, error -> {
+            if (generation != feedGeneration) return;
+            statusLabel.setText("Status: Could not load posts (" + error.getMessage() + ")");
+        });
+    }
+
+    // Appends one page of older posts; cost depends on the page size, not the table size
+    private void loadNextFeedPage() {
+        if (feedExhausted || loadingPage) return;
+        loadingPage = true;
+        int generation = feedGeneration;
+        statusLabel.setText("Status: Loading posts...");
+
+        AsyncDataService.onEdt(asyncData.getPostsBefore(feedModel.oldestId(), FEED_PAGE_SIZE), page -> {
+            if (generation != feedGeneration) return; // Feed was refreshed meanwhile
+            loadingPage = false;
+            statusLabel.setText("Status: Ready");
+            feedModel.appendPage(page);
+
+            // Most of the page is still below the fold; draw its avatars before they scroll in
+            Set<String> authors = new LinkedHashSet<>();
+            for (BlogPost post : page) authors.add(post.author.getUsername());
+            avatarCache.prefetch(authors, FeedCardRenderer.AVATAR_SIZE);
+            if (page.size() < FEED_PAGE_SIZE) feedExhausted = true;
+
+            // Repaints triggered by appendPage are queued ahead of this, so it runs after the first paint
+            if (feedRefreshStart != 0) {
+                long start = feedRefreshStart;
+                feedRefreshStart = 0;
+                SwingUtilities.invokeLater(() -> feedRenderTime.recordSince(start));
+            }
+        }, error -> {
+            if (generation != feedGeneration) return;
+            loadingPage = false;
+            statusLabel.setText("Status: Could not load posts (" + error.getMessage() + ")");
+        });
+    }
+
+    private JPanel createWritePostPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+
+        JTextField titleField = new JTextField();
+        titleField.setBorder(BorderFactory.createTitledBorder("Post Title"));
+
+        JTextArea contentArea = new JTextArea();
+        contentArea.setLineWrap(true);
+        JScrollPane scroll = new JScrollPane(contentArea);
+        scroll.setBorder(BorderFactory.createTitledBorder("Write your story..."));
+
+        JButton pubBtn = new JButton("Publish Post");
+        JButton cancelBtn = new JButton("Cancel");
+
+        cancelBtn.addActionListener(e -> showScreen("Feed"));
+
+        pubBtn.addActionListener(e -> {
+            try {
+                String t = titleField.getText();
+                String c = contentArea.getText();
+                if (t.isEmpty() || c.isEmpty()) throw new Exception("Fields cannot be empty");
+
+                BlogPost newPost = new BlogPost(t, c, currentUser);
+                pubBtn.setEnabled(false);
+                statusLabel.setText("Status: Publishing...");
+
+                // Only report "published" once the write has been committed
+                AsyncDataService.onEdt(asyncData.addPost(newPost), post -> {
+                    pubBtn.setEnabled(true);
+                    titleField.setText("");
+                    contentArea.setText("");
+                    if (post.id == 0) {
+                        // Accepted while the database is down; the sync picks it up once it is replayed
+                        statusLabel.setText("Status: Database offline, \"" + post.title + "\" will be published when it is back");
+                    } else {
+                        statusLabel.setText("Status: Published \"" + post.title + "\"");
+                        // Insert just the new row instead of rebuilding the feed
+                        feedModel.mergeNewer(Collections.singletonList(
+                                BlogPost.summary(post)));
+                        feedList.ensureIndexIsVisible(0);
+                    }
+                    showScreen("Feed");
+                }, error -> {
+                    pubBtn.setEnabled(true);
+                    statusLabel.setText("Status: Publish failed");
+                    JOptionPane.showMessageDialog(this, "Error: " + error.getMessage());
+                });
+
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
+            }
+        });
+
+        JPanel btns = new JPanel();
+        btns.add(cancelBtn);
+        btns.add(pubBtn);
+
+        panel.add(titleField, BorderLayout.NORTH);
+        panel.add(scroll, BorderLayout.CENTER);
+        panel.add(btns, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    private JPanel createReadPostPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        JPanel topContainer = new JPanel(new BorderLayout());
+        topContainer.setBorder(new EmptyBorder(10, 20, 10, 20));
+
+        JButton back = new JButton("<< Back");
+        back.addActionListener(e -> showScreen("Feed"));
+
+        topContainer.add(back, BorderLayout.WEST);
+
+        JPanel content = new JPanel();
+        content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+        content.setBorder(new EmptyBorder(10, 20, 10, 20));
+
+        // Initialize Labels
+        readAvatarLabel = new JLabel();
+        readAvatarLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        readTitleLabel = new JLabel("Title");
+        readTitleLabel.setFont(new Font("Serif", Font.BOLD, 28));
+        readTitleLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        readAuthorLabel = new JLabel("Author");
+        readAuthorLabel.setForeground(Color.GRAY);
+        readAuthorLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        readContentArea = new JTextArea(10, 30);
+        readContentArea.setEditable(false);
+        readContentArea.setLineWrap(true);
+        readContentArea.setWrapStyleWord(true);
+        readContentArea.setOpaque(false);
+        readContentArea.setFont(new Font("Georgia", Font.PLAIN, 16));
+        // Appended chunks must not drag the view down to the end of the document
+        ((DefaultCaret) readContentArea.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+
+        // Helper panel to hold avatar + author info side by side
+        JPanel authorHeader = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        authorHeader.setAlignmentX(Component.LEFT_ALIGNMENT);
+        authorHeader.add(readAvatarLabel);
+        authorHeader.add(readAuthorLabel);
+
+        readLikesLabel = new JLabel("Likes: 0");
+        JButton likeBtn = new JButton("Like This Post");
+        likeBtn.addActionListener(e -> {
+            if(currentViewingPost != null) {
+                asyncData.likePost(currentViewingPost.id);
+                readLikesLabel.setText("Likes: " + (++currentViewingLikes));
+            }
+        });
+        JPanel likePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        likePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        likePanel.add(likeBtn);
+        likePanel.add(readLikesLabel);
+
+        // Add elements to scrollable content
+        content.add(readTitleLabel);
+        content.add(Box.createVerticalStrut(10));
+        content.add(authorHeader); // Avatar + Name
+        content.add(Box.createVerticalStrut(20));
+        content.add(readContentArea);
+        content.add(Box.createVerticalStrut(20));
+        content.add(likePanel);
+
+        JPanel commentsPanel = new JPanel(new BorderLayout());
+        commentsPanel.setBorder(BorderFactory.createTitledBorder("Comments"));
+        commentsListModel = new CommentListModel(asyncData, COMMENT_PAGE_SIZE,
+                error -> statusLabel.setText("Status: Could not load comments (" + error.getMessage() + ")"));
+        commentsList = new JList<Comment>(commentsListModel) {
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return true;
+            }
+        };
+        // Fixed row size: the JList never measures every comment, only the visible ones are rendered
+        commentsList.setPrototypeCellValue(new Comment(0, "someone", "A comment"));
+        commentsList.setFixedCellWidth(1);
+
+        JPanel addComPanel = new JPanel(new BorderLayout());
+        JTextField comField = new JTextField();
+        JButton comBtn = new JButton("Post Comment");
+
+        comBtn.addActionListener(e -> {
+            String txt = comField.getText();
+            if(!txt.isEmpty() && currentViewingPost != null) {
+                Comment comment = new Comment(currentViewingPost.id, currentUser.getUsername(), txt);
+                comField.setText("");
+                comBtn.setEnabled(false);
+                statusLabel.setText("Status: Posting comment...");
+
+                // Queued with other comments and appended in one batch; shown once stored
+                AsyncDataService.onEdt(asyncData.addComment(comment), saved -> {
+                    comBtn.setEnabled(true);
+                    if (saved.id == 0) {
+                        statusLabel.setText("Status: Database offline, comment will be posted when it is back");
+                        return;
+                    }
+                    statusLabel.setText("Status: Comment posted");
+                    commentsListModel.addSaved(saved);
+                    commentsList.ensureIndexIsVisible(commentsListModel.getSize() - 1);
+                }, error -> {
+                    comBtn.setEnabled(true);
+                    comField.setText(txt);
+                    statusLabel.setText("Status: Comment failed (" + error.getMessage() + ")");
+                });
+            }
+        });
+
+        addComPanel.add(comField, BorderLayout.CENTER);
+        addComPanel.add(comBtn, BorderLayout.EAST);
+
+        commentsPanel.add(new JScrollPane(commentsList), BorderLayout.CENTER);
+        commentsPanel.add(addComPanel, BorderLayout.SOUTH);
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(content), commentsPanel);
+        split.setDividerLocation(450);
+
+        panel.add(topContainer, BorderLayout.NORTH);
+        panel.add(split, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private void openReadPanel(BlogPost post) {
+        this.currentViewingPost = post;
+
+        // Everything the summary already has is shown immediately
+        readTitleLabel.setText(post.title);
+        readAuthorLabel.setText("Written by " + post.author.getUsername());
+        readLikesLabel.setText("Likes: " + post.likes);
+        currentViewingLikes = post.likes;
+
+        // Generate larger avatar for reading view
+        readAvatarLabel.setIcon(generateAvatar(post.author.getUsername(), 60));
+
+        commentsListModel.open(post.id); // First page only; the rest load while scrolling
+
+        showScreen("Read");
+
+        // Feed cards only carry summaries; fetch a fresh like count and stream the body in the background
+        CompletableFuture<Integer> likes = asyncData.getLikeCount(post.id);
+        screenTask = likes;
+        AsyncDataService.onEdt(likes, count -> {
+            currentViewingLikes = count;
+            readLikesLabel.setText("Likes: " + currentViewingLikes);
+        }, error -> { }); // Keep the count from the summary
+
+        if (post.hasContent()) {
+            readContentArea.setText(post.content);
+            readContentArea.setCaretPosition(0);
+        } else {
+            streamBody(post.id);
+        }
+    }
+
+    // Large-document mode: the body arrives in chunks and is appended as it comes, so the first
+    // screen shows as soon as the first chunk is read, whatever the length of the post.
+    // Each chunk is one small EDT task; a semaphore keeps the reader at most a few chunks ahead.
+    private void streamBody(int postId) {
+        int generation = readGeneration;
+        readContentArea.setText("");
+        statusLabel.setText("Status: Loading post...");
+        Semaphore inFlight = new Semaphore(BODY_CHUNKS_IN_FLIGHT);
+        long[] received = {0};
+
+        CompletableFuture<Boolean> body = asyncData.streamContent(postId, BODY_CHUNK_CHARS, (buf, len) -> {
+            if (generation != readGeneration) return false; // Left the screen: stop reading
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            String chunk = new String(buf, 0, len);
+            long total = received[0] += len;
+            SwingUtilities.invokeLater(() -> {
+                inFlight.release();
+                if (generation != readGeneration) return;
+                readContentArea.append(chunk);
+                if (total > BODY_CHUNK_CHARS) statusLabel.setText("Status: Loading post (" + total / 1024 + "K characters)...");
+            });
+            return true;
+        });
+
+        AsyncDataService.onEdt(body, found -> {
+            if (generation != readGeneration) return;
+            if (!found) readContentArea.setText("(This post could not be loaded.)");
+            statusLabel.setText("Status: Ready");
+        }, error -> {
+            if (generation != readGeneration) return;
+            readContentArea.append("\n\n(This post could not be loaded completely: " + error.getMessage() + ")");
+            statusLabel.setText("Status: Ready");
+        });
+    }
+
+    public static void main(String[] args) {
+        // Headless mode: serve the feed over HTTP without creating any Swing components
+        if (args.length > 0 && "--server".equals(args[0])) {
+            BlogServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Log anything that blocks the UI thread for more than half a second
+        new EdtWatchdog(500).start();
+
+        IDataService data = Backend.open();
+
+        SwingUtilities.invokeLater(() -> {
+            new SimpleBlogApp(data).setVisible(true);
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package blog;
+
+import javax.swing.*;
+
+// The status bar label: shows the latest status message followed by a live metrics summary
+// (query p50/p99 over the last interval and posts cached, plus a warning while the database
+// is offline). Callers just use setText.
+public class StatusLabel extends JLabel {
+    private static final long serialVersionUID = 1L;
+
+    private static final int REFRESH_MS = 2000;
+
+    private String message;
+    private String summary; // Still null while JLabel's constructor calls setText
+    private long[] lastQueries;
+
+    public StatusLabel(String text) {
+        super(text);
+        new Timer(REFRESH_MS, e -> refreshSummary()).start();
+    }
+
+    @Override
+    public void setText(String text) {
+        message = text;
+        super.setText(summary == null ? text : text + "   |   " + summary);
+    }
+
+    private void refreshSummary() {
+        Histogram queries = Metrics.find("data.all");
+        if (queries == null) return;
+
+        // Percentiles over the last interval, or all-time until the first interval has data
+        long[] now = queries.snapshot();
+        long[] since = lastQueries != null && Histogram.count(now, lastQueries) > 0 ? lastQueries : null;
+        lastQueries = now;
+        summary = String.format("query p50 %s, p99 %s, %d posts cached",
+                millis(Histogram.percentile(now, since, 50)),
+                millis(Histogram.percentile(now, since, 99)),
+                Metrics.value("cache.posts.size"));
+        if (Metrics.value("db.offline") != 0) {
+            summary = "DATABASE OFFLINE, " + Metrics.value("db.outbox.pending") + " write(s) queued   |   " + summary;
+        }
+        setText(message);
+    }
+
+    private static String millis(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        return ms < 10 ? String.format("%.1f ms", ms) : String.format("%.0f ms", ms);
+    }
+}
@@ -0,0 +1,53 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Post ids ordered by (creation time, id): the in-memory counterpart of idx_posts_created_at
+// for the stores without a database. Imported posts keep their original timestamps, so this
+// order is not the id order. A page is a seek plus one step per post returned.
+public class TimeIndex {
+
+    private static final class Key implements Comparable<Key> {
+        final long created;
+        final int id;
+
+        Key(long created, int id) {
+            this.created = created;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(created, o.created);
+            return c != 0 ? c : Integer.compare(id, o.id);
+        }
+    }
+
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>();
+
+    public void add(long created, int id) {
+        keys.add(new Key(created, id));
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    // Ids of posts created at or after sinceMillis, oldest first, that come after
+    // (afterCreated, afterId) (afterId 0 = from the start). Ids above highId are not
+    // visible yet and are passed over.
+    public List<Integer> idsSince(long sinceMillis, long afterCreated, int afterId, int limit, int highId) {
+        NavigableSet<Key> range = afterId > 0 && afterCreated >= sinceMillis
+                ? keys.tailSet(new Key(afterCreated, afterId), false)
+                : keys.tailSet(new Key(sinceMillis, Integer.MIN_VALUE), true);
+        List<Integer> ids = new ArrayList<>(Math.min(limit, 256));
+        for (Key k : range) {
+            if (ids.size() >= limit) break;
+            if (k.id <= highId) ids.add(k.id);
+        }
+        return ids;
+    }
+}
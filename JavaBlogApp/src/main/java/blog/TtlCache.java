@@ -0,0 +1,76 @@
+package blog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+// Size-bounded LRU cache whose entries also expire after a fixed time-to-live.
+public class TtlCache<K, V> {
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public TtlCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (e.expiresAt < System.currentTimeMillis()) {
+            map.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (map.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void invalidateIf(BiPredicate<K, V> test) {
+        map.entrySet().removeIf(e -> test.test(e.getKey(), e.getValue().value));
+    }
+
+    // Lets callers patch cached values in place (under the cache lock)
+    public synchronized void forEachValue(Consumer<V> action) {
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) action.accept(e.getValue().value);
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(map.size(), hits, misses, evictions);
+    }
+}
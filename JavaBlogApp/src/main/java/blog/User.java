@@ -1,16 +1,18 @@
-public abstract class User {
-    protected String username;
-    protected String role;
-
-    public User(String username, String role) {
-        this.username = username;
-        this.role = role;
-    }
-
-    public String getUsername() {
-        return username;
-    }
-
-    // Abstract method forcing subclasses to implement specific behavior
-    public abstract String getWelcomeMessage();
-}
\ No newline at end of file
+package blog;
+
+public abstract class User {
+    protected String username;
+    protected String role;
+
+    public User(String username, String role) {
+        this.username = username;
+        this.role = role;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    // Abstract method forcing subclasses to implement specific behavior
+    public abstract String getWelcomeMessage();
+}
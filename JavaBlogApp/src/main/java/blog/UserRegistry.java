@@ -0,0 +1,23 @@
+package blog;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Flyweight registry of post authors: every post by "alice" shares one RegularUser (and one
+// username String) instead of getting its own pair per row read. Authors are far fewer than
+// posts, so entries are never evicted.
+public final class UserRegistry {
+    private static final ConcurrentHashMap<String, User> AUTHORS = new ConcurrentHashMap<>();
+
+    private UserRegistry() {
+    }
+
+    public static User author(String username) {
+        if (username == null) return new RegularUser(null);
+        User u = AUTHORS.get(username); // Hit path allocates nothing
+        return u != null ? u : AUTHORS.computeIfAbsent(username, RegularUser::new);
+    }
+
+    public static int size() {
+        return AUTHORS.size();
+    }
+}
@@ -0,0 +1,159 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Background writer: callers enqueue items (posts, comments) and return; this thread drains the
+// queue into batched writes, closing a batch when it is full or its time window expires.
+public class WriteBehind<T> extends Thread {
+
+    // Where a batch ends up (one transaction / one fsync per call)
+    public interface Sink<T> {
+        void write(List<T> items) throws Exception;
+    }
+
+    // Called once an item has been stored (error == null) or has failed to save
+    public interface Callback<T> {
+        void onComplete(T item, Exception error);
+    }
+
+    private static class Pending<T> {
+        final T item;
+        final Callback<T> callback;
+
+        Pending(T item, Callback<T> callback) {
+            this.item = item;
+            this.callback = callback;
+        }
+    }
+
+    private final String kind; // "post", "comment": thread name and messages
+    private final BlockingQueue<Pending<T>> queue;
+    private final Sink<T> sink;
+    private final int batchSize;
+    private final long windowMillis;
+    private volatile boolean running = true;
+    // Submitters hold the read lock from the "running" check until their item is queued; stopping
+    // takes the write lock, so nothing can be queued after the writer has decided to finish
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+
+    public WriteBehind(String kind, Sink<T> sink, int batchSize, long windowMillis, int capacity) {
+        super(kind + "-write-behind");
+        setDaemon(true);
+        this.kind = kind;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.windowMillis = windowMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    // Blocks while the queue is full (backpressure), otherwise returns immediately
+    public void submit(T item, Callback<T> callback) throws InterruptedException {
+        accepting.readLock().lock();
+        try {
+            if (!running) throw new IllegalStateException("Write-behind queue for " + kind + "s has been shut down");
+            queue.put(new Pending<>(item, callback));
+        } finally {
+            accepting.readLock().unlock();
+        }
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        List<Pending<T>> batch = new ArrayList<>(batchSize);
+        // Keep going after shutdown until everything queued has been written
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + windowMillis;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    Pending<T> next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Submitters blocked on a full queue hold the read lock: keep emptying it until they are out
+                while (!accepting.writeLock().tryLock()) {
+                    queue.drainTo(batch);
+                    Thread.yield();
+                }
+                running = false;
+                accepting.writeLock().unlock();
+                break;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+        // Interrupted: whatever was taken or is still queued will not be written
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            complete(batch, new IllegalStateException("Write-behind queue was stopped before the " + kind + " was written"));
+        }
+    }
+
+    private void stopAccepting() {
+        accepting.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            accepting.writeLock().unlock();
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Pending<T> p : batch) items.add(p.item);
+
+        Exception error = null;
+        try {
+            sink.write(items);
+        } catch (Exception e) {
+            System.err.println("ERROR: Failed to write batch of " + items.size() + " " + kind + "s. " + e.getMessage());
+            error = e;
+            if (e instanceof InterruptedException) interrupt(); // Still a stop request: the next poll sees it
+        }
+        complete(batch, error);
+    }
+
+    // Runs every callback of the batch (error == null: written)
+    private static <T> void complete(List<Pending<T>> batch, Exception error) {
+        for (Pending<T> p : batch) {
+            if (p.callback == null) continue;
+            try {
+                p.callback.onComplete(p.item, error);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Stops accepting items and waits (up to timeoutMillis) for the queue to drain
+    public void shutdown(long timeoutMillis) {
+        stopAccepting();
+        try {
+            join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("WARNING: " + queue.size() + " " + kind + "s were not written before shutdown.");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package blog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlogServerTest {
+
+    private DatabaseService store;
+    private BlogServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = DatabaseService.inMemory();
+        for (int i = 1; i <= 5; i++) store.addPost(new BlogPost("t" + i, "body " + i, new RegularUser("alice")));
+        server = new BlogServer(store, 0); // Any free port
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        store.close();
+    }
+
+    private HttpURLConnection open(String method, String path, String ifNoneMatch) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        c.setRequestMethod(method);
+        if (ifNoneMatch != null) c.setRequestProperty("If-None-Match", ifNoneMatch);
+        return c;
+    }
+
+    private static String body(HttpURLConnection c) throws IOException {
+        InputStream in = c.getResponseCode() < 400 ? c.getInputStream() : c.getErrorStream();
+        if (in == null) return "";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnswered304WithoutABody() throws IOException {
+        HttpURLConnection first = open("GET", "/api/feed?limit=3", null);
+        assertEquals(200, first.getResponseCode());
+        String etag = first.getHeaderField("ETag");
+        assertNotNull(etag);
+        assertTrue(body(first).contains("\"t5\""));
+
+        HttpURLConnection again = open("GET", "/api/feed?limit=3", etag);
+        assertEquals(304, again.getResponseCode());
+        assertEquals(etag, again.getHeaderField("ETag"));
+        assertEquals("", body(again));
+
+        // Weak form and lists of tags match too
+        assertEquals(304, open("GET", "/api/feed?limit=3", "\"other\", W/" + etag).getResponseCode());
+        assertEquals(200, open("GET", "/api/feed?limit=3", "\"other\"").getResponseCode());
+    }
+
+    @Test
+    void etagChangesWithTheDataNotTheRequest() throws IOException {
+        String etag = open("GET", "/api/posts/3", null).getHeaderField("ETag");
+        assertEquals(etag, open("HEAD", "/api/posts/3", null).getHeaderField("ETag"));
+
+        store.likePost(3);
+
+        HttpURLConnection after = open("GET", "/api/posts/3", etag);
+        assertEquals(200, after.getResponseCode());
+        assertNotEquals(etag, after.getHeaderField("ETag"));
+        assertTrue(body(after).contains("\"likes\":1"));
+    }
+
+    @Test
+    void errorsCarryAStatusAndNoBodyForHead() throws IOException {
+        HttpURLConnection missing = open("GET", "/api/posts/999", null);
+        assertEquals(404, missing.getResponseCode());
+        assertTrue(body(missing).contains("\"error\""));
+
+        HttpURLConnection head = open("HEAD", "/api/posts/999", null);
+        assertEquals(404, head.getResponseCode());
+        assertEquals("", body(head));
+
+        assertEquals(405, open("POST", "/api/feed", null).getResponseCode());
+    }
+}
@@ -0,0 +1,160 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkTransferTest {
+
+    private static final BulkTransfer.Progress QUIET = new BulkTransfer.Progress("Imported", -1);
+
+    private static ByteArrayInputStream utf8(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> titles(IDataService data) throws IOException {
+        List<String> titles = new ArrayList<>();
+        data.exportPosts(0, p -> titles.add(p.title));
+        return titles;
+    }
+
+    private static String ndjson(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            sb.append("{\"title\":\"p").append(i).append("\",\"author\":\"alice\",\"likes\":").append(i).append("}\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void ndjsonValuesCanBeStringsNumbersOrNull() throws IOException {
+        Map<String, String> r = BulkTransfer.parseFlatObject(
+                " { \"title\" : \"say \\\"hi\\\"\\n\\u00e9\" , \"likes\":12,\"ok\":true, \"content\":null } ", 1);
+        assertEquals("say \"hi\"\n\u00e9", r.get("title"));
+        assertEquals("12", r.get("likes"));
+        assertEquals("true", r.get("ok"));
+        assertTrue(r.containsKey("content"));
+        assertNull(r.get("content"));
+        assertTrue(BulkTransfer.parseFlatObject("{}", 1).isEmpty());
+    }
+
+    @Test
+    void ndjsonErrorsNameTheLine() throws IOException {
+        BulkTransfer.NdjsonSource source = new BulkTransfer.NdjsonSource(utf8(
+                "{\"title\":\"a\"}\n\n   \n{\"title\":\"b\" \"x\":1}\n"));
+        assertEquals("a", source.next().get("title"));
+        IOException e = assertThrows(IOException.class, source::next);
+        assertTrue(e.getMessage().startsWith("Line 4:"), e.getMessage());
+
+        assertThrows(IOException.class, () -> BulkTransfer.parseFlatObject("{\"title\":\"open", 1));
+        assertThrows(IOException.class, () -> BulkTransfer.parseFlatObject("{\"likes\":}", 1));
+    }
+
+    @Test
+    void csvQuotedFieldsKeepCommasQuotesAndNewlines() throws IOException {
+        BulkTransfer.CsvSource source = new BulkTransfer.CsvSource(utf8(
+                "title,author,content\r\n"
+                        + "\"a, b\",alice,\"line 1\nline \"\"2\"\"\"\r\n"
+                        + "\r\n"
+                        + "plain,bob,\n"
+                        + "empty,carol,\"\""));
+        Map<String, String> first = source.next();
+        assertEquals("a, b", first.get("title"));
+        assertEquals("alice", first.get("author"));
+        assertEquals("line 1\nline \"2\"", first.get("content"));
+
+        Map<String, String> second = source.next();
+        assertEquals("plain", second.get("title"));
+        assertNull(second.get("content")); // Empty unquoted field = null
+
+        assertEquals("", source.next().get("content")); // Quoted empty field = empty string
+        assertNull(source.next());
+
+        assertThrows(IOException.class, () -> new BulkTransfer.CsvSource(utf8("")));
+        BulkTransfer.CsvSource open = new BulkTransfer.CsvSource(utf8("title\n\"never closed"));
+        assertThrows(IOException.class, open::next);
+    }
+
+    @Test
+    void exportThenImportRoundTripsInBothFormats() throws IOException {
+        DatabaseService from = DatabaseService.inMemory();
+        try {
+            BlogPost tricky = new BlogPost("Commas, \"quotes\"", "two\r\nlines", new RegularUser("alice"));
+            tricky.timestamp = 1234L;
+            tricky.likes = 1;
+            from.addPost(tricky);
+            from.addPost(new BlogPost("No body", null, new RegularUser("bob")));
+
+            for (boolean csv : new boolean[]{false, true}) {
+                StringWriter out = new StringWriter();
+                assertEquals(2, BulkTransfer.export(from, 0, out, csv));
+
+                DatabaseService to = DatabaseService.inMemory();
+                try {
+                    byte[] bytes = out.toString().getBytes(StandardCharsets.UTF_8);
+                    BulkTransfer.RecordSource source = csv
+                            ? new BulkTransfer.CsvSource(new ByteArrayInputStream(bytes))
+                            : new BulkTransfer.NdjsonSource(new ByteArrayInputStream(bytes));
+                    assertEquals(2, BulkTransfer.importPosts(to, source, 0, 10, QUIET, null));
+
+                    BlogPost copy = to.getPostById(1);
+                    assertEquals(tricky.title, copy.title);
+                    assertEquals("two\r\nlines", copy.content);
+                    assertEquals("alice", copy.author.getUsername());
+                    assertEquals(1, copy.likes);
+                    assertEquals(1234L, copy.timestamp);
+                    assertNull(to.getPostById(2).content);
+                } finally {
+                    to.close();
+                }
+            }
+        } finally {
+            from.close();
+        }
+    }
+
+    @Test
+    void resumingFromTheSavedOffsetImportsEachRecordOnce(@TempDir Path dir) throws IOException {
+        Path offsetFile = dir.resolve("posts.ndjson.offset");
+        DatabaseService to = DatabaseService.inMemory();
+        try {
+            // Record 8 is broken: chunks of 3 commit records 1-6, then the import stops
+            String broken = ndjson(1, 7) + "{\"title\":\"p8\"}\n" + ndjson(9, 10);
+            IOException e = assertThrows(IOException.class, () -> BulkTransfer.importPosts(to,
+                    new BulkTransfer.NdjsonSource(utf8(broken)), 0, 3, QUIET,
+                    done -> BulkTransfer.saveOffset(offsetFile, done)));
+            assertTrue(e.getMessage().contains("Record 8"), e.getMessage());
+            assertEquals("6", new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8));
+            assertFalse(Files.exists(dir.resolve("posts.ndjson.offset.tmp")));
+
+            // Fixed file, resumed after the saved offset
+            long offset = Long.parseLong(new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8));
+            long done = BulkTransfer.importPosts(to, new BulkTransfer.NdjsonSource(utf8(ndjson(1, 10))),
+                    offset, 3, QUIET, d -> BulkTransfer.saveOffset(offsetFile, d));
+            assertEquals(10, done);
+            assertEquals("10", new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8));
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) expected.add("p" + i);
+            assertEquals(expected, titles(to));
+
+            // An offset past the end of the file imports nothing
+            assertEquals(10, BulkTransfer.importPosts(to, new BulkTransfer.NdjsonSource(utf8(ndjson(1, 10))),
+                    12, 3, QUIET, null));
+            assertEquals(10, titles(to).size());
+        } finally {
+            to.close();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package blog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDataServiceTest {
+
+    private DatabaseService store;
+    private CachingDataService cache;
+
+    @BeforeEach
+    void setUp() {
+        store = DatabaseService.inMemory();
+        cache = new CachingDataService(store);
+        for (int i = 1; i <= 30; i++) {
+            store.addPost(new BlogPost("t" + i, "body " + i, new RegularUser(i % 2 == 0 ? "alice" : "bob")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static List<Integer> ids(List<BlogPost> posts) {
+        List<Integer> ids = new ArrayList<>();
+        for (BlogPost p : posts) ids.add(p.id);
+        return ids;
+    }
+
+    private long pageHits() {
+        return cache.getPageStats().hits;
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCacheAsCopies() {
+        List<BlogPost> first = cache.getPostsBefore(0, 10);
+        first.get(0).likes = 99; // The caller's copy, not the cached one
+        first.get(0).title = "changed";
+
+        long hits = pageHits();
+        List<BlogPost> second = cache.getPostsBefore(0, 10);
+        assertEquals(hits + 1, pageHits());
+        assertEquals(ids(first), ids(second));
+        assertEquals(0, second.get(0).likes);
+        assertEquals("t30", second.get(0).title);
+
+        BlogPost post = cache.getPostById(5);
+        post.content = "changed";
+        assertEquals("body 5", cache.getPostById(5).content);
+        assertEquals(1, cache.getPostStats().hits);
+    }
+
+    @Test
+    void newPostDropsOnlyTheFirstPagesItLandsOn() {
+        cache.getPostsBefore(0, 10);
+        cache.getPostsBefore(21, 10);
+        cache.getPostsByAuthor("alice", 0, 5);
+        cache.getPostsByAuthor("bob", 0, 5);
+
+        cache.addPost(new BlogPost("new", "body", new RegularUser("alice")));
+
+        long hits = pageHits();
+        assertEquals(31, cache.getPostsBefore(0, 10).get(0).id);                         // Reloaded
+        assertEquals(Arrays.asList(20, 19, 18), ids(cache.getPostsBefore(21, 10)).subList(0, 3)); // Cached
+        assertEquals(31, cache.getPostsByAuthor("alice", 0, 5).get(0).id);              // Reloaded
+        assertEquals(29, cache.getPostsByAuthor("bob", 0, 5).get(0).id);                // Cached
+        assertEquals(hits + 2, pageHits());
+    }
+
+    @Test
+    void importDropsEveryPage() throws Exception {
+        cache.getPostsBefore(0, 10);
+        cache.getPostsBefore(21, 10);
+
+        BlogPost old = new BlogPost("imported", "body", new RegularUser("carol"));
+        old.timestamp = 1000L;
+        cache.importPosts(Arrays.asList(old));
+
+        long hits = pageHits();
+        assertEquals(31, cache.getPostsBefore(0, 10).get(0).id);
+        cache.getPostsBefore(21, 10);
+        assertEquals(hits, pageHits());
+    }
+
+    @Test
+    void likesPatchCachedCopiesInsteadOfDroppingThem() {
+        cache.getPostsBefore(0, 10);
+        cache.getPostById(28);
+
+        cache.likePost(28);
+        cache.likePost(28);
+        cache.likePost(3); // Not cached anywhere: nothing to patch
+
+        long pageHits = pageHits();
+        long postHits = cache.getPostStats().hits;
+        BlogPost inPage = cache.getPostsBefore(0, 10).get(2);
+        BlogPost single = cache.getPostById(28);
+        assertEquals(pageHits + 1, pageHits());
+        assertEquals(postHits + 1, cache.getPostStats().hits);
+
+        assertEquals(28, inPage.id);
+        assertEquals(2, inPage.likes);
+        assertEquals(2, single.likes);
+        assertEquals(store.getLikeCount(28), single.likes);
+        assertEquals(1, cache.getPostById(3).likes);
+    }
+}
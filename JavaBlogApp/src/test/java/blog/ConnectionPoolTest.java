@@ -0,0 +1,183 @@
+package blog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ConnectionPool against an embedded H2 database (one fresh in-memory database per test)
+class ConnectionPoolTest {
+    private String url;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:pool" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        pool = new ConnectionPool(url, "sa", "", 2, 200, 60000, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void borrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        PooledConnection a = pool.borrow();
+        PooledConnection b = pool.borrow();
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, pool::borrow);
+        assertTrue(System.nanoTime() - start >= 150_000_000L, "should wait for the borrow timeout");
+        assertEquals(1, pool.getStats().timeouts);
+
+        // A returned connection is available again
+        a.close();
+        pool.borrow().close();
+        b.close();
+    }
+
+    @Test
+    void returnedConnectionsAreReused() throws SQLException {
+        PooledConnection first = pool.borrow();
+        first.close();
+        PooledConnection second = pool.borrow();
+        assertSame(first, second);
+        second.close();
+        assertEquals(1, pool.getStats().idle);
+    }
+
+    @Test
+    void evictIdleClosesIdleConnections() throws SQLException {
+        PooledConnection a = pool.borrow();
+        PooledConnection b = pool.borrow();
+        a.close();
+        b.close();
+        assertEquals(2, pool.getStats().idle);
+
+        pool.evictIdle(60000); // Both were just used
+        assertEquals(2, pool.getStats().idle);
+
+        pool.evictIdle(0);
+        assertEquals(0, pool.getStats().idle);
+        assertTrue(a.raw.isClosed());
+        assertTrue(b.raw.isClosed());
+
+        // New connections are opened on demand
+        assertEquals(1, (int) pool.withConnection(conn -> query(conn, "SELECT 1")));
+    }
+
+    @Test
+    void preparedStatementsAreCachedPerConnection() throws SQLException {
+        PreparedStatement[] seen = new PreparedStatement[2];
+        for (int i = 0; i < 2; i++) {
+            int n = i;
+            pool.withConnection(conn -> {
+                seen[n] = conn.prepare("SELECT ?");
+                seen[n].setInt(1, 7);
+                try (ResultSet rs = seen[n].executeQuery()) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            });
+        }
+        assertSame(seen[0], seen[1]);
+        PoolStats stats = pool.getStats();
+        assertEquals(1, stats.statementCacheMisses);
+        assertEquals(1, stats.statementCacheHits);
+    }
+
+    @Test
+    void statementCacheEvictsLeastRecentlyUsed() throws SQLException {
+        pool.withConnection(conn -> {
+            PreparedStatement first = conn.prepare("SELECT 0");
+            for (int i = 1; i <= 4; i++) conn.prepare("SELECT " + i); // Cache holds 4
+            assertTrue(first.isClosed());
+            assertNotSame(first, conn.prepare("SELECT 0"));
+            return null;
+        });
+    }
+
+    @Test
+    void brokenConnectionIsDiscardedOnReturn() throws SQLException {
+        PooledConnection pc = pool.borrow();
+        pc.markBroken();
+        pc.close();
+        assertTrue(pc.raw.isClosed());
+        assertEquals(0, pool.getStats().idle);
+
+        PooledConnection next = pool.borrow();
+        assertNotSame(pc, next);
+        assertEquals(1, query(next, "SELECT 1"));
+        next.close();
+    }
+
+    @Test
+    void connectionErrorMarksConnectionBroken() throws SQLException {
+        PooledConnection[] used = new PooledConnection[1];
+        assertThrows(SQLNonTransientConnectionException.class, () -> pool.withConnection(conn -> {
+            used[0] = conn;
+            throw new SQLNonTransientConnectionException("connection reset", "08S01");
+        }));
+        assertTrue(used[0].raw.isClosed());
+        assertEquals(0, pool.getStats().idle);
+
+        // Other errors leave the connection in the pool
+        assertThrows(SQLException.class, () -> pool.withConnection(conn -> query(conn, "SELECT * FROM missing")));
+        assertEquals(1, pool.getStats().idle);
+    }
+
+    @Test
+    void closedRawConnectionIsNotHandedOutAgain() throws SQLException {
+        PooledConnection pc = pool.borrow();
+        pc.raw.close(); // e.g. the server dropped it
+        pc.close();
+        assertEquals(0, pool.getStats().idle);
+        assertEquals(1, (int) pool.withConnection(conn -> query(conn, "SELECT 1")));
+    }
+
+    @Test
+    void openTransactionIsRolledBackOnReturn() throws SQLException {
+        pool.withConnection(conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE t (id INT)");
+            }
+            return null;
+        });
+        PooledConnection pc = pool.borrow();
+        pc.getConnection().setAutoCommit(false);
+        pc.prepare("INSERT INTO t VALUES (1)").executeUpdate();
+        pc.close();
+
+        PooledConnection again = pool.borrow();
+        assertTrue(again.getConnection().getAutoCommit());
+        assertEquals(0, query(again, "SELECT COUNT(*) FROM t"));
+        again.close();
+    }
+
+    @Test
+    void pingUsesItsOwnConnection() throws SQLException {
+        PooledConnection a = pool.borrow();
+        PooledConnection b = pool.borrow();
+        assertTrue(pool.ping()); // Works with every pooled connection busy
+        a.close();
+        b.close();
+        pool.close();
+        assertFalse(pool.ping());
+        assertThrows(SQLException.class, pool::borrow);
+    }
+
+    private static int query(PooledConnection conn, String sql) throws SQLException {
+        try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialCacheTest {
+
+    @Test
+    void onlyRememberedPasswordsMatch() {
+        CredentialCache cache = new CredentialCache();
+        assertFalse(cache.matches("alice", "secret"));
+
+        cache.remember("alice", "secret");
+        assertTrue(cache.matches("alice", "secret"));
+        assertFalse(cache.matches("alice", "guess"));
+        assertFalse(cache.matches("mallory", "secret"));
+        assertFalse(cache.matches("Alice", "secret"));
+    }
+
+    @Test
+    void forgetAndReplace() {
+        CredentialCache cache = new CredentialCache();
+        cache.remember("alice", "old");
+        cache.remember("alice", "new");
+        assertFalse(cache.matches("alice", "old"));
+        assertTrue(cache.matches("alice", "new"));
+
+        cache.forget("alice");
+        assertFalse(cache.matches("alice", "new"));
+    }
+
+    @Test
+    void savedLoginsSurviveARestart(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("db.logins");
+        CredentialCache first = new CredentialCache(file);
+        first.remember("alice", "secret");
+        first.remember("admin", "root");
+        String saved = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertFalse(saved.contains("secret")); // Hashes only
+
+        CredentialCache second = new CredentialCache(file);
+        assertTrue(second.matches("alice", "secret"));
+        assertTrue(second.matches("admin", "root"));
+        assertFalse(second.matches("alice", "guess"));
+
+        second.forget("alice");
+        assertFalse(new CredentialCache(file).matches("alice", "secret"));
+        assertTrue(new CredentialCache(file).matches("admin", "root"));
+    }
+}
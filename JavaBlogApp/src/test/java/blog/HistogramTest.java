@@ -0,0 +1,83 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void smallValuesHaveExactBuckets() {
+        for (long v = 0; v < 8; v++) {
+            assertEquals(v, Histogram.bucket(v));
+            assertEquals(v, Histogram.bucketLimit((int) v));
+        }
+    }
+
+    @Test
+    void bucketLimitIsTheLargestValueOfItsBucket() {
+        for (long v = 8; v < 100_000; v++) {
+            int b = Histogram.bucket(v);
+            long limit = Histogram.bucketLimit(b);
+            assertTrue(limit >= v, "limit " + limit + " below " + v);
+            assertEquals(b, Histogram.bucket(limit));
+            assertEquals(b + 1, Histogram.bucket(limit + 1));
+        }
+    }
+
+    @Test
+    void relativeErrorStaysWithinOneEighth() {
+        long[] samples = {9, 100, 1_000, 123_456, 10_000_000, 987_654_321L, Long.MAX_VALUE / 3};
+        for (long v : samples) {
+            long limit = Histogram.bucketLimit(Histogram.bucket(v));
+            assertTrue((limit - v) <= v / 8.0, "bucket of " + v + " too wide: " + limit);
+        }
+        // The very largest values still land in a valid bucket
+        assertTrue(Histogram.bucketLimit(Histogram.bucket(Long.MAX_VALUE)) >= Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    void percentilesOfUniformValues() {
+        Histogram h = new Histogram(false);
+        for (int v = 1; v <= 1000; v++) h.record(v);
+        long[] now = h.snapshot();
+        assertEquals(1000, Histogram.count(now, null));
+        assertWithin(500, Histogram.percentile(now, null, 50));
+        assertWithin(990, Histogram.percentile(now, null, 99));
+        assertEquals(1, Histogram.percentile(now, null, 0));
+        assertEquals(1000, h.getMax(), 0.0);
+        assertEquals(500.5, h.getMean(), 0.001);
+    }
+
+    @Test
+    void intervalPercentilesOnlySeeNewValues() {
+        Histogram h = new Histogram(false);
+        for (int i = 0; i < 100; i++) h.record(10);
+        long[] before = h.snapshot();
+        for (int i = 0; i < 100; i++) h.record(10_000);
+        long[] after = h.snapshot();
+
+        assertEquals(100, Histogram.count(after, before));
+        assertWithin(10_000, Histogram.percentile(after, before, 50));
+        assertWithin(10_000, Histogram.percentile(after, null, 99));
+        assertWithin(10, Histogram.percentile(after, null, 50));
+        assertEquals(0, Histogram.percentile(before, before, 50)); // Empty interval
+    }
+
+    @Test
+    void timersReportMillisecondsAndResetClears() {
+        Histogram h = new Histogram(true);
+        h.record(2_000_000); // 2 ms
+        h.record(-5);        // Clamped to 0
+        assertEquals("ms", h.getUnit());
+        assertEquals(2.0, h.getMax(), 0.0);
+        assertTrue(h.getP99() <= 2.0); // Capped at the maximum
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, Histogram.count(h.snapshot(), null));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8, "expected ~" + expected + " but was " + actual);
+    }
+}
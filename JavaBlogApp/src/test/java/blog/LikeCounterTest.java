@@ -0,0 +1,158 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikeCounterTest {
+    private static final long NEVER = 3_600_000; // Flushes are triggered by the tests
+
+    @Test
+    void flushHandsOverDeltasAndDropsIdleCounters() {
+        List<Map<Integer, Long>> flushed = new CopyOnWriteArrayList<>();
+        LikeCounter counter = new LikeCounter((deltas, publish) -> flushed.add(deltas), NEVER);
+        for (int i = 0; i < 3; i++) counter.like(1);
+        counter.like(2);
+        assertEquals(3, counter.unflushed(1));
+
+        counter.flush();
+        assertEquals(1, flushed.size());
+        assertEquals(3L, flushed.get(0).get(1));
+        assertEquals(1L, flushed.get(0).get(2));
+        assertEquals(0, counter.unflushed(1));
+        assertEquals(2, counter.trackedPosts()); // Emptied, dropped at the next flush
+
+        counter.flush();
+        assertEquals(1, flushed.size()); // Nothing to write
+        assertEquals(0, counter.trackedPosts());
+
+        counter.like(1);
+        assertEquals(1, counter.unflushed(1));
+        counter.shutdown();
+        assertEquals(1L, flushed.get(1).get(1));
+    }
+
+    @Test
+    void failedFlushIsRetried() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        List<Map<Integer, Long>> flushed = new CopyOnWriteArrayList<>();
+        LikeCounter counter = new LikeCounter((deltas, publish) -> {
+            if (fail.get()) throw new IllegalStateException("database down");
+            flushed.add(deltas);
+        }, NEVER);
+        counter.like(7);
+        counter.like(7);
+
+        counter.flush();
+        assertTrue(flushed.isEmpty());
+        assertEquals(2, counter.unflushed(7));
+
+        fail.set(false);
+        counter.like(7);
+        counter.flush();
+        assertEquals(3L, flushed.get(0).get(7));
+        assertEquals(0, counter.unflushed(7));
+        counter.shutdown();
+    }
+
+    @Test
+    void readsAndLikesDoNotWaitForASlowSink() throws InterruptedException {
+        CountDownLatch inSink = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LikeCounter counter = new LikeCounter((deltas, publish) -> {
+            inSink.countDown();
+            release.await();
+        }, NEVER);
+        for (int i = 0; i < 5; i++) counter.like(1);
+
+        Thread flusher = new Thread(counter::flush);
+        flusher.start();
+        assertTrue(inSink.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            assertEquals(5, counter.unflushed(1)); // In flight, still counted
+            counter.like(1);
+            assertEquals(6, (long) counter.read(() -> counter.unflushed(1)));
+        });
+
+        release.countDown();
+        flusher.join(5000);
+        assertEquals(1, counter.unflushed(1));
+        counter.shutdown();
+    }
+
+    @Test
+    void concurrentLikesAreFlushedExactlyOnce() throws InterruptedException {
+        AtomicLong stored = new AtomicLong();
+        LikeCounter counter = new LikeCounter((deltas, publish) -> deltas.values().forEach(stored::addAndGet), NEVER);
+        int threads = 4, likesEach = 50_000;
+
+        List<Thread> likers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int post = t % 2 + 1;
+            Thread liker = new Thread(() -> {
+                for (int i = 0; i < likesEach; i++) counter.like(post);
+            });
+            likers.add(liker);
+            liker.start();
+        }
+        Thread flusher = new Thread(() -> {
+            while (likers.stream().anyMatch(Thread::isAlive)) counter.flush();
+        });
+        flusher.start();
+        for (Thread t : likers) t.join();
+        flusher.join();
+        counter.shutdown();
+
+        assertEquals((long) threads * likesEach, stored.get());
+        assertEquals(0, counter.unflushed(1) + counter.unflushed(2));
+    }
+
+    @Test
+    void readsCountEachLikeExactlyOnceAcrossCommits() throws InterruptedException {
+        AtomicLong stored = new AtomicLong();
+        LikeCounter counter = new LikeCounter((deltas, publish) ->
+                publish.run(() -> stored.addAndGet(deltas.get(1))), NEVER);
+        AtomicLong started = new AtomicLong(), issued = new AtomicLong(); // Around each like()
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread liker = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                started.incrementAndGet();
+                counter.like(1);
+                issued.incrementAndGet();
+            }
+            done.set(true);
+        });
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) counter.flush();
+        });
+        liker.start();
+        flusher.start();
+
+        List<String> errors = new ArrayList<>();
+        while (!done.get() && errors.isEmpty()) {
+            long before = issued.get();
+            long seen = counter.read(() -> stored.get() + counter.unflushed(1));
+            long after = started.get();
+            if (seen < before || seen > after) errors.add(seen + " outside [" + before + ", " + after + "]");
+        }
+        liker.join();
+        flusher.join();
+        counter.shutdown();
+
+        assertEquals(Collections.emptyList(), errors);
+        assertEquals(200_000, stored.get());
+    }
+}
@@ -0,0 +1,62 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryStoreTest {
+
+    private static List<Integer> ids(Iterable<BlogPost> posts) {
+        List<Integer> ids = new ArrayList<>();
+        for (BlogPost p : posts) ids.add(p.id);
+        return ids;
+    }
+
+    @Test
+    void postsAfterWalksStoredIdsInAscendingOrder() {
+        MemoryStore store = new MemoryStore();
+        User author = new RegularUser("alice");
+        for (int i = 0; i < 5; i++) store.addPost(new BlogPost("t" + i, "body", author));
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), ids(store.postsAfter(0)));
+        assertEquals(Arrays.asList(4, 5), ids(store.postsAfter(3)));
+        assertTrue(ids(store.postsAfter(5)).isEmpty());
+    }
+
+    @Test
+    void pagesSeeEveryPostRegardlessOfTimestamps() {
+        MemoryStore store = new MemoryStore();
+        User author = new RegularUser("alice");
+        // Imported posts keep their original (older) timestamps
+        for (int i = 0; i < 3; i++) {
+            BlogPost p = new BlogPost("t" + i, "body", author);
+            p.timestamp = 1000L - i;
+            store.addPost(p);
+        }
+        assertEquals(Arrays.asList(3, 2, 1), ids(store.getPostsBefore(0, 10)));
+        assertEquals(Arrays.asList(1, 2, 3), ids(store.getPostsAfter(0, 10)));
+    }
+
+    @Test
+    void postsSinceFollowCreationTimeAndPageOnTimeAndId() {
+        MemoryStore store = new MemoryStore();
+        User author = new RegularUser("alice");
+        long[] created = {5000, 1000, 3000, 3000, 9000}; // Imported out of order, with a tie
+        for (long t : created) {
+            BlogPost p = new BlogPost("t" + t, "body", author);
+            p.timestamp = t;
+            store.addPost(p);
+        }
+
+        assertEquals(Arrays.asList(3, 4, 1, 5), ids(store.getPostsSince(2000, 0, 0, 10)));
+        List<BlogPost> first = store.getPostsSince(2000, 0, 0, 1);
+        assertEquals(Arrays.asList(3), ids(first));
+        BlogPost last = first.get(0);
+        assertEquals(Arrays.asList(4, 1), ids(store.getPostsSince(2000, last.timestamp, last.id, 2)));
+        assertEquals(Arrays.asList(5), ids(store.getPostsSince(2000, 5000, 1, 2)));
+    }
+}
@@ -0,0 +1,160 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineBufferTest {
+
+    @TempDir
+    Path dir;
+
+    private static BlogPost post(String title) {
+        return new BlogPost(title, "body of " + title, UserRegistry.author("alice"));
+    }
+
+    // Records every batch as "type:size" (likes: the merged map)
+    private static class RecordingSink implements OfflineBuffer.ReplaySink {
+        final List<String> calls = new ArrayList<>();
+        final List<BlogPost> posts = new ArrayList<>();
+        SQLException failPosts; // Thrown on the next posts batch, then cleared
+        String refusedTitle; // Any batch holding a post with this title is refused
+
+        @Override
+        public void posts(List<BlogPost> batch) throws SQLException {
+            if (failPosts != null) {
+                SQLException e = failPosts;
+                failPosts = null;
+                throw e;
+            }
+            for (BlogPost p : batch) {
+                if (p.title.equals(refusedTitle)) throw new SQLException("Refused", "23000");
+            }
+            calls.add("posts:" + batch.size());
+            posts.addAll(batch);
+        }
+
+        @Override
+        public void comments(List<Comment> batch) {
+            calls.add("comments:" + batch.size());
+        }
+
+        @Override
+        public void likes(Map<Integer, Long> deltas) {
+            calls.add("likes:" + deltas);
+        }
+    }
+
+    @Test
+    void replaysInOrderInBatchesOfOneTypeAndEmptiesTheFile() throws Exception {
+        Path file = dir.resolve("outbox");
+        OfflineBuffer buffer = new OfflineBuffer(file);
+        buffer.appendPosts(Arrays.asList(post("a"), post("b")));
+        buffer.appendComments(Collections.singletonList(new Comment(1, "bob", "hi")));
+        buffer.appendLikes(Collections.singletonMap(1, 2L));
+        buffer.appendLikes(Collections.singletonMap(1, 3L));
+        buffer.appendPosts(Collections.singletonList(post("c")));
+        assertEquals(6, buffer.pending());
+
+        RecordingSink sink = new RecordingSink();
+        assertEquals(6, buffer.replay(sink, 100));
+        assertEquals(Arrays.asList("posts:2", "comments:1", "likes:{1=5}", "posts:1"), sink.calls);
+        assertEquals("body of a", sink.posts.get(0).content);
+        assertEquals(0, buffer.pending());
+        assertEquals(16, Files.size(file)); // Cut back to its header
+        buffer.close();
+    }
+
+    @Test
+    void outageStopsTheReplayAndTheCheckpointSurvivesAReopen() throws Exception {
+        Path file = dir.resolve("outbox");
+        OfflineBuffer buffer = new OfflineBuffer(file);
+        buffer.appendComments(Collections.singletonList(new Comment(1, "bob", "first")));
+        buffer.appendPosts(Arrays.asList(post("a"), post("b")));
+
+        RecordingSink down = new RecordingSink();
+        down.failPosts = new SQLTimeoutException("database down");
+        assertThrows(SQLTimeoutException.class, () -> buffer.replay(down, 100));
+        assertEquals(Collections.singletonList("comments:1"), down.calls);
+        assertEquals(2, buffer.pending());
+        buffer.close();
+
+        OfflineBuffer reopened = new OfflineBuffer(file);
+        assertEquals(2, reopened.pending());
+        RecordingSink up = new RecordingSink();
+        assertEquals(2, reopened.replay(up, 100));
+        assertEquals(Collections.singletonList("posts:2"), up.calls); // The comment is not repeated
+        assertEquals(0, reopened.pending());
+        reopened.close();
+    }
+
+    @Test
+    void onlyTheRefusedRecordOfABatchIsSetAside() throws Exception {
+        Path file = dir.resolve("outbox");
+        OfflineBuffer buffer = new OfflineBuffer(file);
+        buffer.appendPosts(Collections.singletonList(post("bad")));
+        long oneRecord = Files.size(file) - 16;
+        buffer.appendPosts(Arrays.asList(post("a1"), post("a2")));
+        buffer.appendComments(Collections.singletonList(new Comment(1, "bob", "ok")));
+
+        RecordingSink sink = new RecordingSink();
+        sink.refusedTitle = "bad";
+        assertEquals(4, buffer.replay(sink, 100));
+        assertEquals(Arrays.asList("posts:1", "posts:1", "comments:1"), sink.calls);
+        assertEquals("a1", sink.posts.get(0).title);
+        assertEquals("a2", sink.posts.get(1).title);
+        assertEquals(0, buffer.pending());
+        assertEquals(oneRecord, Files.size(dir.resolve("outbox.rejected")));
+        buffer.close();
+    }
+
+    @Test
+    void postsThatCannotFitTheSchemaAreRefusedUpFront() throws Exception {
+        OfflineBuffer buffer = new OfflineBuffer(dir.resolve("outbox"));
+        char[] title = new char[256];
+        Arrays.fill(title, 'x');
+        SQLException e = assertThrows(SQLException.class,
+                () -> buffer.appendPosts(Arrays.asList(post("fine"), post(new String(title)))));
+        assertEquals("22001", e.getSQLState());
+        assertEquals(0, buffer.pending()); // Nothing of the call was accepted
+        buffer.close();
+    }
+
+    @Test
+    void nullStringsSurviveTheRoundTrip() throws Exception {
+        OfflineBuffer buffer = new OfflineBuffer(dir.resolve("outbox"));
+        buffer.appendPosts(Arrays.asList(new BlogPost("no body", null, UserRegistry.author("alice")), post("empty")));
+        RecordingSink sink = new RecordingSink();
+        buffer.replay(sink, 100);
+        assertNull(sink.posts.get(0).content);
+        assertEquals("body of empty", sink.posts.get(1).content);
+        buffer.close();
+    }
+
+    @Test
+    void tornTailIsCutOffOnOpen() throws Exception {
+        Path file = dir.resolve("outbox");
+        OfflineBuffer buffer = new OfflineBuffer(file);
+        buffer.appendPosts(Collections.singletonList(post("kept")));
+        buffer.close();
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND); // Half a record
+
+        OfflineBuffer reopened = new OfflineBuffer(file);
+        assertEquals(1, reopened.pending());
+        assertEquals(size, Files.size(file));
+        reopened.close();
+    }
+}
@@ -0,0 +1,53 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostBodyCacheTest {
+
+    private static String body(int chars) {
+        StringBuilder sb = new StringBuilder(chars);
+        for (int i = 0; i < chars; i++) sb.append('x');
+        return sb.toString();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByTotalCharacters() {
+        PostBodyCache cache = new PostBodyCache(300, 200);
+        cache.put(1, body(100));
+        cache.put(2, body(100));
+        cache.put(3, body(100));
+        assertEquals(300, cache.chars());
+
+        cache.get(1); // 2 is now the least recently used
+        cache.put(4, body(50));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+        assertEquals(250, cache.chars());
+    }
+
+    @Test
+    void oversizedBodiesAreNeverCached() {
+        PostBodyCache cache = new PostBodyCache(300, 200);
+        cache.put(1, body(100));
+        cache.put(2, body(201));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1)); // Nothing was pushed out
+        assertFalse(cache.accepts(201));
+        assertTrue(cache.accepts(200));
+    }
+
+    @Test
+    void replacingAnEntryKeepsTheCountRight() {
+        PostBodyCache cache = new PostBodyCache(300, 200);
+        cache.put(1, body(100));
+        cache.put(1, body(40));
+        assertEquals(40, cache.chars());
+        assertEquals(1, cache.size());
+        cache.put(1, null);
+        assertEquals(40, cache.chars());
+    }
+}
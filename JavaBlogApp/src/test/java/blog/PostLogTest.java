@@ -0,0 +1,150 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostLogTest {
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int BIG = 3600; // Fits a segment only on its own
+
+    @TempDir
+    Path dir;
+
+    private static BlogPost post(String title, String content) {
+        return new BlogPost(title, content, UserRegistry.author("alice"));
+    }
+
+    private static String repeat(char c, int n) {
+        char[] chars = new char[n];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Test
+    void reopenRecoversPostsLikesAndComments() throws IOException {
+        PostLog log = new PostLog(dir, SEGMENT_SIZE);
+        log.appendPosts(Arrays.asList(post("one", "first body"), post("two", "second body")));
+        log.appendLikes(Collections.singletonMap(1, 3L));
+        log.appendComments(Collections.singletonList(new Comment(2, "bob", "nice")));
+        log.close();
+
+        PostLog reopened = new PostLog(dir, SEGMENT_SIZE);
+        try {
+            assertEquals(2, reopened.highId());
+            assertEquals("first body", reopened.readPost(1).content);
+            assertEquals("two", reopened.readSummary(2).title);
+            assertEquals(3, reopened.likes(1));
+            assertArrayEquals(new int[]{1, 2}, reopened.idsByAuthor("alice"));
+            List<Comment> comments = reopened.comments(2, 0, 10);
+            assertEquals(1, comments.size());
+            assertEquals("nice", comments.get(0).body);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void tornWriteInTheActiveSegmentIsCutOff() throws IOException {
+        PostLog log = new PostLog(dir, SEGMENT_SIZE);
+        log.appendPosts(Collections.singletonList(post("kept", "safe")));
+        log.appendPosts(Collections.singletonList(post("torn", "TORN-MARKER")));
+        log.close();
+
+        // Damage the payload of the last record so its CRC no longer matches
+        Path segment = dir.resolve("seg-00000001.log");
+        byte[] bytes = Files.readAllBytes(segment);
+        int at = indexOf(bytes, "TORN-MARKER".getBytes(StandardCharsets.UTF_8));
+        assertTrue(at > 0);
+        bytes[at] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        PostLog reopened = new PostLog(dir, SEGMENT_SIZE);
+        try {
+            assertEquals(1, reopened.highId());
+            assertEquals("safe", reopened.readPost(1).content);
+            // The next append reuses the id and the space of the torn record
+            reopened.appendPosts(Collections.singletonList(post("again", "retried")));
+            assertEquals("retried", reopened.readPost(2).content);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void compactionFoldsLikesAndSurvivesReopen() throws IOException {
+        PostLog log = new PostLog(dir, SEGMENT_SIZE);
+        log.appendPosts(Arrays.asList(post("one", "a"), post("two", "b")));
+        for (int i = 0; i < 20; i++) log.appendLikes(Collections.singletonMap(1 + i % 2, 1L));
+        // A post that no longer fits seals segment 1, which schedules its compaction
+        log.appendPosts(Collections.singletonList(post("big", repeat('x', BIG))));
+        log.appendComments(Collections.singletonList(new Comment(1, "bob", "hi")));
+        log.close(); // Waits for the compaction
+
+        Path compacted = dir.resolve("seg-00000001.1.log");
+        assertTrue(Files.size(compacted) < SEGMENT_SIZE, "sealed segment should have been rewritten");
+        assertFalse(Files.exists(dir.resolve("seg-00000001.log")));
+        assertFalse(Files.exists(dir.resolve("seg-00000001.1.log.compact")));
+
+        // An old generation whose delete failed (still mapped on Windows) is ignored and removed
+        Files.write(dir.resolve("seg-00000001.log"), new byte[]{1, 2, 3});
+
+        PostLog reopened = new PostLog(dir, SEGMENT_SIZE);
+        try {
+            assertFalse(Files.exists(dir.resolve("seg-00000001.log")));
+            assertEquals(3, reopened.highId());
+            assertEquals(10, reopened.likes(1));
+            assertEquals(10, reopened.likes(2));
+            assertEquals("a", reopened.readPost(1).content);
+            assertEquals(BIG, reopened.readPost(3).content.length());
+            assertEquals("hi", reopened.comments(1, 0, 10).get(0).body);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void readsKeepWorkingAcrossACompaction() throws Exception {
+        PostLog log = new PostLog(dir, SEGMENT_SIZE);
+        try {
+            log.appendPosts(Arrays.asList(post("one", "a"), post("two", "b")));
+            log.appendComments(Collections.singletonList(new Comment(2, "bob", "hi")));
+            for (int i = 0; i < 20; i++) log.appendLikes(Collections.singletonMap(1, 1L));
+            log.appendPosts(Collections.singletonList(post("big", repeat('x', BIG))));
+
+            Path sealed = dir.resolve("seg-00000001.log");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (Files.exists(sealed)) { // Deleted once readers have moved to seg-00000001.1.log
+                assertEquals("a", log.readPost(1).content);
+                assertTrue(System.currentTimeMillis() < deadline, "compaction did not finish");
+                Thread.sleep(5);
+            }
+            assertEquals("a", log.readPost(1).content);
+            assertEquals("b", log.readPost(2).content);
+            assertEquals(20, log.likes(1));
+            assertEquals("hi", log.comments(2, 0, 10).get(0).body);
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostRankerTest {
+
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    void topKeepsTheMostLikedPostsNewerFirstOnTies() {
+        PostRanker ranker = new PostRanker(3, HOUR);
+        long now = System.currentTimeMillis();
+        for (int id = 1; id <= 5; id++) ranker.postAdded(id, now);
+        ranker.liked(1, 5);
+        ranker.liked(3, 2);
+        ranker.liked(4, 2);
+
+        assertEquals(Arrays.asList(1, 4, 3), ranker.top(FeedView.TOP, 10));
+        assertEquals(Arrays.asList(1), ranker.top(FeedView.TOP, 1));
+
+        // A post outside the top 3 gets in once it passes the lowest ranked one
+        ranker.liked(5, 3);
+        assertEquals(Arrays.asList(1, 5, 4), ranker.top(FeedView.TOP, 10));
+        ranker.liked(0, 1); // Not a post: ignored
+        assertEquals(3, ranker.capacity());
+    }
+
+    @Test
+    void trendingHalvesAnEventsWeightEveryHalfLife() {
+        PostRanker ranker = new PostRanker(10, HOUR);
+        long now = System.currentTimeMillis();
+        ranker.beginRebuild(3);
+        ranker.seed(1, 7, now - 3 * HOUR); // 8 events, three half-lives old: weight 1
+        ranker.seed(2, 1, now);            // 2 events now: weight 2
+        ranker.seed(3, 0, now - HOUR);     // 1 event, one half-life old: weight 1/2
+        ranker.endRebuild();
+
+        assertEquals(Arrays.asList(1, 2, 3), ranker.top(FeedView.TOP, 10));
+        assertEquals(Arrays.asList(2, 1, 3), ranker.top(FeedView.TRENDING, 10));
+
+        // Fresh likes lift an old post again
+        ranker.liked(3, 2);
+        assertEquals(3, (int) ranker.top(FeedView.TRENDING, 1).get(0));
+    }
+
+    @Test
+    void rescalingKeepsTheOrderAndNeverOverflows() {
+        long halfLife = 10;
+        PostRanker ranker = new PostRanker(10, halfLife);
+        long now = System.currentTimeMillis();
+        ranker.beginRebuild(2);
+        ranker.seed(1, 3, now);
+        ranker.seed(2, 0, now);
+        ranker.endRebuild();
+
+        // 950 half-lives past the epoch: past the rescale threshold
+        ranker.postAdded(3, now + 950 * halfLife);
+        ranker.postAdded(4, now + 949 * halfLife);
+        assertEquals(Arrays.asList(3, 4, 1, 2), ranker.top(FeedView.TRENDING, 10));
+
+        // Far enough for the old scores to round to zero; without rescaling these would be
+        // infinite and tie, putting the newer post 6 first
+        ranker.postAdded(5, now + 10_000 * halfLife);
+        ranker.postAdded(6, now + 9_999 * halfLife);
+        assertEquals(Arrays.asList(5, 6), ranker.top(FeedView.TRENDING, 2));
+    }
+
+    @Test
+    void rebuildCountsEachLikeOnceWhetherStoredUnflushedOrLive() {
+        PostRanker ranker = new PostRanker(10, HOUR);
+        long now = System.currentTimeMillis();
+        AtomicInteger unflushed2 = new AtomicInteger();
+
+        ranker.beginRebuild(2);
+        ranker.seed(1, 2, now, () -> 1);                       // 2 stored + 1 unflushed
+        ranker.liked(1, 1, () -> { });                         // Already seeded: counted live
+        ranker.liked(2, 1, unflushed2::incrementAndGet);       // Not reached yet: left to seed
+        ranker.seed(2, 0, now, unflushed2::get);
+        ranker.endRebuild();
+        ranker.liked(2, 1);
+
+        assertEquals(1, unflushed2.get());
+        assertEquals(Arrays.asList(1, 2), ranker.top(FeedView.TOP, 10));
+        ranker.liked(2, 2); // 1 + 1 + 2 = 4 = post 1's count; the newer post wins the tie
+        assertEquals(Arrays.asList(2, 1), ranker.top(FeedView.TOP, 10));
+    }
+}
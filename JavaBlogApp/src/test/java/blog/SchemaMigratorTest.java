@@ -0,0 +1,93 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// SchemaMigrator against an embedded H2 database in MySQL mode
+class SchemaMigratorTest {
+
+    private static String freshUrl() {
+        return "jdbc:h2:mem:schema" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    private static int versionRows(ConnectionPool pool) throws SQLException {
+        return pool.withConnection(conn -> {
+            try (Statement st = conn.getConnection().createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM schema_version")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        });
+    }
+
+    @Test
+    void migratesOnceAndThenIsANoOp() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(freshUrl(), "sa", "", 2, 1000, 60000, 4);
+        try {
+            assertEquals(SchemaMigrator.latestVersion(), new SchemaMigrator().migrate(pool));
+            assertEquals(0, new SchemaMigrator().migrate(pool));
+            assertEquals(SchemaMigrator.latestVersion(), versionRows(pool));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void createdAtRangeReadUsesItsIndex() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(freshUrl(), "sa", "", 1, 1000, 60000, 4);
+        try {
+            new SchemaMigrator().migrate(pool);
+            String plan = pool.withConnection(conn -> {
+                try (Statement st = conn.getConnection().createStatement();
+                     ResultSet rs = st.executeQuery("EXPLAIN SELECT id, title, author, likes, created_at FROM posts " +
+                             "WHERE created_at >= TIMESTAMP '2024-01-01 00:00:00' AND (created_at > TIMESTAMP '2024-01-02 00:00:00' " +
+                             "OR (created_at = TIMESTAMP '2024-01-02 00:00:00' AND id > 7)) ORDER BY created_at, id LIMIT 20")) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            });
+            assertTrue(plan.toLowerCase().contains("idx_posts_created_at"), plan);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void instancesStartingTogetherEachRecordAVersionOnce() throws Exception {
+        String url = freshUrl();
+        int instances = 4;
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (int i = 0; i < instances; i++) pools.add(new ConnectionPool(url, "sa", "", 1, 5000, 60000, 4));
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (ConnectionPool pool : pools) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return new SchemaMigrator().migrate(pool);
+                }));
+            }
+            start.countDown();
+
+            int applied = 0;
+            for (Future<Integer> f : results) applied += f.get(); // No instance fails
+            assertEquals(SchemaMigrator.latestVersion(), applied);
+            assertEquals(SchemaMigrator.latestVersion(), versionRows(pools.get(0)));
+        } finally {
+            executor.shutdownNow();
+            for (ConnectionPool pool : pools) pool.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static final User AUTHOR = new RegularUser("alice");
+
+    private static void add(SearchIndex index, int id, String title, String content) {
+        BlogPost p = new BlogPost(title, content, AUTHOR);
+        p.id = id;
+        index.add(p);
+    }
+
+    private static List<Integer> ids(List<SearchIndex.Hit> hits) {
+        List<Integer> ids = new ArrayList<>();
+        for (SearchIndex.Hit h : hits) ids.add(h.postId);
+        return ids;
+    }
+
+    private static String repeat(String word, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) sb.append(word).append(' ');
+        return sb.toString();
+    }
+
+    @Test
+    void tokenizeLowercasesSplitsOnPunctuationAndDropsNoise() {
+        assertEquals(Arrays.asList("quick", "brown", "fox", "x9"),
+                SearchIndex.tokenize("The Quick, brown-fox is 2 x9 a!"));
+        assertTrue(SearchIndex.tokenize(null).isEmpty());
+        assertTrue(SearchIndex.tokenize("  ...  ").isEmpty());
+    }
+
+    @Test
+    void queriesWithNothingToMatchFindNothing() {
+        SearchIndex index = new SearchIndex();
+        add(index, 1, "Java tips", "generics and streams");
+
+        assertTrue(index.search("kotlin", 10).isEmpty());
+        assertTrue(index.search("the and of", 10).isEmpty()); // Stop words only
+        assertTrue(index.search("java", 0).isEmpty());
+        assertEquals(Arrays.asList(1), ids(index.search("JAVA", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void titleMatchesOutrankBodyMatches() {
+        SearchIndex index = new SearchIndex();
+        add(index, 1, "Weekend notes", "some thoughts on java");
+        add(index, 2, "Java notes", "some thoughts");
+        add(index, 3, "Cooking", "pasta");
+
+        assertEquals(Arrays.asList(2, 1), ids(index.search("java", 10)));
+    }
+
+    @Test
+    void rarerTermsWeighMore() {
+        SearchIndex index = new SearchIndex();
+        add(index, 1, "Post", "common words everywhere");
+        add(index, 2, "Post", "common words and a rare one");
+        add(index, 3, "Post", "common words");
+        add(index, 4, "Post", "common");
+
+        List<SearchIndex.Hit> hits = index.search("common rare", 10);
+        assertEquals(2, hits.get(0).postId);
+        // "common" is in every post, so only the selective term is scored
+        assertEquals(1, hits.size());
+    }
+
+    @Test
+    void equalScoresGoToTheNewerPost() {
+        SearchIndex index = new SearchIndex();
+        for (int id = 1; id <= 4; id++) add(index, id, "Same", "identical body text");
+        add(index, 5, "Other", "unrelated");
+
+        assertEquals(Arrays.asList(4, 3, 2, 1), ids(index.search("identical", 10)));
+    }
+
+    @Test
+    void topKKeepsOnlyTheBestHitsInRankOrder() {
+        SearchIndex index = new SearchIndex();
+        for (int id = 1; id <= 200; id++) {
+            // Term frequency grows with the id, so the last ids score highest
+            add(index, id, "Post " + id, repeat("word", id) + (id % 2 == 0 ? "even" : "odd"));
+        }
+
+        List<SearchIndex.Hit> hits = index.search("word", 5);
+        assertEquals(Arrays.asList(200, 199, 198, 197, 196), ids(hits));
+        for (int i = 1; i < hits.size(); i++) assertTrue(hits.get(i - 1).score >= hits.get(i).score);
+
+        assertEquals(200, index.search("word", 1000).size());
+    }
+}
@@ -0,0 +1,128 @@
+package blog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindTest {
+    private static final User AUTHOR = new RegularUser("tester");
+
+    @Test
+    void writesEverythingInBoundedBatches() throws InterruptedException {
+        ConcurrentLinkedQueue<Integer> batches = new ConcurrentLinkedQueue<>();
+        WriteBehind<BlogPost> writer = new WriteBehind<>("post", posts -> batches.add(posts.size()), 100, 50, 1000);
+        writer.start();
+
+        CountDownLatch done = new CountDownLatch(250);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        for (int i = 0; i < 250; i++) {
+            writer.submit(new BlogPost("t" + i, "c", AUTHOR), (p, e) -> {
+                if (e != null) failure.set(e);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        writer.shutdown(5000);
+
+        assertNull(failure.get());
+        assertEquals(250, batches.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batches.stream().allMatch(n -> n <= 100));
+        assertTrue(batches.size() < 250, "posts should be batched");
+    }
+
+    @Test
+    void sinkErrorReachesEveryCallbackOfTheBatch() throws InterruptedException {
+        WriteBehind<BlogPost> writer = new WriteBehind<>("post", posts -> {
+            throw new IllegalStateException("disk full");
+        }, 10, 20, 100);
+        writer.start();
+
+        CountDownLatch failed = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            writer.submit(new BlogPost("t" + i, "c", AUTHOR), (p, e) -> {
+                if (e != null) failed.countDown();
+            });
+        }
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        writer.shutdown(5000);
+    }
+
+    @Test
+    void shutdownDrainsTheQueueAndRejectsNewPosts() throws InterruptedException {
+        AtomicInteger written = new AtomicInteger();
+        WriteBehind<BlogPost> writer = new WriteBehind<>("post", posts -> {
+            Thread.sleep(5);
+            written.addAndGet(posts.size());
+        }, 10, 0, 1000);
+        writer.start();
+        for (int i = 0; i < 200; i++) writer.submit(new BlogPost("t" + i, "c", AUTHOR), null);
+
+        writer.shutdown(10000);
+        assertEquals(200, written.get());
+        assertFalse(writer.isAlive());
+        assertThrows(IllegalStateException.class, () -> writer.submit(new BlogPost("late", "c", AUTHOR), null));
+    }
+
+    @Test
+    void interruptFailsCommentsThatWereNotWritten() throws InterruptedException {
+        CountDownLatch inSink = new CountDownLatch(1);
+        WriteBehind<Comment> writer = new WriteBehind<>("comment", comments -> {
+            inSink.countDown();
+            Thread.sleep(60000); // Until interrupted
+        }, 1, 0, 100);
+        writer.start();
+
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            writer.submit(new Comment(1, "bob", "c" + i), (c, e) -> {
+                if (e != null) failed.incrementAndGet();
+            });
+        }
+        assertTrue(inSink.await(5, TimeUnit.SECONDS));
+        writer.interrupt();
+        writer.join(5000);
+
+        assertFalse(writer.isAlive());
+        assertEquals(5, failed.get()); // The batch in the sink and the four still queued
+        assertThrows(IllegalStateException.class, () -> writer.submit(new Comment(1, "bob", "late"), null));
+    }
+
+    // A post is either rejected by submit() or its callback fires, also when shutdown() races with submitters
+    @Test
+    void everyAcceptedPostIsCompletedWhenShutdownRacesWithSubmit() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            WriteBehind<BlogPost> writer = new WriteBehind<>("post", List::size, 8, 0, 16);
+            writer.start();
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger completed = new AtomicInteger();
+
+            Thread[] submitters = new Thread[4];
+            for (int t = 0; t < submitters.length; t++) {
+                submitters[t] = new Thread(() -> {
+                    try {
+                        while (true) {
+                            writer.submit(new BlogPost("t", "c", AUTHOR), (p, e) -> completed.incrementAndGet());
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException | InterruptedException stopped) {
+                        // Shut down
+                    }
+                });
+                submitters[t].start();
+            }
+            Thread.sleep(5);
+            writer.shutdown(10000);
+            for (Thread t : submitters) t.join(10000);
+
+            assertFalse(writer.isAlive());
+            assertEquals(accepted.get(), completed.get(), "round " + round);
+        }
+    }
+}
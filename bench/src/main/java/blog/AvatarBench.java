@@ -0,0 +1,43 @@
+package blog;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.Icon;
+import java.util.concurrent.TimeUnit;
+
+// Avatar drawing (the old generateAvatar path) versus a cache hit
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AvatarBench {
+    private static final int USERS = 100;
+
+    private final String[] names = new String[USERS];
+    private AvatarCache cache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < USERS; i++) names[i] = "user" + i;
+        cache = new AvatarCache(4L * 1024 * 1024);
+        for (String name : names) cache.get(name, FeedCardRenderer.AVATAR_SIZE);
+    }
+
+    private String nextName() {
+        next = (next + 1) % USERS;
+        return names[next];
+    }
+
+    @Benchmark
+    public Icon render() {
+        return cache.render(nextName(), FeedCardRenderer.AVATAR_SIZE);
+    }
+
+    @Benchmark
+    public Icon cachedGet() {
+        return cache.get(nextName(), FeedCardRenderer.AVATAR_SIZE);
+    }
+}
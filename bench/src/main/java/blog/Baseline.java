@@ -0,0 +1,108 @@
+package blog;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+// Condensed benchmark scores stored as JSON, one entry per benchmark (plus each method
+// of a @Group), so a later run can be diffed against it without the raw JMH output.
+public class Baseline {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    public static class Entry {
+        String mode;   // thrpt, avgt, sample, ss
+        double score;
+        double error;
+        String unit;
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    String created;
+    String jvm;
+    Map<String, Entry> results = new TreeMap<>();
+
+    public static Baseline fromRun(Collection<RunResult> runs) {
+        Baseline b = new Baseline();
+        b.created = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+        b.jvm = System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+        for (RunResult run : runs) {
+            BenchmarkParams params = run.getParams();
+            String key = params.getBenchmark() + paramSuffix(params);
+            b.results.put(key, entry(params, run.getPrimaryResult()));
+            // Group benchmarks also report each member method
+            for (Map.Entry<String, ?> sec : run.getSecondaryResults().entrySet()) {
+                b.results.put(params.getBenchmark() + ":" + sec.getKey() + paramSuffix(params),
+                        entry(params, (Result<?>) sec.getValue())); // JMH declares the map with raw Result
+            }
+        }
+        return b;
+    }
+
+    private static String paramSuffix(BenchmarkParams params) {
+        StringBuilder sb = new StringBuilder();
+        for (String k : params.getParamsKeys()) {
+            sb.append(sb.length() == 0 ? "?" : "&").append(k).append('=').append(params.getParam(k));
+        }
+        return sb.toString();
+    }
+
+    private static Entry entry(BenchmarkParams params, Result<?> r) {
+        Entry e = new Entry();
+        e.mode = params.getMode().shortLabel();
+        e.score = r.getScore();
+        e.error = Double.isNaN(r.getScoreError()) ? 0 : r.getScoreError();
+        e.unit = r.getScoreUnit();
+        return e;
+    }
+
+    public static Baseline read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(in, Baseline.class);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            GSON.toJson(this, out);
+        }
+    }
+
+    // Prints a side-by-side table and returns the number of regressions.
+    // A change only counts when it is worse by more than thresholdPct AND larger than
+    // the two runs' combined error, so noisy benchmarks don't fail the build on their own.
+    public int diff(Baseline current, double thresholdPct, StringBuilder report) {
+        int regressions = 0;
+        report.append(String.format("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, Entry> e : current.results.entrySet()) {
+            Entry now = e.getValue();
+            Entry then = results.get(e.getKey());
+            if (then == null || !then.mode.equals(now.mode) || !then.unit.equals(now.unit)) {
+                report.append(String.format("%-70s %14s %14.3f %9s%n", e.getKey(), "-", now.score, "new"));
+                continue;
+            }
+            double changePct = (now.score - then.score) / then.score * 100.0;
+            double worsePct = now.higherIsBetter() ? -changePct : changePct;
+            boolean regressed = worsePct > thresholdPct
+                    && Math.abs(now.score - then.score) > then.error + now.error;
+            if (regressed) regressions++;
+            report.append(String.format("%-70s %14.3f %14.3f %+8.1f%% %s%s%n", e.getKey(), then.score, now.score,
+                    changePct, now.unit, regressed ? "  << REGRESSION" : ""));
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,79 @@
+package blog;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Runs the JMH suite and diffs the scores against a stored JSON baseline.
+//
+//   java -jar bench/target/benchmarks.jar [--baseline FILE] [--threshold PCT]
+//                                         [--update-baseline] [JMH options...]
+//
+// Raw JMH results are written to jmh-result.json. Exit code 1 means a regression;
+// the first run (or --update-baseline) records the baseline instead.
+public class BenchMain {
+    private static final String DEFAULT_BASELINE = "bench/baselines/baseline.json";
+    private static final double DEFAULT_THRESHOLD_PCT = 10.0;
+
+    public static void main(String[] args) throws Exception {
+        Path baselineFile = Paths.get(DEFAULT_BASELINE);
+        double threshold = DEFAULT_THRESHOLD_PCT;
+        boolean update = false;
+
+        // 1. Split our flags from the JMH ones
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baselineFile = Paths.get(args[++i]);
+            } else if ("--threshold".equals(args[i]) && i + 1 < args.length) {
+                threshold = Double.parseDouble(args[++i]);
+            } else if ("--update-baseline".equals(args[i])) {
+                update = true;
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+
+        // 2. Run JMH (command line options win over the defaults set here)
+        CommandLineOptions cmd = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        Options opts = new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(cmd.getResult().orElse("jmh-result.json"))
+                .build();
+        Collection<RunResult> runs = new Runner(opts).run();
+        if (runs.isEmpty()) {
+            System.err.println("No benchmarks ran.");
+            System.exit(2);
+        }
+        Baseline current = Baseline.fromRun(runs);
+
+        // 3. Record or compare
+        if (update || !Files.exists(baselineFile)) {
+            current.write(baselineFile);
+            System.out.println("Baseline written to " + baselineFile.toAbsolutePath());
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        int regressions = Baseline.read(baselineFile).diff(current, threshold, report);
+        System.out.println();
+        System.out.print(report);
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) regressed by more than " + threshold
+                    + "% against " + baselineFile);
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baselineFile);
+    }
+}
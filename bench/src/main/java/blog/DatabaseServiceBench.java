@@ -0,0 +1,63 @@
+package blog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// DatabaseService write and read paths against an embedded H2 database in MySQL mode.
+// Each trial gets a fresh in-memory database seeded with "posts" rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseServiceBench {
+    private static final String BODY =
+            "Connecting Java to a database allows for persistent data storage. ";
+
+    @Param({"1000"})
+    public int posts;
+
+    private DatabaseService db;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = new DatabaseService("jdbc:h2:mem:bench" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        if (!db.isConnected()) throw new IllegalStateException("Embedded database did not start");
+        for (int i = 0; i < posts; i++) {
+            db.addPost(newPost());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    private BlogPost newPost() {
+        int n = next++;
+        return new BlogPost("Post " + n, BODY + n, new RegularUser("user" + (n % 50)));
+    }
+
+    // Synchronous insert: one pooled connection, one generated key
+    @Benchmark
+    public BlogPost addPost() {
+        BlogPost post = newPost();
+        db.addPost(post);
+        return post;
+    }
+
+    @Benchmark
+    public List<BlogPost> getAllPosts() {
+        return db.getAllPosts();
+    }
+
+    // The feed's first page (what every refresh costs)
+    @Benchmark
+    public List<BlogPost> getFirstPage() {
+        return db.getPostsBefore(0, 20);
+    }
+}
@@ -0,0 +1,72 @@
+package blog;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.JList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Headless construction of the feed: filling the model page by page, and wiring it
+// into a JList with the card renderer (no window, so no display is needed)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FeedModelBench {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000"})
+    public int rows;
+
+    private final List<List<BlogPost>> pages = new ArrayList<>();
+    private final List<BlogPost> newer = new ArrayList<>();
+    private AvatarCache avatars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Newest first, like getPostsBefore; ids above "rows" are left for mergeNewer
+        List<BlogPost> page = new ArrayList<>();
+        for (int id = rows; id >= 1; id--) {
+            page.add(BlogPost.summary(id, "Post " + id, new RegularUser("user" + (id % 50)), id % 7));
+            if (page.size() == PAGE_SIZE) {
+                pages.add(page);
+                page = new ArrayList<>();
+            }
+        }
+        if (!page.isEmpty()) pages.add(page);
+        for (int id = rows + 1; id <= rows + 50; id++) {
+            newer.add(BlogPost.summary(id, "Post " + id, new RegularUser("user" + (id % 50)), 0));
+        }
+        avatars = new AvatarCache(4L * 1024 * 1024);
+    }
+
+    private FeedListModel fill() {
+        FeedListModel model = new FeedListModel();
+        for (List<BlogPost> page : pages) model.appendPage(page);
+        return model;
+    }
+
+    @Benchmark
+    public FeedListModel buildModel() {
+        return fill();
+    }
+
+    @Benchmark
+    public FeedListModel buildModelAndMergeNewer() {
+        FeedListModel model = fill();
+        model.mergeNewer(newer);
+        return model;
+    }
+
+    @Benchmark
+    public JList<BlogPost> buildList() {
+        JList<BlogPost> list = new JList<>(fill());
+        list.setCellRenderer(new FeedCardRenderer(avatars::get));
+        list.setFixedCellHeight(FeedCardRenderer.CARD_HEIGHT);
+        list.setFixedCellWidth(1);
+        return list;
+    }
+}
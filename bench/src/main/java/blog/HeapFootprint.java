@@ -0,0 +1,126 @@
+package blog;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Heap footprint of an in-memory feed: bytes retained per post summary for
+//   legacy    - the old row shape: own RegularUser + username String, empty comments ArrayList, Date
+//   blogpost  - BlogPost as it is now: shared UserRegistry author, long timestamp, no comment list
+//   columnar  - PostColumns (what FeedListModel stores)
+// Titles are distinct Strings in every variant; they are also measured on their own ("titles")
+// so the per-row overhead on top of the actual text can be compared.
+//
+//   java -cp bench/target/benchmarks.jar blog.HeapFootprint [posts] [--min-ratio R]
+//
+// Exit code 1 if the columnar overhead is not at least R times (default 3) smaller than legacy's.
+public class HeapFootprint {
+    private static final int AUTHORS = 500;
+
+    private static volatile Object keepAlive;
+
+    // Field-for-field copy of the pre-compaction BlogPost
+    static final class LegacyPost {
+        int id;
+        String title;
+        String content;
+        User author;
+        int likes;
+        List<String> comments;
+        Date timestamp;
+
+        LegacyPost(int id, String title, String author, int likes) {
+            this.id = id;
+            this.title = title;
+            this.author = new RegularUser(new String(author)); // One per row, as mapSummary did
+            this.likes = likes;
+            this.comments = new ArrayList<>();
+            this.timestamp = new Date();
+        }
+    }
+
+    private interface Builder {
+        Object build(int posts);
+    }
+
+    public static void main(String[] args) {
+        int posts = 200000;
+        double minRatio = 3.0;
+        for (int i = 0; i < args.length; i++) {
+            if ("--min-ratio".equals(args[i]) && i + 1 < args.length) minRatio = Double.parseDouble(args[++i]);
+            else posts = Integer.parseInt(args[i]);
+        }
+
+        // Warm the registry so the shared authors are not charged to the first variant
+        for (int a = 0; a < AUTHORS; a++) UserRegistry.author("user" + a);
+
+        double titles = measure("titles", posts, n -> {
+            String[] rows = new String[n];
+            for (int id = n; id >= 1; id--) rows[n - id] = title(id);
+            return rows;
+        });
+        double legacy = measure("legacy", posts, n -> {
+            List<LegacyPost> rows = new ArrayList<>(n);
+            for (int id = n; id >= 1; id--) rows.add(new LegacyPost(id, title(id), "user" + (id % AUTHORS), id % 7));
+            return rows;
+        });
+        measure("blogpost", posts, n -> {
+            List<BlogPost> rows = new ArrayList<>(n);
+            for (int id = n; id >= 1; id--) rows.add(summary(id));
+            return rows;
+        });
+        double columnar = measure("columnar", posts, n -> {
+            PostColumns rows = new PostColumns(n);
+            for (int id = n; id >= 1; id--) rows.add(summary(id));
+            return rows;
+        });
+
+        double ratio = (legacy - titles) / (columnar - titles);
+        System.out.printf("overhead per post beyond the title: legacy %.0f bytes, columnar %.0f bytes (%.1fx smaller)%n",
+                legacy - titles, columnar - titles, ratio);
+        if (ratio < minRatio) {
+            System.err.printf("FAIL: expected at least %.1fx%n", minRatio);
+            System.exit(1);
+        }
+    }
+
+    private static BlogPost summary(int id) {
+        BlogPost p = BlogPost.summary(id, title(id), UserRegistry.author("user" + (id % AUTHORS)), id % 7);
+        p.timestamp = System.currentTimeMillis();
+        return p;
+    }
+
+    private static String title(int id) {
+        return "Post " + id;
+    }
+
+    // Retained bytes per post: used heap with the structure alive minus used heap without it
+    private static double measure(String name, int posts, Builder builder) {
+        long before = usedAfterGc();
+        Object rows = builder.build(posts);
+        keepAlive = rows; // Reachable until measured
+        long after = usedAfterGc();
+        double perPost = (after - before) / (double) posts;
+        System.out.printf("%-9s %,d posts  %,.1f bytes/post%n", name, posts, perPost);
+        keepAlive = null;
+        return perPost;
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Repeat until the number settles (System.gc() is only a request)
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long now = rt.totalMemory() - rt.freeMemory();
+            if (now >= used && i > 2) return Math.min(now, used);
+            used = Math.min(used, now);
+        }
+        return used;
+    }
+}
@@ -0,0 +1,729 @@
+package blog;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Headless load / soak test for any IDataService: N virtual users (one virtual thread each on
+// Java 21+, platform threads before that) log in, then loop over a weighted mix of
+//   login    authenticateUser
+//   post     addPost, timed until the store acknowledges it (callback)
+//   feed     first two feed pages (getPostsBefore)
+//   all      getAllPosts
+//   like     likePost on a post written during this run
+//   comment  addComment on such a post, timed until stored
+// Latency goes into one log-linear histogram per operation; every interval the deltas are printed
+// and kept, so a soak run shows drift over time. Every acknowledged write is remembered and checked
+// afterwards (posts by their unique title, like counts, comments per post): a write that was
+// acknowledged but cannot be read back is lost, one that shows up twice is duplicated. Stores that
+// persist are then closed, reopened and checked again.
+//
+//   java -cp bench/target/benchmarks.jar blog.LoadSimulator [--backend h2|memory|log|jdbc]
+//       [--users N] [--duration SEC] [--interval SEC] [--mix login=2,post=10,feed=55,all=1,like=25,comment=7]
+//       [--think MS] [--sync-writes] [--cache] [--seed N] [--max-error-rate PCT] [--report FILE]
+//       [--url JDBC-URL --db-user USER --db-pass PASS]   (backend jdbc, e.g. a real MySQL server)
+//
+// Writes the report as JSON (default load-report.json). Exit code 1 on any lost, duplicated or
+// clashing write, or if more than PCT % (default 1) of the operations failed.
+public class LoadSimulator {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final String H2_URL = "jdbc:h2:mem:loadsim;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final long ACK_TIMEOUT_MS = 30000;
+    private static final int FEED_PAGE = 20;
+    private static final int VERIFY_CHUNK = 500;
+    private static final int MAX_ERROR_KINDS = 50;
+    private static final String BODY =
+            "Connecting Java to a database allows for persistent data storage. Load test post body. ";
+
+    enum Op {
+        LOGIN, POST, FEED, ALL, LIKE, COMMENT;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // --- Settings ---
+
+    static final class Config {
+        String backend = "h2";
+        int users = 50;
+        int durationSeconds = 30;
+        int intervalSeconds = 5;
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        long thinkMillis = 0;
+        boolean writeBehind = true;
+        boolean cache = false;
+        long seed = 42;
+        double maxErrorRatePercent = 1.0;
+        String url;
+        String dbUser = "sa";
+        transient String dbPass = "";
+        transient String report = "load-report.json";
+        String threads;
+
+        Config() {
+            mix.put("login", 2);
+            mix.put("post", 10);
+            mix.put("feed", 55);
+            mix.put("all", 1);
+            mix.put("like", 25);
+            mix.put("comment", 7);
+        }
+    }
+
+    // --- Report (serialized as is) ---
+
+    static final class OpStats {
+        long count;
+        long errors;
+        double throughput; // Per second
+        double meanMs;
+        double p50Ms;
+        double p90Ms;
+        double p99Ms;
+        double p999Ms;
+        double maxMs;
+    }
+
+    static final class Interval {
+        double t; // Seconds since the start, at the end of the interval
+        long ops;
+        long errors;
+        double throughput;
+        Map<String, OpStats> latency = new LinkedHashMap<>();
+    }
+
+    static final class Verification {
+        long postsAcked;
+        long postsFound;
+        long postsLost;
+        long postsDuplicated;
+        long postsStoredWithoutAck; // Failed or timed out, but landed anyway (not an error)
+        long postIdClashes;         // Two stored posts with the same id
+        long likesExpected;
+        long likesFound;
+        long likesLost;
+        long likesExtra;
+        long commentsAcked;
+        long commentsFound;
+        long commentsLost;
+        long commentsDuplicated;
+        List<String> lostSamples = new ArrayList<>();
+
+        long problems() {
+            return postsLost + postsDuplicated + postIdClashes + likesLost + likesExtra + commentsLost + commentsDuplicated;
+        }
+    }
+
+    static final class Report {
+        String started;
+        String jvm;
+        Config config;
+        double elapsedSeconds;
+        long ops;
+        long errors;
+        double throughput;
+        Map<String, OpStats> operations = new LinkedHashMap<>();
+        List<Interval> intervals = new ArrayList<>();
+        Map<String, Long> errorKinds = new TreeMap<>();
+        Verification verification;
+        Verification afterRestart; // null if the store keeps nothing across a restart
+        List<String> problems = new ArrayList<>();
+        boolean passed;
+    }
+
+    // --- What the store acknowledged, to be read back afterwards ---
+
+    static final class Ledger {
+        final String prefix; // Unique per run, so rows of earlier runs are ignored
+        final Map<String, Integer> posts = new ConcurrentHashMap<>();    // Title -> id (0 = queued offline)
+        final Map<Integer, LongAdder> likes = new ConcurrentHashMap<>(); // Acknowledged likes per post
+        final Map<Integer, Set<String>> comments = new ConcurrentHashMap<>();
+        private int[] ids = new int[1024]; // Posts that can be liked / commented on
+        private int size = 0;
+
+        Ledger(String prefix) {
+            this.prefix = prefix;
+        }
+
+        void postAcked(BlogPost post) {
+            posts.put(post.title, post.id);
+            if (post.id <= 0) return;
+            synchronized (this) {
+                if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+                ids[size++] = post.id;
+            }
+        }
+
+        // A random post of this run, or 0 if there is none yet
+        synchronized int pick(SplittableRandom rnd) {
+            return size == 0 ? 0 : ids[rnd.nextInt(size)];
+        }
+
+        void liked(int postId) {
+            likes.computeIfAbsent(postId, k -> new LongAdder()).increment();
+        }
+
+        void commentAcked(Comment c) {
+            comments.computeIfAbsent(c.postId, k -> ConcurrentHashMap.newKeySet()).add(c.body);
+        }
+    }
+
+    private final Config config;
+    private final IDataService store;  // What the virtual users call
+    private final IDataService backing; // The bare store, for verification
+    private final Ledger ledger;
+    private final int[] cumulativeWeights;
+    private final Histogram[] latency = new Histogram[Op.values().length];
+    private final LongAdder[] errors = new LongAdder[Op.values().length];
+    private final Map<String, LongAdder> errorKinds = new ConcurrentHashMap<>();
+    private final AtomicReference<String> threadKind = new AtomicReference<>();
+    private volatile boolean running = true;
+
+    LoadSimulator(Config config, IDataService backing) {
+        this.config = config;
+        this.backing = backing;
+        this.store = config.cache ? new CachingDataService(backing) : backing;
+        this.ledger = new Ledger("load-" + Long.toString(System.currentTimeMillis(), 36) + "-");
+        this.cumulativeWeights = new int[Op.values().length];
+        int total = 0;
+        for (Op op : Op.values()) {
+            total += Math.max(0, config.mix.getOrDefault(op.key(), 0));
+            cumulativeWeights[op.ordinal()] = total;
+            latency[op.ordinal()] = new Histogram(true);
+            errors[op.ordinal()] = new LongAdder();
+        }
+        if (total == 0) throw new IllegalArgumentException("The operation mix is empty");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = parse(args);
+        Path scratch = Files.createTempDirectory("loadsim");
+        IDataService backing = open(config, scratch, true);
+        if (backing == null) {
+            System.exit(2);
+            return;
+        }
+
+        LoadSimulator sim = new LoadSimulator(config, backing);
+        Report report = sim.run();
+
+        System.out.println("Checking acknowledged writes...");
+        report.verification = verify(backing, sim.ledger);
+        close(backing);
+        if (!"memory".equals(config.backend)) {
+            System.out.println("Reopening the store and checking again...");
+            IDataService reopened = open(config, scratch, false);
+            if (reopened != null) {
+                report.afterRestart = verify(reopened, sim.ledger);
+                close(reopened);
+            }
+        }
+        deleteRecursively(scratch.toFile());
+
+        judge(report);
+        try (Writer out = Files.newBufferedWriter(Paths.get(config.report), StandardCharsets.UTF_8)) {
+            GSON.toJson(report, out);
+        }
+        print(report);
+        System.out.println("Report written to " + config.report);
+        System.exit(report.passed ? 0 : 1);
+    }
+
+    private static Config parse(String[] args) {
+        Config c = new Config();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if ("--sync-writes".equals(a)) {
+                c.writeBehind = false;
+                continue;
+            }
+            if ("--cache".equals(a)) {
+                c.cache = true;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + a);
+            String v = args[++i];
+            switch (a) {
+                case "--backend": c.backend = v; break;
+                case "--users": c.users = Integer.parseInt(v); break;
+                case "--duration": c.durationSeconds = Integer.parseInt(v); break;
+                case "--interval": c.intervalSeconds = Math.max(1, Integer.parseInt(v)); break;
+                case "--think": c.thinkMillis = Long.parseLong(v); break;
+                case "--seed": c.seed = Long.parseLong(v); break;
+                case "--max-error-rate": c.maxErrorRatePercent = Double.parseDouble(v); break;
+                case "--report": c.report = v; break;
+                case "--url": c.url = v; break;
+                case "--db-user": c.dbUser = v; break;
+                case "--db-pass": c.dbPass = v; break;
+                case "--mix":
+                    c.mix.clear();
+                    for (String part : v.split(",")) {
+                        String[] kv = part.split("=");
+                        Op.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)); // Reject unknown operations
+                        c.mix.put(kv[0].trim().toLowerCase(Locale.ROOT), Integer.parseInt(kv[1].trim()));
+                    }
+                    break;
+                default: throw new IllegalArgumentException("Unknown option " + a);
+            }
+        }
+        if ("jdbc".equals(c.backend) && c.url == null) throw new IllegalArgumentException("--backend jdbc needs --url");
+        if ("h2".equals(c.backend)) c.url = H2_URL;
+        return c;
+    }
+
+    // The bare store; "first" also prepares it (login accounts). Null if it cannot be used.
+    private static IDataService open(Config config, Path scratch, boolean first) throws IOException {
+        switch (config.backend) {
+            case "memory":
+                return DatabaseService.inMemory();
+            case "log":
+                return new LogDataService(scratch.resolve("posts").toFile());
+            case "h2":
+            case "jdbc":
+                if (first) {
+                    try {
+                        createUsers(config);
+                    } catch (SQLException e) {
+                        System.err.println("WARNING: Could not create the load test accounts, logins will fail. " + e.getMessage());
+                    }
+                }
+                DatabaseService db = new DatabaseService(config.url, config.dbUser, config.dbPass, scratch.resolve("outbox.buf"));
+                if (db.isMemoryMode()) {
+                    System.err.println("ERROR: Database not usable: " + config.url);
+                    db.close();
+                    return null;
+                }
+                if (config.writeBehind) db.enableWriteBehind(100, 50, 1000); // Same as Backend.openStore()
+                return db;
+            default:
+                throw new IllegalArgumentException("Unknown backend " + config.backend);
+        }
+    }
+
+    private static void close(IDataService store) {
+        Backend.close(store);
+    }
+
+    // One account per virtual user: loadN / pwN
+    private static void createUsers(Config config) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(config.url, config.dbUser, config.dbPass)) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS users (username VARCHAR(50) PRIMARY KEY, password VARCHAR(50) NOT NULL)");
+            }
+            try (PreparedStatement find = conn.prepareStatement("SELECT 1 FROM users WHERE username = ?");
+                 PreparedStatement insert = conn.prepareStatement("INSERT INTO users (username, password) VALUES (?, ?)")) {
+                for (int u = 0; u < config.users; u++) {
+                    find.setString(1, "load" + u);
+                    try (ResultSet rs = find.executeQuery()) {
+                        if (rs.next()) continue;
+                    }
+                    insert.setString(1, "load" + u);
+                    insert.setString(2, "pw" + u);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    // --- Run ---
+
+    Report run() throws InterruptedException {
+        Report report = new Report();
+        report.started = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date());
+        report.jvm = System.getProperty("java.vm.name") + " " + System.getProperty("java.version");
+        report.config = config;
+
+        System.out.println("Load test: " + config.users + " users on " + config.backend + " for "
+                + config.durationSeconds + " s, mix " + config.mix);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-interval");
+            t.setDaemon(true);
+            return t;
+        });
+        long[][] last = snapshots();
+        long[] lastErrors = errorCounts();
+        long[] lastTick = {start};
+        ticker.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            long[][] snap = snapshots();
+            long[] errs = errorCounts();
+            Interval iv = interval(snap, last, errs, lastErrors, now - lastTick[0]);
+            iv.t = round((now - start) / 1e9);
+            synchronized (report.intervals) {
+                report.intervals.add(iv);
+            }
+            printInterval(iv);
+            System.arraycopy(snap, 0, last, 0, snap.length);
+            System.arraycopy(errs, 0, lastErrors, 0, errs.length);
+            lastTick[0] = now;
+        }, config.intervalSeconds, config.intervalSeconds, TimeUnit.SECONDS);
+
+        ExecutorService users = AsyncDataService.createExecutor(); // Virtual threads where available
+        for (int u = 0; u < config.users; u++) {
+            int id = u;
+            users.submit(() -> virtualUser(id, deadline));
+        }
+        users.shutdown();
+        if (!users.awaitTermination(config.durationSeconds + ACK_TIMEOUT_MS / 1000 + 60, TimeUnit.SECONDS)) {
+            System.err.println("WARNING: Virtual users still busy after the deadline, stopping them.");
+            running = false;
+            users.shutdownNow();
+        }
+        ticker.shutdownNow();
+        long elapsed = System.nanoTime() - start;
+
+        config.threads = threadKind.get();
+        report.elapsedSeconds = round(elapsed / 1e9);
+        for (Op op : Op.values()) {
+            Histogram h = latency[op.ordinal()];
+            OpStats s = stats(h.snapshot(), null, errors[op.ordinal()].sum(), elapsed);
+            s.meanMs = round(h.getMean());
+            s.maxMs = round(h.getMax());
+            // Percentiles report bucket limits, which can lie above the largest value recorded
+            s.p50Ms = Math.min(s.p50Ms, s.maxMs);
+            s.p90Ms = Math.min(s.p90Ms, s.maxMs);
+            s.p99Ms = Math.min(s.p99Ms, s.maxMs);
+            s.p999Ms = Math.min(s.p999Ms, s.maxMs);
+            report.operations.put(op.key(), s);
+            report.ops += s.count;
+            report.errors += s.errors;
+        }
+        report.throughput = round(report.ops / (elapsed / 1e9));
+        for (Map.Entry<String, LongAdder> e : errorKinds.entrySet()) report.errorKinds.put(e.getKey(), e.getValue().sum());
+        return report;
+    }
+
+    private void virtualUser(int id, long deadline) {
+        threadKind.compareAndSet(null, isVirtual(Thread.currentThread()) ? "virtual" : "platform");
+        SplittableRandom rnd = new SplittableRandom(config.seed * 31 + id);
+        String name = "load" + id;
+        int seq = 0;
+        execute(Op.LOGIN, name, id, seq++, rnd); // Every session starts with a login
+        while (running && System.nanoTime() < deadline) {
+            execute(pick(rnd), name, id, seq++, rnd);
+            if (config.thinkMillis > 0) {
+                // Exponentially distributed pauses around the mean, like independent users
+                long pause = (long) (-Math.log(1 - rnd.nextDouble()) * config.thinkMillis);
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Op pick(SplittableRandom rnd) {
+        int r = rnd.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (Op op : Op.values()) {
+            if (r < cumulativeWeights[op.ordinal()]) return op;
+        }
+        return Op.FEED;
+    }
+
+    private void execute(Op op, String name, int user, int seq, SplittableRandom rnd) {
+        int target = 0;
+        if (op == Op.LIKE || op == Op.COMMENT) {
+            target = ledger.pick(rnd);
+            if (target == 0) op = Op.POST; // Nothing to like yet
+        }
+        long start = System.nanoTime();
+        String failure;
+        try {
+            failure = call(op, name, user, seq, target);
+        } catch (RuntimeException e) {
+            failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        latency[op.ordinal()].recordSince(start);
+        if (failure != null) {
+            errors[op.ordinal()].increment();
+            String kind = op.key() + " - " + failure;
+            if (kind.length() > 160) kind = kind.substring(0, 160);
+            if (errorKinds.size() >= MAX_ERROR_KINDS && !errorKinds.containsKey(kind)) kind = op.key() + " - (other)";
+            errorKinds.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+    }
+
+    // Runs one operation; returns why it failed, or null
+    private String call(Op op, String name, int user, int seq, int target) {
+        switch (op) {
+            case LOGIN:
+                return store.authenticateUser(name, "pw" + user) ? null : "login refused";
+            case POST: {
+                BlogPost post = new BlogPost(ledger.prefix + user + "-" + seq, BODY + seq, UserRegistry.author(name));
+                CountDownLatch done = new CountDownLatch(1);
+                Exception[] error = new Exception[1];
+                store.addPost(post, (p, e) -> {
+                    error[0] = e;
+                    done.countDown();
+                });
+                if (!await(done)) return "not acknowledged within " + ACK_TIMEOUT_MS + " ms";
+                if (error[0] != null) return error[0].getClass().getSimpleName() + ": " + error[0].getMessage();
+                ledger.postAcked(post);
+                return null;
+            }
+            case FEED: {
+                List<BlogPost> page = store.getPostsBefore(0, FEED_PAGE);
+                if (page.size() == FEED_PAGE) store.getPostsBefore(page.get(page.size() - 1).id, FEED_PAGE);
+                return null;
+            }
+            case ALL:
+                store.getAllPosts();
+                return null;
+            case LIKE:
+                store.likePost(target);
+                ledger.liked(target);
+                return null;
+            case COMMENT: {
+                Comment comment = new Comment(target, name, ledger.prefix + "c" + user + "-" + seq);
+                CountDownLatch done = new CountDownLatch(1);
+                Exception[] error = new Exception[1];
+                store.addComment(comment, (c, e) -> {
+                    error[0] = e;
+                    done.countDown();
+                });
+                if (!await(done)) return "not acknowledged within " + ACK_TIMEOUT_MS + " ms";
+                if (error[0] != null) return error[0].getClass().getSimpleName() + ": " + error[0].getMessage();
+                ledger.commentAcked(comment);
+                return null;
+            }
+            default:
+                throw new IllegalStateException(op.name());
+        }
+    }
+
+    private static boolean await(CountDownLatch done) {
+        try {
+            return done.await(ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Thread.isVirtual() only exists on Java 21+
+    private static boolean isVirtual(Thread t) {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(t);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    // --- Histograms ---
+
+    private long[][] snapshots() {
+        long[][] s = new long[latency.length][];
+        for (int i = 0; i < latency.length; i++) s[i] = latency[i].snapshot();
+        return s;
+    }
+
+    private long[] errorCounts() {
+        long[] e = new long[errors.length];
+        for (int i = 0; i < errors.length; i++) e[i] = errors[i].sum();
+        return e;
+    }
+
+    private static Interval interval(long[][] now, long[][] since, long[] errs, long[] errsSince, long nanos) {
+        Interval iv = new Interval();
+        for (Op op : Op.values()) {
+            int i = op.ordinal();
+            OpStats s = stats(now[i], since[i], errs[i] - errsSince[i], nanos);
+            if (s.count == 0) continue;
+            iv.latency.put(op.key(), s);
+            iv.ops += s.count;
+            iv.errors += s.errors;
+        }
+        iv.throughput = round(iv.ops / (nanos / 1e9));
+        return iv;
+    }
+
+    private static OpStats stats(long[] now, long[] since, long errors, long nanos) {
+        OpStats s = new OpStats();
+        s.count = Histogram.count(now, since);
+        s.errors = errors;
+        s.throughput = round(s.count / (nanos / 1e9));
+        s.p50Ms = ms(Histogram.percentile(now, since, 50));
+        s.p90Ms = ms(Histogram.percentile(now, since, 90));
+        s.p99Ms = ms(Histogram.percentile(now, since, 99));
+        s.p999Ms = ms(Histogram.percentile(now, since, 99.9));
+        return s;
+    }
+
+    private static double ms(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+
+    // --- Verification ---
+
+    static Verification verify(IDataService store, Ledger ledger) throws IOException {
+        Verification v = new Verification();
+
+        // Posts: every acknowledged title exactly once, no id handed out twice
+        Map<String, Integer> stored = new HashMap<>();
+        Set<Integer> ids = new HashSet<>();
+        long[] clashes = {0};
+        store.exportPosts(0, post -> {
+            if (!ids.add(post.id)) clashes[0]++;
+            if (post.title != null && post.title.startsWith(ledger.prefix)) stored.merge(post.title, 1, Integer::sum);
+        });
+        v.postIdClashes = clashes[0];
+        v.postsAcked = ledger.posts.size();
+        for (String title : ledger.posts.keySet()) {
+            Integer n = stored.get(title);
+            if (n == null) {
+                v.postsLost++;
+                sample(v, "post " + title);
+            } else {
+                v.postsFound++;
+                if (n > 1) v.postsDuplicated += n - 1;
+            }
+        }
+        for (String title : stored.keySet()) {
+            if (!ledger.posts.containsKey(title)) v.postsStoredWithoutAck++;
+        }
+
+        // Likes: each acknowledged like counted exactly once
+        List<Integer> liked = new ArrayList<>(ledger.likes.keySet());
+        for (int from = 0; from < liked.size(); from += VERIFY_CHUNK) {
+            List<Integer> chunk = liked.subList(from, Math.min(liked.size(), from + VERIFY_CHUNK));
+            Map<Integer, Integer> counts = store.getLikeCounts(chunk);
+            for (Integer id : chunk) {
+                long expected = ledger.likes.get(id).sum();
+                long found = counts.getOrDefault(id, 0);
+                v.likesExpected += expected;
+                v.likesFound += found;
+                if (found < expected) {
+                    v.likesLost += expected - found;
+                    sample(v, "likes of post " + id + ": " + found + " of " + expected);
+                } else {
+                    v.likesExtra += found - expected;
+                }
+            }
+        }
+
+        // Comments: page through each post's comments
+        for (Map.Entry<Integer, Set<String>> e : ledger.comments.entrySet()) {
+            Set<String> acked = e.getValue();
+            Set<String> seen = new HashSet<>();
+            int after = 0;
+            while (true) {
+                List<Comment> page = store.getComments(e.getKey(), after, VERIFY_CHUNK);
+                for (Comment c : page) {
+                    if (!acked.contains(c.body)) continue;
+                    if (!seen.add(c.body)) v.commentsDuplicated++;
+                }
+                if (page.size() < VERIFY_CHUNK) break;
+                after = page.get(page.size() - 1).id;
+            }
+            v.commentsAcked += acked.size();
+            v.commentsFound += seen.size();
+            for (String body : acked) {
+                if (seen.contains(body)) continue;
+                v.commentsLost++;
+                sample(v, "comment " + body + " on post " + e.getKey());
+            }
+        }
+        return v;
+    }
+
+    private static void sample(Verification v, String what) {
+        if (v.lostSamples.size() < 10) v.lostSamples.add(what);
+    }
+
+    private static void judge(Report report) {
+        double errorRate = report.ops == 0 ? 0 : 100.0 * report.errors / report.ops;
+        if (report.ops == 0) report.problems.add("No operations completed");
+        if (errorRate > report.config.maxErrorRatePercent) {
+            report.problems.add(String.format("Error rate %.2f%% above %.2f%%", errorRate, report.config.maxErrorRatePercent));
+        }
+        check(report.problems, "", report.verification);
+        check(report.problems, "after restart: ", report.afterRestart);
+        report.passed = report.problems.isEmpty();
+    }
+
+    private static void check(List<String> problems, String when, Verification v) {
+        if (v == null || v.problems() == 0) return;
+        if (v.postsLost > 0) problems.add(when + v.postsLost + " acknowledged post(s) lost");
+        if (v.postsDuplicated > 0) problems.add(when + v.postsDuplicated + " duplicate post(s)");
+        if (v.postIdClashes > 0) problems.add(when + v.postIdClashes + " post id(s) used twice");
+        if (v.likesLost > 0) problems.add(when + v.likesLost + " acknowledged like(s) lost");
+        if (v.likesExtra > 0) problems.add(when + v.likesExtra + " like(s) counted twice");
+        if (v.commentsLost > 0) problems.add(when + v.commentsLost + " acknowledged comment(s) lost");
+        if (v.commentsDuplicated > 0) problems.add(when + v.commentsDuplicated + " duplicate comment(s)");
+    }
+
+    // --- Console ---
+
+    private static void printInterval(Interval iv) {
+        StringBuilder sb = new StringBuilder(String.format("%7.1fs %9.0f ops/s %6d err", iv.t, iv.throughput, iv.errors));
+        for (Map.Entry<String, OpStats> e : iv.latency.entrySet()) {
+            sb.append(String.format("  %s p50=%.2f p99=%.2f", e.getKey(), e.getValue().p50Ms, e.getValue().p99Ms));
+        }
+        System.out.println(sb);
+    }
+
+    private static void print(Report r) {
+        System.out.println();
+        System.out.printf("%d ops in %.1f s (%.0f ops/s), %d error(s), %s threads%n",
+                r.ops, r.elapsedSeconds, r.throughput, r.errors, r.config.threads);
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, OpStats> e : r.operations.entrySet()) {
+            OpStats s = e.getValue();
+            System.out.printf("%-8s %10d %8d %10.0f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    e.getKey(), s.count, s.errors, s.throughput, s.p50Ms, s.p90Ms, s.p99Ms, s.p999Ms, s.maxMs);
+        }
+        for (Map.Entry<String, Long> e : r.errorKinds.entrySet()) System.out.println("  " + e.getValue() + "x " + e.getKey());
+        printVerification("Writes", r.verification);
+        printVerification("After restart", r.afterRestart);
+        System.out.println(r.passed ? "PASSED" : "FAILED: " + String.join("; ", r.problems));
+    }
+
+    private static void printVerification(String label, Verification v) {
+        if (v == null) return;
+        System.out.printf("%s: posts %d/%d, likes %d/%d, comments %d/%d found%s%n", label,
+                v.postsFound, v.postsAcked, v.likesFound, v.likesExpected, v.commentsFound, v.commentsAcked,
+                v.lostSamples.isEmpty() ? "" : ", e.g. missing " + v.lostSamples);
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) deleteRecursively(c);
+        }
+        if (!f.delete() && f.exists()) System.err.println("WARNING: Could not delete " + f);
+    }
+}
@@ -0,0 +1,78 @@
+package blog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// MemoryStore under contention: feed readers and like writers racing a single poster.
+// The store is rebuilt every iteration so the writer's growth doesn't skew later iterations.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemoryStoreBench {
+
+    @Param({"10000"})
+    public int preload;
+
+    private MemoryStore store;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store = new MemoryStore();
+        for (int i = 0; i < preload; i++) {
+            store.addPost(new BlogPost("Post " + i, "Body " + i, new RegularUser("user" + (i % 50))));
+        }
+    }
+
+    private static BlogPost newPost() {
+        return new BlogPost("New post", "Body", new RegularUser("writer"));
+    }
+
+    // 1. Readers only (no contention baseline)
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public List<BlogPost> readOnlyPage() {
+        return store.getPostsBefore(0, 20);
+    }
+
+    // 2. Three page readers against one poster
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public List<BlogPost> readWritePage() {
+        return store.getPostsBefore(0, 20);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public BlogPost readWritePost() {
+        BlogPost post = newPost();
+        store.addPost(post);
+        return post;
+    }
+
+    // 3. Likes on random posts while readers page and look up posts
+
+    @Benchmark
+    @Group("likes")
+    @GroupThreads(2)
+    public void likesAdd() {
+        store.addLikes(1 + ThreadLocalRandom.current().nextInt(preload), 1);
+    }
+
+    @Benchmark
+    @Group("likes")
+    @GroupThreads(2)
+    public BlogPost likesGet() {
+        return store.getPost(1 + ThreadLocalRandom.current().nextInt(preload));
+    }
+}